@@ -0,0 +1,115 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link JdbcPool} data source path on 8 threads, with connections from
+ * {@link StandInJdbc} so no database is needed: checkout and close of a connection, and a
+ * checkout-prepare-bind-execute-close sequence through the pool wrappers and the statement
+ * cache. {@code distinctStatements} below the cache size (256) measures cache hits, above it
+ * the stand-in prepare cost ({@code prepareNanos}) of the misses. {@code direct} runs the same
+ * sequence on a stand-in connection of its own, the difference is the pool overhead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JdbcPoolBenchmark {
+    @Param({"8"})
+    private int poolSize;
+    @Param({"64", "1024"})
+    private int distinctStatements;
+    @Param({"20000"})
+    private long prepareNanos;
+
+    private JdbcPool pool;
+    private String[] statements;
+
+    @Setup
+    public void setUp() throws IllegalAccessException {
+        JdbcPoolBuilder builder = new JdbcPoolBuilder(new Properties());
+        builder.setConnectionFactory(() -> StandInJdbc.connection(prepareNanos));
+        builder.setPoolName("JdbcPoolBenchmark");
+        builder.getEntityPoolBuilder().initialSize(poolSize).maxSize(poolSize);
+        pool = builder.build();
+        statements = new String[distinctStatements];
+        for (int i = 0; i < statements.length; i++) {
+            statements[i] = "SELECT name FROM account_" + i + " WHERE id = ?";
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+        private Connection direct;
+        private int next;
+
+        @Setup
+        public void setUp(JdbcPoolBenchmark benchmark) {
+            direct = StandInJdbc.connection(benchmark.prepareNanos);
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            direct.close();
+        }
+
+        private int next(int bound) {
+            int i = next;
+            next = i + 1 == bound ? 0 : i + 1;
+            return i;
+        }
+    }
+
+    @Benchmark
+    public Connection getConnectionClose() throws SQLException {
+        Connection connection = pool.getConnection();
+        connection.close();
+        return connection;
+    }
+
+    @Benchmark
+    public boolean pooled(Caller caller) throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            return execute(connection, statements[caller.next(statements.length)]);
+        }
+    }
+
+    @Benchmark
+    public boolean direct(Caller caller) throws SQLException {
+        return execute(caller.direct, statements[caller.next(statements.length)]);
+    }
+
+    private static boolean execute(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, 42L);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+}
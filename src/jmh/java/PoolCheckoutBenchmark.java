@@ -0,0 +1,87 @@
+import api.EntityChecker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout and release of {@link EntityPool} with 8 threads sharing pools of 2, 8 and 32
+ * entities (4:1, 1:1 and 1:4 threads per entity), the entities are plain objects so only the
+ * pool is measured. {@code holdTokens} is the work done while an entity is held, in
+ * {@link Blackhole#consumeCPU} tokens. Run with {@code -t} to change the thread count and
+ * {@code -prof gc} to check the checkout path doesn't allocate.
+ *
+ * <p>{@code refreshUnderLoad} runs the same checkouts on 7 threads while one thread
+ * refreshes the pool continuously, as the idle connection check does every period.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoolCheckoutBenchmark {
+    @Param({"2", "8", "32"})
+    private int poolSize;
+    @Param({"0", "100"})
+    private long holdTokens;
+
+    private EntityPool<Object> pool;
+
+    @Setup
+    public void setUp() {
+        EntityChecker<Object> alwaysValid = entity -> true;
+        pool = EntityPool.<Object>builder()
+                .factory(Object::new)
+                .addCheckers(alwaysValid)
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object checkoutRelease() throws InterruptedException {
+        return checkoutRelease(pool, holdTokens);
+    }
+
+    @Benchmark
+    @Group("refreshUnderLoad")
+    @GroupThreads(7)
+    public Object checkout() throws InterruptedException {
+        return checkoutRelease(pool, holdTokens);
+    }
+
+    @Benchmark
+    @Group("refreshUnderLoad")
+    @GroupThreads(1)
+    public void refresh() {
+        pool.refresh();
+    }
+
+    private static Object checkoutRelease(EntityPool<Object> pool, long holdTokens) throws InterruptedException {
+        Object entity = pool.getEntity();
+        Blackhole.consumeCPU(holdTokens);
+        pool.release(entity);
+        return entity;
+    }
+}
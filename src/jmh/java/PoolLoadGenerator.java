@@ -0,0 +1,264 @@
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for a {@link JdbcPool}: operations (checkout, prepare, execute,
+ * close) are scheduled at a fixed rate whether or not the previous ones completed, unlike
+ * {@link ConnectionPoolTester#testConcurrentAccess} where each thread waits for its previous
+ * operation and a slow pool just lowers the load.
+ *
+ * <p>The latency of an operation is measured from its scheduled start, not from the moment a
+ * worker got to it: when the pool or the workers fall behind, the operations that were due
+ * meanwhile are charged the time they waited (coordinated omission correction). The service
+ * time from the actual start is reported next to it, the gap between both is queueing.
+ *
+ * <pre>
+ * PoolLoadGenerator [--url jdbc:loopback:load?statementLatency=1ms] [--user u --password p]
+ *                   [--pool 10] [--checkout-timeout 2000] [--workers 256] [--sql "SELECT 1"]
+ *                   [--rate 1000 | --sweep 1000:10000:1000] [--duration 10] [--warmup 2] [--trace file]
+ * </pre>
+ * {@code --sweep from:to:step} runs every rate in turn on the same pool and reports the first
+ * one past the saturation knee: throughput below 95% of the target, more than 1% failed
+ * operations or a corrected p99 above 5 times the one of the lowest rate. Works with any
+ * driver, by default against the {@link LoopbackDriver}. {@code --trace} records the pool
+ * into a file for {@link PoolTraceReplayer}.
+ */
+public class PoolLoadGenerator {
+    private static final String DEFAULT_URL = "jdbc:loopback:load?statementLatency=1ms&statementDistribution=lognormal";
+    private static final long START_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long SPIN_NANOS = 80_000L;
+    private static final double KNEE_THROUGHPUT_RATIO = 0.95d;
+    private static final double KNEE_ERROR_RATIO = 0.01d;
+    private static final double KNEE_LATENCY_FACTOR = 5d;
+
+    private final JdbcPool pool;
+    private final String sql;
+    private final int workers;
+
+    PoolLoadGenerator(JdbcPool pool, String sql, int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException(String.format("worker count %d must be positive", workers));
+        }
+        this.pool = pool;
+        this.sql = sql;
+        this.workers = workers;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        String url = options.getOrDefault("url", DEFAULT_URL);
+        int poolSize = Integer.parseInt(options.getOrDefault("pool", "10"));
+        long[] rates = rates(options);
+        long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "10")));
+        long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup", "2")));
+
+        Properties properties = new Properties();
+        if (options.containsKey("user")) {
+            properties.setProperty("user", options.get("user"));
+            properties.setProperty("password", options.getOrDefault("password", ""));
+        }
+        JdbcPoolBuilder builder = new JdbcPoolBuilder(properties);
+        builder.setUrl(url);
+        builder.setPoolName("PoolLoadGenerator");
+        if (options.containsKey("trace")) {
+            builder.setTraceFile(Paths.get(options.get("trace")));
+        }
+        builder.getEntityPoolBuilder()
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .defaultCheckoutTime(Long.parseLong(options.getOrDefault("checkout-timeout", "2000")));
+        JdbcPool pool = builder.build();
+        PoolLoadGenerator generator = new PoolLoadGenerator(pool, options.getOrDefault("sql", "SELECT 1"),
+                Integer.parseInt(options.getOrDefault("workers", "256")));
+
+        System.out.println("=== Open-loop load on " + url + " (pool " + poolSize + ", " + generator.workers + " workers) ===");
+        System.out.printf("%10s %10s %9s %9s %9s %9s %9s %9s %9s %8s%n", "target/s", "actual/s",
+                "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99", "wait p99", "errors", "");
+        Result baseline = null;
+        Result knee = null;
+        Result previous = null;
+        for (long rate : rates) {
+            if (warmup > 0L) {
+                generator.run(rate, warmup);
+            }
+            Result result = generator.run(rate, duration);
+            if (baseline == null) {
+                baseline = result;
+            }
+            boolean saturated = knee == null && result.isSaturated(baseline);
+            System.out.printf("%10d %10.0f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f %9d %8s%n", rate, result.throughput(),
+                    millis(result.corrected, 50d), millis(result.corrected, 99d), millis(result.corrected, 99.9d),
+                    result.corrected.getMax() / 1e6, millis(result.service, 99d), millis(result.checkout, 99d),
+                    result.errors, saturated ? "<- knee" : "");
+            if (saturated) {
+                knee = result;
+                System.out.println("saturation knee between " + (previous == null ? 0 : previous.rate) + " and " + rate + " ops/s");
+            }
+            previous = result;
+        }
+        if (knee == null && rates.length > 1) {
+            System.out.println("no saturation up to " + rates[rates.length - 1] + " ops/s");
+        }
+        System.out.println(pool.getMetrics().snapshot());
+        pool.close();
+    }
+
+    /**
+     * Runs {@code rate} operations per second for {@code durationNanos}, the n-th operation is
+     * due at {@code start + n / rate} and worker {@code w} runs the operations {@code w},
+     * {@code w + workers}, ... in order.
+     */
+    Result run(long rate, long durationNanos) throws InterruptedException {
+        if (rate <= 0L) {
+            throw new IllegalArgumentException(String.format("rate %d must be positive", rate));
+        }
+        Result result = new Result(rate);
+        double interval = 1e9d / rate;
+        long start = System.nanoTime() + START_DELAY_NANOS;
+        long end = start + durationNanos;
+        LongAdder errors = new LongAdder();
+        List<Thread> threads = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            final long first = w;
+            Thread thread = new Thread(() -> {
+                for (long i = first; ; i += workers) {
+                    long intended = start + (long) (i * interval);
+                    if (intended >= end) {
+                        return;
+                    }
+                    waitUntil(intended);
+                    long begin = System.nanoTime();
+                    if (!execute(result.checkoutLatencies)) {
+                        errors.increment();
+                    }
+                    long done = System.nanoTime();
+                    result.correctedLatencies.record(done - intended);
+                    result.serviceLatencies.record(done - begin);
+                }
+            }, "poolLoadGenerator-" + w);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        result.complete(System.nanoTime() - start, errors.sum());
+        return result;
+    }
+
+    private boolean execute(LatencyHistogram checkout) {
+        long begin = System.nanoTime();
+        try (Connection connection = pool.getConnection()) {
+            checkout.record(System.nanoTime() - begin);
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    resultSet.getObject(1);
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parks until shortly before the deadline and spins the rest, park alone overshoots by the
+     * timer slack, which would show up as latency of every operation.
+     */
+    static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > SPIN_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+        }
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static double millis(LatencyHistogram.Snapshot latencies, double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException(String.format("expected '--option value' at '%s'", args[i]));
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static long[] rates(Map<String, String> options) {
+        String sweep = options.get("sweep");
+        if (sweep == null) {
+            return new long[]{Long.parseLong(options.getOrDefault("rate", "1000"))};
+        }
+        String[] bounds = sweep.split(":");
+        if (bounds.length != 3) {
+            throw new IllegalArgumentException(String.format("sweep '%s' isn't from:to:step", sweep));
+        }
+        long from = Long.parseLong(bounds[0]);
+        long to = Long.parseLong(bounds[1]);
+        long step = Long.parseLong(bounds[2]);
+        if (from <= 0L || to < from || step <= 0L) {
+            throw new IllegalArgumentException(String.format("sweep '%s' needs 0 < from <= to and a positive step", sweep));
+        }
+        long[] rates = new long[(int) ((to - from) / step) + 1];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = from + i * step;
+        }
+        return rates;
+    }
+
+    static final class Result {
+        final long rate;
+        final LatencyHistogram correctedLatencies = new LatencyHistogram();
+        final LatencyHistogram serviceLatencies = new LatencyHistogram();
+        final LatencyHistogram checkoutLatencies = new LatencyHistogram();
+        LatencyHistogram.Snapshot corrected;
+        LatencyHistogram.Snapshot service;
+        LatencyHistogram.Snapshot checkout;
+        long elapsedNanos;
+        long errors;
+
+        private Result(long rate) {
+            this.rate = rate;
+        }
+
+        private void complete(long elapsedNanos, long errors) {
+            this.elapsedNanos = elapsedNanos;
+            this.errors = errors;
+            this.corrected = correctedLatencies.snapshot();
+            this.service = serviceLatencies.snapshot();
+            this.checkout = checkoutLatencies.snapshot();
+        }
+
+        /**
+         * @return completed operations per second, failed ones excluded
+         */
+        double throughput() {
+            return (corrected.getCount() - errors) / (elapsedNanos / 1e9d);
+        }
+
+        boolean isSaturated(Result baseline) {
+            return throughput() < KNEE_THROUGHPUT_RATIO * rate
+                    || errors > KNEE_ERROR_RATIO * corrected.getCount()
+                    || corrected.getValueAtPercentile(99d) > KNEE_LATENCY_FACTOR * baseline.corrected.getValueAtPercentile(99d);
+        }
+    }
+}
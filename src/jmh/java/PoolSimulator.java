@@ -0,0 +1,394 @@
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discrete-event simulation of the {@link EntityPool} checkout rules on a virtual clock, to
+ * size a pool for a traffic that can't be load tested: hours of requests run in seconds and
+ * the same seed gives the same result. The pool blocks real threads on its semaphore, so the
+ * simulator models its rules instead of running it:
+ * <ul>
+ *     <li>permits are taken in arrival order (the semaphore is fair): a request waits while
+ *     others wait, even if permits are free, and the head waits for all the permits it needs</li>
+ *     <li>a request outside {@link EntityPoolContext#isPrioritized()} needs {@code prioritySize}
+ *     free permits more than it takes, a prioritized one only its own</li>
+ *     <li>a request with a permit takes an idle entity, or creates one in the create latency</li>
+ *     <li>a request waiting longer than the checkout timeout fails</li>
+ *     <li>validation on release keeps the entity and its permit for the validate latency</li>
+ * </ul>
+ *
+ * <pre>
+ * PoolSimulator [--max-size 10,12,16] [--priority-size 0] [--initial-size max] [--checkout-timeout 2000]
+ *               [--create-latency 20] [--validate-latency 0]
+ *               (--rate 1000 [--hold 5] [--hold-distribution lognormal] [--hold-sigma 1] | --trace file)
+ *               [--traffic 1] [--priority-ratio 0] [--duration 3600] [--seed 0]
+ * </pre>
+ * Arrivals are poisson at {@code --rate} per second, or the arrivals and holds of a
+ * {@link PoolTrace}, repeated to fill the duration. {@code --traffic 3} multiplies the arrival
+ * rate by 3 with the same holds. Latencies are in ms, the duration in virtual seconds. Every
+ * combination of the max and priority sizes runs on the same arrivals and prints its wait
+ * percentiles, timeout rate, utilization (mean checked out entities / max size), mean open
+ * entities and peak queue length.
+ */
+public class PoolSimulator {
+    private static final int ARRIVAL = 0;
+    private static final int CREATED = 1;
+    private static final int RELEASE = 2;
+    private static final int TIMEOUT = 3;
+
+    private final int maxSize;
+    private final int prioritySize;
+    private final int initialSize;
+    private final long checkoutTimeout;
+    private final long createNanos;
+    private final long validateNanos;
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final ArrayDeque<Request> waiters = new ArrayDeque<>();
+    private final LatencyHistogram waits = new LatencyHistogram();
+    private long now;
+    private long sequence;
+    private int permits;
+    private int idle;
+    private int open;
+    private int checkedOut;
+    private long checkedOutArea;
+    private long openArea;
+    private long lastChange;
+    private long requests;
+    private long timeouts;
+    private int peakWaiters;
+
+    /**
+     * @param checkoutTimeout in ns, negative to wait forever like the pool
+     */
+    PoolSimulator(int maxSize, int prioritySize, int initialSize, long checkoutTimeout, long createNanos, long validateNanos) {
+        if (maxSize <= 0 || prioritySize < 0 || initialSize < 0 || initialSize > maxSize) {
+            throw new IllegalArgumentException(String.format("invalid pool sizes: max %d, priority %d, initial %d", maxSize, prioritySize, initialSize));
+        }
+        this.maxSize = maxSize;
+        this.prioritySize = prioritySize;
+        this.initialSize = initialSize;
+        this.checkoutTimeout = checkoutTimeout;
+        this.createNanos = createNanos;
+        this.validateNanos = validateNanos;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException(String.format("expected '--option value' at '%s'", args[i]));
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        int[] maxSizes = sizes(options.getOrDefault("max-size", "10"));
+        int[] prioritySizes = sizes(options.getOrDefault("priority-size", "0"));
+        long checkoutTimeout = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(options.getOrDefault("checkout-timeout", "2000")));
+        long createNanos = nanos(options.getOrDefault("create-latency", "20"));
+        long validateNanos = nanos(options.getOrDefault("validate-latency", "0"));
+        long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "3600")));
+        double traffic = Double.parseDouble(options.getOrDefault("traffic", "1"));
+        double priorityRatio = Double.parseDouble(options.getOrDefault("priority-ratio", "0"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "0"));
+        if (traffic <= 0d) {
+            throw new IllegalArgumentException(String.format("traffic factor %s must be positive", traffic));
+        }
+
+        Arrivals arrivals;
+        String source;
+        if (options.containsKey("trace")) {
+            PoolTrace trace = PoolTrace.read(Paths.get(options.get("trace")));
+            arrivals = new TraceArrivals(trace, traffic, priorityRatio, seed);
+            source = String.format("trace %s (%d requests over %.1f s)", options.get("trace"), trace.getRequests().size(), trace.getDuration() / 1e9);
+        } else {
+            double rate = Double.parseDouble(options.getOrDefault("rate", "1000")) * traffic;
+            long hold = nanos(options.getOrDefault("hold", "5"));
+            StandInJdbc.Distribution distribution = StandInJdbc.Distribution.valueOf(
+                    options.getOrDefault("hold-distribution", "lognormal").toUpperCase(Locale.ROOT));
+            double sigma = Double.parseDouble(options.getOrDefault("hold-sigma", "1"));
+            arrivals = new PoissonArrivals(rate, distribution, hold, sigma, priorityRatio, seed);
+            source = String.format("poisson %.0f/s, %s hold %.2f ms", rate, distribution.name().toLowerCase(Locale.ROOT), hold / 1e6);
+        }
+
+        System.out.printf("=== Simulation of %d s: %s, traffic x%s, create %.2f ms, validate %.2f ms, timeout %d ms ===%n",
+                TimeUnit.NANOSECONDS.toSeconds(duration), source, traffic, createNanos / 1e6, validateNanos / 1e6,
+                TimeUnit.NANOSECONDS.toMillis(checkoutTimeout));
+        System.out.printf("%5s %5s %10s %9s %9s %9s %9s %9s %7s %7s %7s%n", "max", "prio", "requests",
+                "p50 ms", "p99 ms", "p99.9 ms", "max ms", "timeouts", "util", "open", "queue");
+        for (int maxSize : maxSizes) {
+            for (int prioritySize : prioritySizes) {
+                int initialSize = Integer.parseInt(options.getOrDefault("initial-size", String.valueOf(maxSize)));
+                PoolSimulator simulator = new PoolSimulator(maxSize, prioritySize, Math.min(initialSize, maxSize),
+                        checkoutTimeout, createNanos, validateNanos);
+                long start = System.nanoTime();
+                simulator.run(arrivals.restart(), duration);
+                LatencyHistogram.Snapshot waits = simulator.waits.snapshot();
+                System.out.printf("%5d %5d %10d %9.2f %9.2f %9.2f %9.2f %8.3f%% %6.1f%% %7.1f %7d  (%d ms)%n",
+                        maxSize, prioritySize, simulator.requests, waits.getValueAtPercentile(50d) / 1e6,
+                        waits.getValueAtPercentile(99d) / 1e6, waits.getValueAtPercentile(99.9d) / 1e6, waits.getMax() / 1e6,
+                        100d * simulator.timeouts / Math.max(simulator.requests, 1L),
+                        100d * simulator.checkedOutArea / ((double) maxSize * duration), (double) simulator.openArea / duration,
+                        simulator.peakWaiters, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+    }
+
+    /**
+     * Runs the arrivals until {@code duration} ns of virtual time, the requests still checked
+     * out at the end are not waited for.
+     */
+    void run(Arrivals arrivals, long duration) {
+        permits = maxSize;
+        idle = initialSize;
+        open = initialSize;
+        Request first = arrivals.next();
+        schedule(first.arrival, ARRIVAL, first);
+        Event event;
+        while ((event = events.poll()) != null && event.time <= duration) {
+            advance(event.time);
+            switch (event.type) {
+                case ARRIVAL:
+                    Request request = event.request;
+                    requests++;
+                    waiters.add(request);
+                    grantWaiters();
+                    if (!request.granted) {
+                        peakWaiters = Math.max(peakWaiters, waiters.size());
+                        if (checkoutTimeout >= 0L) {
+                            schedule(request.arrival + checkoutTimeout, TIMEOUT, request);
+                        }
+                    }
+                    Request next = arrivals.next();
+                    if (next != null) {
+                        schedule(next.arrival, ARRIVAL, next);
+                    }
+                    break;
+                case CREATED:
+                    handOut(event.request);
+                    break;
+                case RELEASE:
+                    checkedOut--;
+                    idle++;
+                    permits++;
+                    grantWaiters();
+                    break;
+                case TIMEOUT:
+                    if (!event.request.granted && !event.request.timedOut) {
+                        event.request.timedOut = true;
+                        timeouts++;
+                        waits.record(now - event.request.arrival);
+                        //the head may have been blocking requests needing fewer permits
+                        grantWaiters();
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException(String.format("unknown event type %d", event.type));
+            }
+        }
+        advance(duration);
+    }
+
+    private boolean acquire(Request request) {
+        int reserved = request.prioritized ? 0 : prioritySize;
+        if (permits < reserved + 1) {
+            return false;
+        }
+        permits--;
+        return true;
+    }
+
+    private void checkout(Request request) {
+        request.granted = true;
+        checkedOut++;
+        if (idle > 0) {
+            idle--;
+            handOut(request);
+        } else {
+            open++;
+            schedule(now + createNanos, CREATED, request);
+        }
+    }
+
+    private void handOut(Request request) {
+        waits.record(now - request.arrival);
+        schedule(now + request.hold + validateNanos, RELEASE, request);
+    }
+
+    private void grantWaiters() {
+        while (!waiters.isEmpty()) {
+            Request head = waiters.peek();
+            if (head.timedOut) {
+                waiters.poll();
+            } else if (acquire(head)) {
+                waiters.poll();
+                checkout(head);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void advance(long time) {
+        long elapsed = time - lastChange;
+        checkedOutArea += checkedOut * elapsed;
+        openArea += open * elapsed;
+        lastChange = time;
+        now = time;
+    }
+
+    private void schedule(long time, int type, Request request) {
+        events.add(new Event(time, sequence++, type, request));
+    }
+
+    private static int[] sizes(String list) {
+        String[] values = list.split(",");
+        int[] sizes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            sizes[i] = Integer.parseInt(values[i].trim());
+        }
+        return sizes;
+    }
+
+    private static long nanos(String millis) {
+        return (long) (Double.parseDouble(millis) * 1e6);
+    }
+
+    private static final class Event implements Comparable<Event> {
+        final long time;
+        final long sequence;
+        final int type;
+        final Request request;
+
+        Event(long time, long sequence, int type, Request request) {
+            this.time = time;
+            this.sequence = sequence;
+            this.type = type;
+            this.request = request;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    static final class Request {
+        final long arrival;
+        final long hold;
+        final boolean prioritized;
+        boolean granted;
+        boolean timedOut;
+
+        Request(long arrival, long hold, boolean prioritized) {
+            this.arrival = arrival;
+            this.hold = hold;
+            this.prioritized = prioritized;
+        }
+    }
+
+    /**
+     * Requests in arrival order, {@link #restart()} replays the same sequence.
+     */
+    abstract static class Arrivals {
+        /**
+         * @return the next request, {@code null} when there are no more
+         */
+        abstract Request next();
+
+        abstract Arrivals restart();
+    }
+
+    static final class PoissonArrivals extends Arrivals {
+        private final double meanInterval;
+        private final StandInJdbc.Distribution holdDistribution;
+        private final long hold;
+        private final double sigma;
+        private final double priorityRatio;
+        private final long seed;
+        private final SplittableRandom random;
+        private long time;
+
+        PoissonArrivals(double rate, StandInJdbc.Distribution holdDistribution, long hold, double sigma, double priorityRatio, long seed) {
+            if (rate <= 0d) {
+                throw new IllegalArgumentException(String.format("arrival rate %s must be positive", rate));
+            }
+            this.meanInterval = 1e9d / rate;
+            this.holdDistribution = holdDistribution;
+            this.hold = hold;
+            this.sigma = sigma;
+            this.priorityRatio = priorityRatio;
+            this.seed = seed;
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        Request next() {
+            time += (long) (-meanInterval * Math.log(1d - random.nextDouble()));
+            return new Request(time, holdDistribution.sample(hold, sigma, random), random.nextDouble() < priorityRatio);
+        }
+
+        @Override
+        Arrivals restart() {
+            return new PoissonArrivals(1e9d / meanInterval, holdDistribution, hold, sigma, priorityRatio, seed);
+        }
+    }
+
+    /**
+     * The requests of a trace with the arrival gaps divided by the traffic factor, repeated
+     * one after the other.
+     */
+    static final class TraceArrivals extends Arrivals {
+        private final PoolTrace trace;
+        private final List<PoolTrace.Request> requests;
+        private final double traffic;
+        private final double priorityRatio;
+        private final long seed;
+        private final long meanHold;
+        private final long period;
+        private final SplittableRandom random;
+        private int index;
+        private long offset;
+
+        TraceArrivals(PoolTrace trace, double traffic, double priorityRatio, long seed) {
+            if (trace.getRequests().isEmpty()) {
+                throw new IllegalArgumentException("the trace has no requests");
+            }
+            this.trace = trace;
+            this.requests = trace.getRequests();
+            this.traffic = traffic;
+            this.priorityRatio = priorityRatio;
+            this.seed = seed;
+            this.meanHold = trace.getMeanHold();
+            long first = requests.get(0).getArrival();
+            long last = requests.get(requests.size() - 1).getArrival();
+            //a mean gap after the last arrival before the trace repeats
+            this.period = last - first + Math.max((last - first) / requests.size(), 1L);
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        Request next() {
+            if (index == requests.size()) {
+                index = 0;
+                offset += period;
+            }
+            PoolTrace.Request request = requests.get(index++);
+            long arrival = (long) ((offset + request.getArrival() - requests.get(0).getArrival()) / traffic);
+            long hold = request.isTimedOut() ? meanHold : request.getHold();
+            return new Request(arrival, hold, random.nextDouble() < priorityRatio);
+        }
+
+        @Override
+        Arrivals restart() {
+            return new TraceArrivals(trace, traffic, priorityRatio, seed);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+import api.EntityChecker;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays a {@link PoolTrace} against an {@link EntityPool} of another configuration and
+ * compares the wait times with the recorded ones. Every request arrives at its recorded time
+ * (divided by {@code --speed}) whatever happened to the previous ones and holds its entity
+ * for the recorded time; requests that timed out in the trace hold for the mean hold time.
+ * The entities are plain objects whose creation and validation take the given latencies, so
+ * only the pool configuration differs from production.
+ *
+ * <pre>
+ * PoolTraceReplayer --trace pool.trace [--max-size 10] [--initial-size 10] [--checkout-timeout 2000]
+ *                   [--create-latency ms] [--validate-latency ms] [--validate-on-release false]
+ *                   [--refresh-period ms] [--speed 1] [--workers n]
+ * </pre>
+ * The create latency defaults to the mean recorded one. {@code --validate-on-release} checks
+ * every returned entity, {@code --refresh-period} validates the idle ones periodically like
+ * the idle connection check. Waits are measured from the due time of a request, so a replay
+ * falling behind shows as wait too.
+ */
+public class PoolTraceReplayer {
+    private final PoolTrace trace;
+    private final EntityPool<Object> pool;
+    private final boolean validateOnRelease;
+    private final double speed;
+    private final int workers;
+
+    PoolTraceReplayer(PoolTrace trace, EntityPool<Object> pool, boolean validateOnRelease, double speed, int workers) {
+        if (speed <= 0d) {
+            throw new IllegalArgumentException(String.format("replay speed %s must be positive", speed));
+        }
+        if (workers <= 0) {
+            throw new IllegalArgumentException(String.format("worker count %d must be positive", workers));
+        }
+        this.trace = trace;
+        this.pool = pool;
+        this.validateOnRelease = validateOnRelease;
+        this.speed = speed;
+        this.workers = workers;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException(String.format("expected '--option value' at '%s'", args[i]));
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        if (!options.containsKey("trace")) {
+            throw new IllegalArgumentException("the trace file is missing, use --trace <file>");
+        }
+        Path file = Paths.get(options.get("trace"));
+        PoolTrace trace = PoolTrace.read(file);
+        int maxSize = Integer.parseInt(options.getOrDefault("max-size", "10"));
+        int initialSize = Integer.parseInt(options.getOrDefault("initial-size", String.valueOf(maxSize)));
+        long createNanos = nanos(options.get("create-latency"), mean(trace.getCreationTimes()));
+        long validateNanos = nanos(options.get("validate-latency"), 0L);
+        long refreshPeriod = Long.parseLong(options.getOrDefault("refresh-period", "0"));
+        boolean validateOnRelease = Boolean.parseBoolean(options.getOrDefault("validate-on-release", "false"));
+        double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+
+        EntityChecker<Object> checker = entity -> {
+            StandInJdbc.pause(validateNanos);
+            return true;
+        };
+        EntityPool<Object> pool = EntityPool.<Object>builder()
+                .factory(() -> {
+                    StandInJdbc.pause(createNanos);
+                    return new Object();
+                })
+                .addCheckers(checker)
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .defaultCheckoutTime(Long.parseLong(options.getOrDefault("checkout-timeout", "2000")))
+                .build();
+        ScheduledExecutorService refresher = null;
+        if (refreshPeriod > 0L) {
+            refresher = Executors.newSingleThreadScheduledExecutor();
+            refresher.scheduleWithFixedDelay(pool::refresh, refreshPeriod, refreshPeriod, TimeUnit.MILLISECONDS);
+        }
+        int workers = options.containsKey("workers") ? Integer.parseInt(options.get("workers"))
+                : 2 * peakConcurrency(trace) + maxSize;
+
+        System.out.printf("=== Replay of %s: %d requests over %.1f s (%d unmatched), mean hold %.2f ms, create %.2f ms ===%n",
+                file, trace.getRequests().size(), trace.getDuration() / 1e9, trace.getUnmatched(),
+                trace.getMeanHold() / 1e6, createNanos / 1e6);
+        System.out.printf("max size %d, initial size %d, validate %.2f ms%s%s, speed x%s, %d workers%n", maxSize, initialSize,
+                validateNanos / 1e6, validateOnRelease ? " on release" : "",
+                refreshPeriod > 0L ? ", refresh every " + refreshPeriod + " ms" : "", speed, workers);
+        LatencyHistogram recorded = new LatencyHistogram();
+        long recordedTimeouts = 0L;
+        for (PoolTrace.Request request : trace.getRequests()) {
+            recorded.record(request.getWait());
+            if (request.isTimedOut()) {
+                recordedTimeouts++;
+            }
+        }
+        Result replayed = new PoolTraceReplayer(trace, pool, validateOnRelease, speed, workers).replay();
+        System.out.printf("%-10s %9s %9s %9s %9s %9s %9s%n", "", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "timeouts");
+        print("recorded", recorded.snapshot(), recordedTimeouts);
+        print("replayed", replayed.waits, replayed.timeouts);
+        System.out.println(pool.getMetrics().snapshot());
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        pool.close();
+    }
+
+    /**
+     * Replays the requests in arrival order, worker {@code w} taking the next due request once
+     * it returned its entity.
+     */
+    Result replay() throws InterruptedException {
+        List<PoolTrace.Request> requests = trace.getRequests();
+        if (requests.isEmpty()) {
+            return new Result(new LatencyHistogram().snapshot(), 0L);
+        }
+        long meanHold = trace.getMeanHold();
+        long firstArrival = requests.get(0).getArrival();
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+        AtomicInteger next = new AtomicInteger();
+        LatencyHistogram waits = new LatencyHistogram();
+        LongAdder timeouts = new LongAdder();
+        List<Thread> threads = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            Thread thread = new Thread(() -> {
+                for (int i = next.getAndIncrement(); i < requests.size(); i = next.getAndIncrement()) {
+                    PoolTrace.Request request = requests.get(i);
+                    long due = start + (long) ((request.getArrival() - firstArrival) / speed);
+                    PoolLoadGenerator.waitUntil(due);
+                    Object entity;
+                    try {
+                        entity = pool.getEntity();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    waits.record(System.nanoTime() - due);
+                    if (entity == null) {
+                        timeouts.increment();
+                        continue;
+                    }
+                    StandInJdbc.pause((long) ((request.isTimedOut() ? meanHold : request.getHold()) / speed));
+                    pool.release(entity, validateOnRelease);
+                }
+            }, "poolTraceReplayer-" + w);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new Result(waits.snapshot(), timeouts.sum());
+    }
+
+    /**
+     * @return the most requests holding or waiting for an entity at the same time in the trace
+     */
+    static int peakConcurrency(PoolTrace trace) {
+        List<PoolTrace.Request> requests = trace.getRequests();
+        long[] starts = new long[requests.size()];
+        long[] ends = new long[requests.size()];
+        for (int i = 0; i < starts.length; i++) {
+            PoolTrace.Request request = requests.get(i);
+            starts[i] = request.getArrival();
+            ends[i] = request.getArrival() + request.getWait() + request.getHold();
+        }
+        Arrays.sort(ends);
+        int peak = 0;
+        int current = 0;
+        for (int i = 0, j = 0; i < starts.length; i++) {
+            while (j < ends.length && ends[j] <= starts[i]) {
+                j++;
+                current--;
+            }
+            peak = Math.max(peak, ++current);
+        }
+        return peak;
+    }
+
+    private static void print(String name, LatencyHistogram.Snapshot waits, long timeouts) {
+        System.out.printf("%-10s %9.2f %9.2f %9.2f %9.2f %9.2f %9d%n", name, waits.getValueAtPercentile(50d) / 1e6,
+                waits.getValueAtPercentile(90d) / 1e6, waits.getValueAtPercentile(99d) / 1e6,
+                waits.getValueAtPercentile(99.9d) / 1e6, waits.getMax() / 1e6, timeouts);
+    }
+
+    /**
+     * @param millis a latency in ms, decimals allowed
+     */
+    private static long nanos(String millis, long defaultNanos) {
+        return millis == null ? defaultNanos : (long) (Double.parseDouble(millis) * 1e6);
+    }
+
+    private static long mean(long[] values) {
+        long sum = 0L;
+        for (long value : values) {
+            sum += value;
+        }
+        return values.length == 0 ? 0L : sum / values.length;
+    }
+
+    static final class Result {
+        final LatencyHistogram.Snapshot waits;
+        final long timeouts;
+
+        Result(LatencyHistogram.Snapshot waits, long timeouts) {
+            this.waits = waits;
+            this.timeouts = timeouts;
+        }
+    }
+}
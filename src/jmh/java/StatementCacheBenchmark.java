@@ -0,0 +1,83 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cached and uncached {@code prepareCall} against {@link StandInJdbc}, so no database is
+ * needed. The stand-in spins for {@code prepareNanos} on each prepare, which is the
+ * round-trip the statement cache saves; the {@code distinctCalls} fit in the cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementCacheBenchmark {
+    @Param({"200"})
+    private int distinctCalls;
+    @Param({"20000"})
+    private long prepareNanos;
+
+    private String[] calls;
+    private StatementCacheConnectionFactory factory;
+    private Connection cached;
+    private Connection uncached;
+    private int next;
+
+    @Setup
+    public void setUp() throws SQLException {
+        calls = new String[distinctCalls];
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = "{? = call account_balance_" + i + "(?)}";
+        }
+        factory = new StatementCacheConnectionFactory(60000, 600000);
+        cached = factory.getConnection(StandInJdbc.connection(prepareNanos));
+        uncached = StandInJdbc.connection(prepareNanos);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        if (factory.getCachedStatementsCount() != distinctCalls) {
+            throw new IllegalStateException(String.format("expected %d cached statements, found %d",
+                    distinctCalls, factory.getCachedStatementsCount()));
+        }
+        cached.close();
+        uncached.close();
+    }
+
+    @Benchmark
+    public boolean cached() throws SQLException {
+        return execute(cached);
+    }
+
+    @Benchmark
+    public boolean uncached() throws SQLException {
+        return execute(uncached);
+    }
+
+    private boolean execute(Connection connection) throws SQLException {
+        int i = next;
+        next = i + 1 == calls.length ? 0 : i + 1;
+        try (CallableStatement statement = connection.prepareCall(calls[i])) {
+            statement.registerOutParameter(1, Types.NUMERIC);
+            statement.setInt(2, i);
+            return statement.execute();
+        }
+    }
+}
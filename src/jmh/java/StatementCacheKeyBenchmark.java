@@ -0,0 +1,104 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statement cache lookup cost for a 2 KB SQL string. Run with {@code -prof gc}
+ * to see the allocation rate: the composite key allocates on every lookup,
+ * the interned {@link StatementCacheKey} doesn't.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementCacheKeyBenchmark {
+    private static final int SQL_LENGTH = 2048;
+
+    private String sql;
+    /**
+     * equal to {@code sql}, but another instance, as built by dynamic SQL
+     */
+    private String sqlCopy;
+    private final Map<Object, Object> compositeKeyCache = new HashMap<>();
+    private final Map<Object, Object> internedKeyCache = new HashMap<>();
+    private StatementCacheKey.Interner interner;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("SELECT ");
+        for (int i = 0; builder.length() < SQL_LENGTH - 64; i++) {
+            builder.append("t.column_").append(i).append(", ");
+        }
+        builder.append("t.id FROM some_table t WHERE t.id = ?");
+        sql = builder.toString().intern();
+        sqlCopy = new String(sql.toCharArray());
+        interner = new StatementCacheKey.Interner(256);
+        compositeKeyCache.put(new CompositeKey(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, 0), Boolean.TRUE);
+        internedKeyCache.put(interner.intern(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, 0), Boolean.TRUE);
+    }
+
+    @Benchmark
+    public Object compositeKey() {
+        return compositeKeyCache.get(new CompositeKey(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, 0));
+    }
+
+    @Benchmark
+    public Object internedKey() {
+        return internedKeyCache.get(interner.intern(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, 0));
+    }
+
+    /**
+     * the cached key was built from another SQL instance, so the lookup compares the SQL text once
+     */
+    @Benchmark
+    public Object internedKeyOtherSqlInstance() {
+        return internedKeyCache.get(interner.intern(sqlCopy, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, 0));
+    }
+
+    /**
+     * composite key as used by the statement cache before {@link StatementCacheKey}
+     */
+    private static final class CompositeKey {
+        private final String sql;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+        private final int resultSetHoldability;
+
+        private CompositeKey(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.resultSetHoldability = resultSetHoldability;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CompositeKey)) {
+                return false;
+            }
+            CompositeKey key = (CompositeKey) o;
+            return resultSetType == key.resultSetType && resultSetConcurrency == key.resultSetConcurrency
+                    && resultSetHoldability == key.resultSetHoldability && sql.equals(key.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+        }
+    }
+}
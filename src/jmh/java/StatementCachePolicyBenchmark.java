@@ -0,0 +1,177 @@
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trace-driven comparison of the statement cache policies. A trace mixes a hot OLTP working
+ * set (skewed, zipf-like) with bursts of one-off SQL such as reports with inlined literals;
+ * every invocation replays the next access of the trace against the policy the same way
+ * {@link StatementCacheConnection} drives it. The score is the cost of an access, the
+ * {@code hits} and {@code misses} counters give the hit rate of the policy.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementCachePolicyBenchmark {
+    private static final int HOT_STATEMENTS = 200;
+    private static final int TRACE_LENGTH = 2_000_000;
+    private static final int SCAN_BURST = 500;
+    private static final double ZIPF_EXPONENT = 0.9d;
+
+    @Param({"lru", "w-tinylfu"})
+    private String policy;
+    @Param({"64", "128", "256"})
+    private int cacheSize;
+    @Param({"0", "0.25", "0.5", "0.75"})
+    private double scanRatio;
+
+    private String[] trace;
+    private StatementCachePolicy cachePolicy;
+    private final Map<Object, CachedStatement> idle = new HashMap<>();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        trace = trace(scanRatio, 42L);
+        switch (policy) {
+            case "lru":
+                cachePolicy = StatementCachePolicy.lru().create(cacheSize);
+                break;
+            case "w-tinylfu":
+                cachePolicy = StatementCachePolicy.windowTinyLfu().create(cacheSize);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("unknown statement cache policy '%s'", policy));
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            hits = 0L;
+            misses = 0L;
+        }
+    }
+
+    @Benchmark
+    public CachedStatement access(Counters counters) {
+        String sql = trace[next];
+        next = next + 1 == trace.length ? 0 : next + 1;
+        cachePolicy.recordAccess(sql);
+        CachedStatement statement = idle.get(sql);
+        if (statement != null) {
+            counters.hits++;
+            cachePolicy.onTaken(statement);
+        } else {
+            counters.misses++;
+            statement = new TraceStatement(sql);
+            idle.put(sql, statement);
+        }
+        CachedStatement evicted = cachePolicy.onIdle(statement);
+        if (evicted != null) {
+            idle.remove(evicted.getKey());
+        }
+        return evicted;
+    }
+
+    /**
+     * Builds a trace where {@code scanRatio} of the accesses are one-off statements
+     * issued in bursts, the rest is drawn from the hot statements with zipf-like skew.
+     */
+    static String[] trace(double scanRatio, long seed) {
+        Random random = new Random(seed);
+        double[] cumulative = new double[HOT_STATEMENTS];
+        double total = 0;
+        for (int i = 0; i < HOT_STATEMENTS; i++) {
+            total += 1d / Math.pow(i + 1, ZIPF_EXPONENT);
+            cumulative[i] = total;
+        }
+        // probability to start a burst, so that bursts make up scanRatio of the accesses
+        double burstProbability = scanRatio / (SCAN_BURST * (1 - scanRatio) + scanRatio);
+        String[] trace = new String[TRACE_LENGTH];
+        int oneOff = 0;
+        int i = 0;
+        while (i < TRACE_LENGTH) {
+            if (random.nextDouble() < burstProbability) {
+                for (int j = 0; j < SCAN_BURST && i < TRACE_LENGTH; j++) {
+                    trace[i++] = "SELECT * FROM report WHERE id = " + oneOff++;
+                }
+                continue;
+            }
+            double r = random.nextDouble() * total;
+            int index = 0;
+            while (cumulative[index] < r) {
+                index++;
+            }
+            trace[i++] = "SELECT * FROM account WHERE id = ? /* " + index + " */";
+        }
+        return trace;
+    }
+
+    private static final class TraceStatement implements CachedStatement {
+        private final Object key;
+
+        private TraceStatement(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public long getWeight() {
+            return 1;
+        }
+
+        @Override
+        public void setLastTimeUsed(long lastTimeUsed) {
+        }
+
+        @Override
+        public void setOpened() {
+        }
+
+        @Override
+        public long getUseCount() {
+            return 0;
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void release() {
+        }
+
+        @Override
+        public long getLastTimeUsed() {
+            return 0;
+        }
+    }
+}
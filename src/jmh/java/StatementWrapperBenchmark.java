@@ -0,0 +1,107 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of the error tracking wrapper around the statements handed
+ * out by {@link PoolConnectionImpl}, for a bind-bind-execute sequence against a
+ * statement that does nothing. Run with {@code -prof gc}: the dynamic proxy
+ * used before boxes the arguments into an array on every call, the concrete
+ * {@link ErrorTrackingPreparedStatement} doesn't allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementWrapperBenchmark {
+    private PreparedStatement direct;
+    private PreparedStatement proxy;
+    private PreparedStatement concrete;
+    private long id;
+
+    @Setup
+    public void setUp() {
+        direct = new NoOpStatement();
+        proxy = proxy(new NoOpStatement());
+        PoolConnectionImpl connection = new PoolConnectionImpl(() -> null, StandInJdbc.connection(0L), false);
+        concrete = new ErrorTrackingPreparedStatement(new NoOpStatement(), connection);
+    }
+
+    @Benchmark
+    public int direct() throws SQLException {
+        return execute(direct);
+    }
+
+    @Benchmark
+    public int proxy() throws SQLException {
+        return execute(proxy);
+    }
+
+    @Benchmark
+    public int concrete() throws SQLException {
+        return execute(concrete);
+    }
+
+    private int execute(PreparedStatement statement) throws SQLException {
+        statement.setLong(1, id++);
+        statement.setString(2, "name");
+        return statement.executeUpdate();
+    }
+
+    /**
+     * the wrapper {@link PoolConnectionImpl} used before the concrete ones
+     */
+    private static PreparedStatement proxy(final PreparedStatement statement) {
+        final boolean[] errorOccurred = new boolean[1];
+        return (PreparedStatement) Proxy.newProxyInstance(StatementWrapperBenchmark.class.getClassLoader(),
+                new Class[]{PreparedStatement.class}, (p, method, args) -> {
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException e) {
+                        Throwable target = e.getTargetException();
+                        if (target instanceof SQLException)
+                            errorOccurred[0] = true;
+                        throw (target != null ? target : e);
+                    }
+                });
+    }
+
+    private static final class NoOpStatement extends DelegatingPreparedStatementAdapter {
+        private long lastId;
+        private String lastName;
+
+        private NoOpStatement() {
+            super(null);
+        }
+
+        @Override
+        public void setLong(int parameterIndex, long x) {
+            lastId = x;
+        }
+
+        @Override
+        public void setString(int parameterIndex, String x) {
+            lastName = x;
+        }
+
+        @Override
+        public int executeUpdate() {
+            return lastName == null ? 0 : (int) lastId & 1;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import api.ConnectionMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-call overhead of the connection thread ownership check
+ * ({@code checkConnectionThreadOwnerShip}) on a connection that does nothing:
+ * disabled, the read/write lock used before, and the volatile owner read of
+ * {@link ThreadOwnedPoolConnection}. Run with {@code -t 8} to see the lock
+ * degrade when many threads call their connections concurrently.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThreadOwnershipBenchmark {
+    private PoolConnection disabled;
+    private PoolConnection readWriteLock;
+    private PoolConnection volatileOwner;
+
+    @Setup
+    public void setUp() {
+        disabled = new PoolConnectionDelegate(new NoOpConnection());
+        readWriteLock = new ReadWriteLockOwnedConnection(new NoOpConnection());
+        volatileOwner = new ThreadOwnedPoolConnection(new NoOpConnection(), false);
+        readWriteLock.grab();
+        volatileOwner.grab();
+    }
+
+    @Benchmark
+    public boolean disabled() throws SQLException {
+        return disabled.getAutoCommit();
+    }
+
+    @Benchmark
+    public boolean readWriteLock() throws SQLException {
+        return readWriteLock.getAutoCommit();
+    }
+
+    @Benchmark
+    public boolean volatileOwner() throws SQLException {
+        return volatileOwner.getAutoCommit();
+    }
+
+    /**
+     * the ownership check of {@link ThreadOwnedPoolConnection} before the generation counter
+     */
+    private static final class ReadWriteLockOwnedConnection extends PoolConnectionDelegate {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile Thread owner;
+
+        private ReadWriteLockOwnedConnection(PoolConnection connection) {
+            super(connection);
+        }
+
+        @Override
+        protected void doActionBeforeEachMethod(ConnectionMethod method) {
+            lock.readLock().lock();
+            try {
+                if (method != ConnectionMethod.IS_VALID && owner != Thread.currentThread()) {
+                    throw new IllegalStateException("not the owner");
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void grab() {
+            lock.writeLock().lock();
+            try {
+                owner = Thread.currentThread();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static final class NoOpConnection extends PoolConnectionDelegate {
+        private NoOpConnection() {
+            super(null);
+        }
+
+        @Override
+        public boolean getAutoCommit() {
+            return true;
+        }
+
+        @Override
+        public void grab() {
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Push-based application health for the pool. Each source of trouble (a health
+ * check, an error counter...) gets its own {@link Signal} and raises it when the
+ * database may have broken connections, e.g. during a failover, and clears it
+ * when that is over.
+ *
+ * <p>The state is one volatile epoch: it becomes odd when the first signal is
+ * raised and even again when the last one is cleared. A returned connection is
+ * validated if the epoch is odd, or if it moved since the connection was handed
+ * out, so an error raised and cleared during a checkout isn't missed either.
+ */
+public final class ApplicationStatus {
+    private volatile long epoch;
+    private int raisedSignals;
+
+    public Signal newSignal() {
+        return new Signal();
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public boolean isErrorRaised() {
+        return (epoch & 1L) != 0L;
+    }
+
+    /**
+     * @param epoch the epoch seen when the connection was handed out
+     */
+    boolean validationNeeded(long epoch) {
+        long current = this.epoch;
+        return (current & 1L) != 0L || current != epoch;
+    }
+
+    private synchronized void raised() {
+        if (raisedSignals++ == 0) {
+            epoch = epoch + 1L;
+        }
+    }
+
+    private synchronized void cleared() {
+        if (--raisedSignals == 0) {
+            epoch = epoch + 1L;
+        }
+    }
+
+    public final class Signal {
+        private boolean raised;
+
+        private Signal() {
+        }
+
+        public void raiseError() {
+            synchronized (ApplicationStatus.this) {
+                if (!raised) {
+                    raised = true;
+                    raised();
+                }
+            }
+        }
+
+        public void clearError() {
+            synchronized (ApplicationStatus.this) {
+                if (raised) {
+                    raised = false;
+                    cleared();
+                }
+            }
+        }
+
+        public boolean isRaised() {
+            synchronized (ApplicationStatus.this) {
+                return raised;
+            }
+        }
+    }
+}
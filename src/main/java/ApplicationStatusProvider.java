@@ -1,3 +1,9 @@
+/**
+ * Polled source of application health: returned connections are validated
+ * while it reports an error. Providers are asked on a background thread (see
+ * {@link JdbcPool#setApplicationStatusProviders}); a source that knows when its
+ * state changes should raise an {@link ApplicationStatus.Signal} instead.
+ */
 public interface ApplicationStatusProvider {
     boolean errorOccurred();
 }
@@ -1,2 +1,175 @@
-public class CachedCallableStatement {
+import java.sql.CallableStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CachedCallableStatement extends DelegatingCallableStatementAdapter implements CachedStatement {
+
+    private final StatementCacheConnection connection;
+    private final Object key;
+    private final long weight;
+    private long lastTimeUsed;
+    private long useCount;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final StatementSettings settings = new StatementSettings();
+    private boolean batched;
+
+    public CachedCallableStatement(CallableStatement statement, StatementCacheConnection connection, Object key, long weight) {
+        super(statement);
+        this.connection = connection;
+        this.key = key;
+        this.weight = weight;
+    }
+
+    /**
+     * Returns the statement to the statement cache of the owning connection
+     * instead of closing the underlying statement.
+     */
+    @Override
+    public void close() throws SQLException {
+        if (closed.compareAndSet(false, true)) {
+            connection.returnToCache(this);
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed.get() || super.isClosed();
+    }
+
+    /**
+     * JDBC has no call to unregister OUT parameters. {@code clearParameters()} drops the
+     * IN values and the OUT values of the last execution, the registrations are overwritten
+     * by the next user since the same call requires the same OUT parameters. As closing the
+     * statement would, the current result set is closed and the batch and warnings are
+     * cleared; the settings changed by the borrower are restored, see {@link StatementSettings}.
+     */
+    @Override
+    public void reset() throws SQLException {
+        CallableStatement statement = getWrappedStatement();
+        ResultSet resultSet = statement.getResultSet();
+        if (resultSet != null) {
+            resultSet.close();
+        }
+        statement.clearParameters();
+        if (batched) {
+            statement.clearBatch();
+            batched = false;
+        }
+        statement.clearWarnings();
+        settings.restore(statement);
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        doActionBeforeEachMethod();
+        settings.beforeChange(getWrappedStatement());
+        super.setMaxRows(max);
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        doActionBeforeEachMethod();
+        settings.beforeChange(getWrappedStatement());
+        super.setLargeMaxRows(max);
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        doActionBeforeEachMethod();
+        settings.beforeChange(getWrappedStatement());
+        super.setFetchSize(rows);
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        doActionBeforeEachMethod();
+        settings.beforeChange(getWrappedStatement());
+        super.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        doActionBeforeEachMethod();
+        settings.beforeChange(getWrappedStatement());
+        super.setFetchDirection(direction);
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        doActionBeforeEachMethod();
+        settings.beforeChange(getWrappedStatement());
+        super.setPoolable(poolable);
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        super.setEscapeProcessing(enable);
+        settings.escapeProcessingChanged();
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        super.setCursorName(name);
+        settings.cursorNamed();
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        super.addBatch();
+        batched = true;
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        super.addBatch(sql);
+        batched = true;
+    }
+
+    /**
+     * Fails the calls of a borrower which already closed the statement, it may be idle in the
+     * cache or used by another borrower.
+     */
+    @Override
+    protected void doActionBeforeEachMethod() throws SQLException {
+        if (closed.get()) {
+            throw new StatementClosedException();
+        }
+    }
+
+    @Override
+    public void release() throws SQLException {
+        getWrappedStatement().close();
+    }
+
+    @Override
+    public long getLastTimeUsed() {
+        return lastTimeUsed;
+    }
+
+    @Override
+    public void setLastTimeUsed(long lastTimeUsed) {
+        this.lastTimeUsed = lastTimeUsed;
+    }
+
+    @Override
+    public void setOpened() {
+        closed.set(false);
+        useCount++;
+    }
+
+    @Override
+    public long getUseCount() {
+        return useCount;
+    }
+
+    @Override
+    public Object getKey() {
+        return key;
+    }
+
+    @Override
+    public long getWeight() {
+        return weight;
+    }
 }
@@ -0,0 +1,32 @@
+import api.ReleasableStatement;
+
+import java.sql.SQLException;
+
+/**
+ * Statement kept by {@link StatementCacheConnection} between usages.
+ */
+interface CachedStatement extends ReleasableStatement {
+    Object getKey();
+
+    /**
+     * estimated memory pinned by the statement, see {@link StatementWeigher}
+     */
+    long getWeight();
+
+    void setLastTimeUsed(long lastTimeUsed);
+
+    /**
+     * Marks the statement as handed out to the application, which counts as a use.
+     */
+    void setOpened();
+
+    /**
+     * @return how many times the statement was handed out since it was prepared
+     */
+    long getUseCount();
+
+    /**
+     * Resets the state left by the previous user before the statement goes back to the cache.
+     */
+    void reset() throws SQLException;
+}
@@ -0,0 +1,74 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs the session initialization SQL ({@code SET application_name ...}, {@code SET search_path ...})
+ * on a new connection before it enters the pool, in one round trip: as a JDBC batch if the driver
+ * supports batch updates, or as a single multi-statement string for drivers which send batches
+ * statement by statement but accept several statements in one execute. Its time is reported to the
+ * pool apart from the connect time, see {@link EntityPoolContext#recordInitialization(long)}.
+ *
+ * <p>The session state tracked by {@link PoolConnectionImpl} is read after the initialization,
+ * so connections are reset to the initialized state when they are returned.
+ */
+final class ConnectionInitializer {
+    private static final Logger log = LoggerFactory.getLogger(ConnectionInitializer.class);
+
+    private final List<String> sql;
+    private final boolean multiStatement;
+
+    ConnectionInitializer(List<String> sql, boolean multiStatement) {
+        if (sql.isEmpty()) {
+            throw new IllegalArgumentException("connection init sql can't be empty");
+        }
+        this.sql = Collections.unmodifiableList(new ArrayList<>(sql));
+        this.multiStatement = multiStatement;
+    }
+
+    /**
+     * @throws IllegalStateException if an init statement fails, the connection is closed then
+     */
+    Connection initialize(Connection connection) {
+        long start = System.nanoTime();
+        try {
+            execute(connection);
+        } catch (SQLException e) {
+            try {
+                connection.close();
+            } catch (SQLException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw new IllegalStateException(String.format("connection init sql %s failed", sql), e);
+        } finally {
+            EntityPoolContext.recordInitialization(System.nanoTime() - start);
+        }
+        return connection;
+    }
+
+    private void execute(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (sql.size() == 1) {
+                statement.execute(sql.get(0));
+            } else if (multiStatement) {
+                statement.execute(String.join(";\n", sql));
+            } else if (connection.getMetaData().supportsBatchUpdates()) {
+                for (String s : sql) {
+                    statement.addBatch(s);
+                }
+                statement.executeBatch();
+            } else {
+                log.debug("jdbc driver doesn't support batch updates, executing {} init statements one by one", sql.size());
+                for (String s : sql) {
+                    statement.execute(s);
+                }
+            }
+        }
+    }
+}
@@ -19,567 +19,681 @@ public class DelegatingCallableStatementAdapter extends DelegatingPreparedStatem
 
     @Override
     public void registerOutParameter(int parameterIndex, int sqlType) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.registerOutParameter(parameterIndex, sqlType);
     }
 
     @Override
     public void registerOutParameter(int parameterIndex, int sqlType, int scale) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.registerOutParameter(parameterIndex, sqlType, scale);
     }
 
     @Override
     public boolean wasNull() throws SQLException {
-        return false;
+        doActionBeforeEachMethod();
+        return statement.wasNull();
     }
 
     @Override
     public String getString(int parameterIndex) throws SQLException {
-        return "";
+        doActionBeforeEachMethod();
+        return statement.getString(parameterIndex);
     }
 
     @Override
     public boolean getBoolean(int parameterIndex) throws SQLException {
-        return false;
+        doActionBeforeEachMethod();
+        return statement.getBoolean(parameterIndex);
     }
 
     @Override
     public byte getByte(int parameterIndex) throws SQLException {
-        return 0;
+        doActionBeforeEachMethod();
+        return statement.getByte(parameterIndex);
     }
 
     @Override
     public short getShort(int parameterIndex) throws SQLException {
-        return 0;
+        doActionBeforeEachMethod();
+        return statement.getShort(parameterIndex);
     }
 
     @Override
     public int getInt(int parameterIndex) throws SQLException {
-        return 0;
+        doActionBeforeEachMethod();
+        return statement.getInt(parameterIndex);
     }
 
     @Override
     public long getLong(int parameterIndex) throws SQLException {
-        return 0;
+        doActionBeforeEachMethod();
+        return statement.getLong(parameterIndex);
     }
 
     @Override
     public float getFloat(int parameterIndex) throws SQLException {
-        return 0;
+        doActionBeforeEachMethod();
+        return statement.getFloat(parameterIndex);
     }
 
     @Override
     public double getDouble(int parameterIndex) throws SQLException {
-        return 0;
+        doActionBeforeEachMethod();
+        return statement.getDouble(parameterIndex);
     }
 
     @Override
+    @SuppressWarnings("deprecation")
     public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getBigDecimal(parameterIndex, scale);
     }
 
     @Override
     public byte[] getBytes(int parameterIndex) throws SQLException {
-        return new byte[0];
+        doActionBeforeEachMethod();
+        return statement.getBytes(parameterIndex);
     }
 
     @Override
     public Date getDate(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getDate(parameterIndex);
     }
 
     @Override
     public Time getTime(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getTime(parameterIndex);
     }
 
     @Override
     public Timestamp getTimestamp(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getTimestamp(parameterIndex);
     }
 
     @Override
     public Object getObject(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getObject(parameterIndex);
     }
 
     @Override
     public BigDecimal getBigDecimal(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getBigDecimal(parameterIndex);
     }
 
     @Override
     public Object getObject(int parameterIndex, Map<String, Class<?>> map) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getObject(parameterIndex, map);
     }
 
     @Override
     public Ref getRef(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getRef(parameterIndex);
     }
 
     @Override
     public Blob getBlob(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getBlob(parameterIndex);
     }
 
     @Override
     public Clob getClob(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getClob(parameterIndex);
     }
 
     @Override
     public Array getArray(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getArray(parameterIndex);
     }
 
     @Override
     public Date getDate(int parameterIndex, Calendar cal) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getDate(parameterIndex, cal);
     }
 
     @Override
     public Time getTime(int parameterIndex, Calendar cal) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getTime(parameterIndex, cal);
     }
 
     @Override
     public Timestamp getTimestamp(int parameterIndex, Calendar cal) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getTimestamp(parameterIndex, cal);
     }
 
     @Override
     public void registerOutParameter(int parameterIndex, int sqlType, String typeName) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.registerOutParameter(parameterIndex, sqlType, typeName);
     }
 
     @Override
     public void registerOutParameter(String parameterName, int sqlType) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.registerOutParameter(parameterName, sqlType);
     }
 
     @Override
     public void registerOutParameter(String parameterName, int sqlType, int scale) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.registerOutParameter(parameterName, sqlType, scale);
     }
 
     @Override
     public void registerOutParameter(String parameterName, int sqlType, String typeName) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.registerOutParameter(parameterName, sqlType, typeName);
     }
 
     @Override
     public URL getURL(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getURL(parameterIndex);
     }
 
     @Override
     public void setURL(String parameterName, URL val) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setURL(parameterName, val);
     }
 
     @Override
     public void setNull(String parameterName, int sqlType) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setNull(parameterName, sqlType);
     }
 
     @Override
     public void setBoolean(String parameterName, boolean x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setBoolean(parameterName, x);
     }
 
     @Override
     public void setByte(String parameterName, byte x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setByte(parameterName, x);
     }
 
     @Override
     public void setShort(String parameterName, short x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setShort(parameterName, x);
     }
 
     @Override
     public void setInt(String parameterName, int x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setInt(parameterName, x);
     }
 
     @Override
     public void setLong(String parameterName, long x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setLong(parameterName, x);
     }
 
     @Override
     public void setFloat(String parameterName, float x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setFloat(parameterName, x);
     }
 
     @Override
     public void setDouble(String parameterName, double x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setDouble(parameterName, x);
     }
 
     @Override
     public void setBigDecimal(String parameterName, BigDecimal x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setBigDecimal(parameterName, x);
     }
 
     @Override
     public void setString(String parameterName, String x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setString(parameterName, x);
     }
 
     @Override
     public void setBytes(String parameterName, byte[] x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setBytes(parameterName, x);
     }
 
     @Override
     public void setDate(String parameterName, Date x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setDate(parameterName, x);
     }
 
     @Override
     public void setTime(String parameterName, Time x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setTime(parameterName, x);
     }
 
     @Override
     public void setTimestamp(String parameterName, Timestamp x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setTimestamp(parameterName, x);
     }
 
     @Override
     public void setAsciiStream(String parameterName, InputStream x, int length) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setAsciiStream(parameterName, x, length);
     }
 
     @Override
     public void setBinaryStream(String parameterName, InputStream x, int length) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setBinaryStream(parameterName, x, length);
     }
 
     @Override
     public void setObject(String parameterName, Object x, int targetSqlType, int scale) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setObject(parameterName, x, targetSqlType, scale);
     }
 
     @Override
     public void setObject(String parameterName, Object x, int targetSqlType) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setObject(parameterName, x, targetSqlType);
     }
 
     @Override
     public void setObject(String parameterName, Object x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setObject(parameterName, x);
     }
 
     @Override
     public void setCharacterStream(String parameterName, Reader reader, int length) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setCharacterStream(parameterName, reader, length);
     }
 
     @Override
     public void setDate(String parameterName, Date x, Calendar cal) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setDate(parameterName, x, cal);
     }
 
     @Override
     public void setTime(String parameterName, Time x, Calendar cal) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setTime(parameterName, x, cal);
     }
 
     @Override
     public void setTimestamp(String parameterName, Timestamp x, Calendar cal) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setTimestamp(parameterName, x, cal);
     }
 
     @Override
     public void setNull(String parameterName, int sqlType, String typeName) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setNull(parameterName, sqlType, typeName);
     }
 
     @Override
     public String getString(String parameterName) throws SQLException {
-        return "";
+        doActionBeforeEachMethod();
+        return statement.getString(parameterName);
     }
 
     @Override
     public boolean getBoolean(String parameterName) throws SQLException {
-        return false;
+        doActionBeforeEachMethod();
+        return statement.getBoolean(parameterName);
     }
 
     @Override
     public byte getByte(String parameterName) throws SQLException {
-        return 0;
+        doActionBeforeEachMethod();
+        return statement.getByte(parameterName);
     }
 
     @Override
     public short getShort(String parameterName) throws SQLException {
-        return 0;
+        doActionBeforeEachMethod();
+        return statement.getShort(parameterName);
     }
 
     @Override
     public int getInt(String parameterName) throws SQLException {
-        return 0;
+        doActionBeforeEachMethod();
+        return statement.getInt(parameterName);
     }
 
     @Override
     public long getLong(String parameterName) throws SQLException {
-        return 0;
+        doActionBeforeEachMethod();
+        return statement.getLong(parameterName);
     }
 
     @Override
     public float getFloat(String parameterName) throws SQLException {
-        return 0;
+        doActionBeforeEachMethod();
+        return statement.getFloat(parameterName);
     }
 
     @Override
     public double getDouble(String parameterName) throws SQLException {
-        return 0;
+        doActionBeforeEachMethod();
+        return statement.getDouble(parameterName);
     }
 
     @Override
     public byte[] getBytes(String parameterName) throws SQLException {
-        return new byte[0];
+        doActionBeforeEachMethod();
+        return statement.getBytes(parameterName);
     }
 
     @Override
     public Date getDate(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getDate(parameterName);
     }
 
     @Override
     public Time getTime(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getTime(parameterName);
     }
 
     @Override
     public Timestamp getTimestamp(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getTimestamp(parameterName);
     }
 
     @Override
     public Object getObject(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getObject(parameterName);
     }
 
     @Override
     public BigDecimal getBigDecimal(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getBigDecimal(parameterName);
     }
 
     @Override
     public Object getObject(String parameterName, Map<String, Class<?>> map) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getObject(parameterName, map);
     }
 
     @Override
     public Ref getRef(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getRef(parameterName);
     }
 
     @Override
     public Blob getBlob(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getBlob(parameterName);
     }
 
     @Override
     public Clob getClob(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getClob(parameterName);
     }
 
     @Override
     public Array getArray(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getArray(parameterName);
     }
 
     @Override
     public Date getDate(String parameterName, Calendar cal) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getDate(parameterName, cal);
     }
 
     @Override
     public Time getTime(String parameterName, Calendar cal) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getTime(parameterName, cal);
     }
 
     @Override
     public Timestamp getTimestamp(String parameterName, Calendar cal) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getTimestamp(parameterName, cal);
     }
 
     @Override
     public URL getURL(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getURL(parameterName);
     }
 
     @Override
     public RowId getRowId(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getRowId(parameterIndex);
     }
 
     @Override
     public RowId getRowId(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getRowId(parameterName);
     }
 
     @Override
     public void setRowId(String parameterName, RowId x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setRowId(parameterName, x);
     }
 
     @Override
     public void setNString(String parameterName, String value) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setNString(parameterName, value);
     }
 
     @Override
     public void setNCharacterStream(String parameterName, Reader value, long length) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setNCharacterStream(parameterName, value, length);
     }
 
     @Override
     public void setNClob(String parameterName, NClob value) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setNClob(parameterName, value);
     }
 
     @Override
     public void setClob(String parameterName, Reader reader, long length) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setClob(parameterName, reader, length);
     }
 
     @Override
     public void setBlob(String parameterName, InputStream inputStream, long length) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setBlob(parameterName, inputStream, length);
     }
 
     @Override
     public void setNClob(String parameterName, Reader reader, long length) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setNClob(parameterName, reader, length);
     }
 
     @Override
     public NClob getNClob(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getNClob(parameterIndex);
     }
 
     @Override
     public NClob getNClob(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getNClob(parameterName);
     }
 
     @Override
     public void setSQLXML(String parameterName, SQLXML xmlObject) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setSQLXML(parameterName, xmlObject);
     }
 
     @Override
     public SQLXML getSQLXML(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getSQLXML(parameterIndex);
     }
 
     @Override
     public SQLXML getSQLXML(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getSQLXML(parameterName);
     }
 
     @Override
     public String getNString(int parameterIndex) throws SQLException {
-        return "";
+        doActionBeforeEachMethod();
+        return statement.getNString(parameterIndex);
     }
 
     @Override
     public String getNString(String parameterName) throws SQLException {
-        return "";
+        doActionBeforeEachMethod();
+        return statement.getNString(parameterName);
     }
 
     @Override
     public Reader getNCharacterStream(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getNCharacterStream(parameterIndex);
     }
 
     @Override
     public Reader getNCharacterStream(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getNCharacterStream(parameterName);
     }
 
     @Override
     public Reader getCharacterStream(int parameterIndex) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getCharacterStream(parameterIndex);
     }
 
     @Override
     public Reader getCharacterStream(String parameterName) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getCharacterStream(parameterName);
     }
 
     @Override
     public void setBlob(String parameterName, Blob x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setBlob(parameterName, x);
     }
 
     @Override
     public void setClob(String parameterName, Clob x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setClob(parameterName, x);
     }
 
     @Override
     public void setAsciiStream(String parameterName, InputStream x, long length) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setAsciiStream(parameterName, x, length);
     }
 
     @Override
     public void setBinaryStream(String parameterName, InputStream x, long length) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setBinaryStream(parameterName, x, length);
     }
 
     @Override
     public void setCharacterStream(String parameterName, Reader reader, long length) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setCharacterStream(parameterName, reader, length);
     }
 
     @Override
     public void setAsciiStream(String parameterName, InputStream x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setAsciiStream(parameterName, x);
     }
 
     @Override
     public void setBinaryStream(String parameterName, InputStream x) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setBinaryStream(parameterName, x);
     }
 
     @Override
     public void setCharacterStream(String parameterName, Reader reader) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setCharacterStream(parameterName, reader);
     }
 
     @Override
     public void setNCharacterStream(String parameterName, Reader value) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setNCharacterStream(parameterName, value);
     }
 
     @Override
     public void setClob(String parameterName, Reader reader) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setClob(parameterName, reader);
     }
 
     @Override
     public void setBlob(String parameterName, InputStream inputStream) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setBlob(parameterName, inputStream);
     }
 
     @Override
     public void setNClob(String parameterName, Reader reader) throws SQLException {
-
+        doActionBeforeEachMethod();
+        statement.setNClob(parameterName, reader);
     }
 
     @Override
     public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getObject(parameterIndex, type);
     }
 
     @Override
     public <T> T getObject(String parameterName, Class<T> type) throws SQLException {
-        return null;
+        doActionBeforeEachMethod();
+        return statement.getObject(parameterName, type);
     }
 
     @Override
@@ -61,13 +61,13 @@ public class DelegatingConnectionAdapter implements Connection {
 
     @Override
     public void rollback() throws SQLException {
-        doActionBeforeEachMethod(ConnectionMethod.CLOSE);
-        connection.commit();
+        doActionBeforeEachMethod();
+        connection.rollback();
     }
 
     @Override
     public void close() throws SQLException {
-        doActionBeforeEachMethod();
+        doActionBeforeEachMethod(ConnectionMethod.CLOSE);
         connection.close();
     }
 
@@ -257,7 +257,7 @@ public class DelegatingConnectionAdapter implements Connection {
 
     @Override
     public boolean isValid(int timeout) throws SQLException {
-        doActionBeforeEachMethod();
+        doActionBeforeEachMethod(ConnectionMethod.IS_VALID);
         return connection.isValid(timeout);
     }
 
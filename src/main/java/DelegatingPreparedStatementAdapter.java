@@ -19,496 +19,614 @@ public class DelegatingPreparedStatementAdapter implements PreparedStatement {
 
     @Override
     public ResultSet executeQuery() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.executeQuery();
     }
 
     @Override
     public int executeUpdate() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.executeUpdate();
     }
 
     @Override
     public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setNull(parameterIndex, sqlType);
     }
 
     @Override
     public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setBoolean(parameterIndex, x);
     }
 
     @Override
     public void setByte(int parameterIndex, byte x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setByte(parameterIndex, x);
     }
 
     @Override
     public void setShort(int parameterIndex, short x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setShort(parameterIndex, x);
     }
 
     @Override
     public void setInt(int parameterIndex, int x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setInt(parameterIndex, x);
     }
 
     @Override
     public void setLong(int parameterIndex, long x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setLong(parameterIndex, x);
     }
 
     @Override
     public void setFloat(int parameterIndex, float x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setFloat(parameterIndex, x);
     }
 
     @Override
     public void setDouble(int parameterIndex, double x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setDouble(parameterIndex, x);
     }
 
     @Override
     public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setBigDecimal(parameterIndex, x);
     }
 
     @Override
     public void setString(int parameterIndex, String x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setString(parameterIndex, x);
     }
 
     @Override
     public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setBytes(parameterIndex, x);
     }
 
     @Override
     public void setDate(int parameterIndex, Date x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setDate(parameterIndex, x);
     }
 
     @Override
     public void setTime(int parameterIndex, Time x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setTime(parameterIndex, x);
     }
 
     @Override
     public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setTimestamp(parameterIndex, x);
     }
 
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setAsciiStream(parameterIndex, x, length);
     }
 
     @Override
+    @SuppressWarnings("deprecation")
     public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setUnicodeStream(parameterIndex, x, length);
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setBinaryStream(parameterIndex, x, length);
     }
 
     @Override
     public void clearParameters() throws SQLException {
+        doActionBeforeEachMethod();
         statement.clearParameters();
     }
 
     @Override
     public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setObject(parameterIndex, x, targetSqlType);
     }
 
     @Override
     public void setObject(int parameterIndex, Object x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setObject(parameterIndex, x);
     }
 
     @Override
     public boolean execute() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.execute();
     }
 
     @Override
     public void addBatch() throws SQLException {
+        doActionBeforeEachMethod();
         statement.addBatch();
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setCharacterStream(parameterIndex, reader, length);
     }
 
     @Override
     public void setRef(int parameterIndex, Ref x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setRef(parameterIndex, x);
     }
 
     @Override
     public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setBlob(parameterIndex, x);
     }
 
     @Override
     public void setClob(int parameterIndex, Clob x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setClob(parameterIndex, x);
     }
 
     @Override
     public void setArray(int parameterIndex, Array x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setArray(parameterIndex, x);
     }
 
     @Override
     public ResultSetMetaData getMetaData() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getMetaData();
     }
 
     @Override
     public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setDate(parameterIndex, x, cal);
     }
 
     @Override
     public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setTime(parameterIndex, x, cal);
     }
 
     @Override
     public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setTimestamp(parameterIndex, x, cal);
     }
 
     @Override
     public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setNull(parameterIndex, sqlType, typeName);
     }
 
     @Override
     public void setURL(int parameterIndex, URL x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setURL(parameterIndex, x);
     }
 
     @Override
     public ParameterMetaData getParameterMetaData() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getParameterMetaData();
     }
 
     @Override
     public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setRowId(parameterIndex, x);
     }
 
     @Override
     public void setNString(int parameterIndex, String value) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setNString(parameterIndex, value);
     }
 
     @Override
     public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setNCharacterStream(parameterIndex, value, length);
     }
 
     @Override
     public void setNClob(int parameterIndex, NClob value) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setNClob(parameterIndex, value);
     }
 
     @Override
     public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setClob(parameterIndex, reader, length);
     }
 
     @Override
     public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setBlob(parameterIndex, inputStream, length);
     }
 
     @Override
     public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setNClob(parameterIndex, reader, length);
     }
 
     @Override
     public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setSQLXML(parameterIndex, xmlObject);
     }
 
     @Override
     public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
     }
 
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setAsciiStream(parameterIndex, x,length);
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setBinaryStream(parameterIndex, x, length);
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setCharacterStream(parameterIndex, reader, length);
     }
 
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setAsciiStream(parameterIndex, x);
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setBinaryStream(parameterIndex, x);
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setCharacterStream(parameterIndex, reader);
     }
 
     @Override
     public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setCharacterStream(parameterIndex, value);
     }
 
     @Override
     public void setClob(int parameterIndex, Reader reader) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setClob(parameterIndex, reader);
     }
 
     @Override
     public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setBlob(parameterIndex, inputStream);
     }
 
     @Override
     public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setNClob(parameterIndex, reader);
     }
 
     @Override
     public ResultSet executeQuery(String sql) throws SQLException {
+        doActionBeforeEachMethod();
         return statement.executeQuery(sql);
     }
 
     @Override
     public int executeUpdate(String sql) throws SQLException {
+        doActionBeforeEachMethod();
         return statement.executeUpdate(sql);
     }
 
     @Override
     public void close() throws SQLException {
+        doActionBeforeEachMethod();
         statement.close();
     }
 
     @Override
     public int getMaxFieldSize() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getMaxFieldSize();
     }
 
     @Override
     public void setMaxFieldSize(int max) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setMaxFieldSize(max);
     }
 
     @Override
     public int getMaxRows() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getMaxRows();
     }
 
     @Override
     public void setMaxRows(int max) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setMaxRows(max);
     }
 
+    @Override
+    public long getLargeMaxRows() throws SQLException {
+        doActionBeforeEachMethod();
+        return statement.getLargeMaxRows();
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        doActionBeforeEachMethod();
+        statement.setLargeMaxRows(max);
+    }
+
     @Override
     public void setEscapeProcessing(boolean enable) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setEscapeProcessing(enable);
     }
 
     @Override
     public int getQueryTimeout() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getQueryTimeout();
     }
 
     @Override
     public void setQueryTimeout(int seconds) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setQueryTimeout(seconds);
     }
 
     @Override
     public void cancel() throws SQLException {
+        doActionBeforeEachMethod();
         statement.cancel();
     }
 
     @Override
     public SQLWarning getWarnings() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getWarnings();
     }
 
     @Override
     public void clearWarnings() throws SQLException {
+        doActionBeforeEachMethod();
         statement.clearWarnings();
     }
 
     @Override
     public void setCursorName(String name) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setCursorName(name);
     }
 
     @Override
     public boolean execute(String sql) throws SQLException {
+        doActionBeforeEachMethod();
         return statement.execute(sql);
     }
 
     @Override
     public ResultSet getResultSet() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getResultSet();
     }
 
     @Override
     public int getUpdateCount() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getUpdateCount();
     }
 
     @Override
     public boolean getMoreResults() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getMoreResults();
     }
 
     @Override
     public int getFetchDirection() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getFetchDirection();
     }
 
     @Override
     public void setFetchDirection(int direction) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setFetchDirection(direction);
     }
 
     @Override
     public int getFetchSize() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getFetchSize();
     }
 
     @Override
     public void setFetchSize(int rows) throws SQLException {
-        statement.setFetchDirection(rows);
+        doActionBeforeEachMethod();
+        statement.setFetchSize(rows);
     }
 
     @Override
     public int getResultSetConcurrency() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getResultSetConcurrency();
     }
 
     @Override
     public int getResultSetType() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getResultSetType();
     }
 
     @Override
     public void addBatch(String sql) throws SQLException {
+        doActionBeforeEachMethod();
         statement.addBatch(sql);
     }
 
     @Override
     public void clearBatch() throws SQLException {
+        doActionBeforeEachMethod();
         statement.clearBatch();
     }
 
     @Override
     public int[] executeBatch() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.executeBatch();
     }
 
     @Override
     public Connection getConnection() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getConnection();
     }
 
     @Override
     public boolean getMoreResults(int current) throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getMoreResults(current);
     }
 
     @Override
     public ResultSet getGeneratedKeys() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getGeneratedKeys();
     }
 
     @Override
     public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        doActionBeforeEachMethod();
         return statement.executeUpdate(sql, autoGeneratedKeys);
     }
 
     @Override
     public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        doActionBeforeEachMethod();
         return statement.executeUpdate(sql, columnIndexes);
     }
 
     @Override
     public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        doActionBeforeEachMethod();
         return statement.executeUpdate(sql, columnNames);
     }
 
     @Override
     public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        doActionBeforeEachMethod();
         return statement.execute(sql, autoGeneratedKeys);
     }
 
     @Override
     public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        doActionBeforeEachMethod();
         return statement.execute(sql, columnIndexes);
     }
 
     @Override
     public boolean execute(String sql, String[] columnNames) throws SQLException {
+        doActionBeforeEachMethod();
         return statement.execute(sql, columnNames);
     }
 
     @Override
     public int getResultSetHoldability() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.getResultSetHoldability();
     }
 
     @Override
     public boolean isClosed() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.isClosed();
     }
 
     @Override
     public boolean isPoolable() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.isPoolable();
     }
 
     @Override
     public void setPoolable(boolean poolable) throws SQLException {
+        doActionBeforeEachMethod();
         statement.setPoolable(poolable);
     }
 
     @Override
     public void closeOnCompletion() throws SQLException {
+        doActionBeforeEachMethod();
         statement.closeOnCompletion();
     }
 
     @Override
     public boolean isCloseOnCompletion() throws SQLException {
+        doActionBeforeEachMethod();
         return statement.isCloseOnCompletion();
     }
 
     @Override
     public <T> T unwrap(Class<T> iface) throws SQLException {
+        doActionBeforeEachMethod();
         return statement.unwrap(iface);
     }
 
     @Override
     public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        doActionBeforeEachMethod();
         return statement.isWrapperFor(iface);
     }
+
+    /**
+     * Called before each delegated call, e.g. to fail the calls on a statement which is closed.
+     */
+    protected void doActionBeforeEachMethod() throws SQLException {
+    }
 }
@@ -3,12 +3,20 @@ import api.EntityFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
 import java.sql.Connection;
+import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 
 
+/**
+ * Creates connections through {@link DriverManager}, or with {@code directDriver}
+ * through a {@link Driver} resolved once: {@code DriverManager.getConnection} walks
+ * all registered drivers with caller class loader checks on every call and
+ * serializes connection storms on its internals, {@link Driver#connect} doesn't.
+ */
 public class DriverManagerConnectionFactory implements EntityFactory<Connection> {
     Logger log = LoggerFactory.getLogger(DriverManagerConnectionFactory.class.getName());
     public static final String USER_KEY = "ROOT";
@@ -28,22 +36,62 @@ public class DriverManagerConnectionFactory implements EntityFactory<Connection>
 //    }
 
     public DriverManagerConnectionFactory(String driverClass, String url, Properties jdbcProperties) {
-//        checkDriverClass(driverClass);
+        this(driverClass, url, jdbcProperties, false);
+    }
+
+    public DriverManagerConnectionFactory(String driverClass, String url, Properties jdbcProperties, boolean directDriver) {
         this.driverClass = driverClass;
         this.url = url;
         this.login = jdbcProperties.getProperty("user");
         this.properties = jdbcProperties;
-        this.retriever = ()->DriverManager.getConnection(url,properties);
+        if (directDriver) {
+            Driver driver = resolveDriver(driverClass, url);
+            this.retriever = () -> driver.connect(url, properties);
+        } else {
+            this.retriever = () -> DriverManager.getConnection(url, properties);
+        }
     }
 
-    private static void checkDriverClass(String driverClass) {
+    private static Class<?> checkDriverClass(String driverClass) {
         try {
-            Class.forName(driverClass);
+            return Class.forName(driverClass);
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(String.format("Jdbc driver class %s not found", driverClass), e);
         }
     }
 
+    /**
+     * @return an instance of the driver class if given, otherwise the registered driver accepting the url
+     */
+    static Driver resolveDriver(String driverClass, String url) {
+        Driver driver;
+        if (driverClass == null) {
+            try {
+                driver = DriverManager.getDriver(url);
+            } catch (SQLException e) {
+                throw new IllegalStateException(String.format("no registered jdbc driver accepts url '%s'", url), e);
+            }
+        } else {
+            Class<?> type = checkDriverClass(driverClass);
+            if (!Driver.class.isAssignableFrom(type)) {
+                throw new IllegalArgumentException(String.format("Jdbc driver class %s doesn't implement %s", driverClass, Driver.class.getName()));
+            }
+            try {
+                driver = (Driver) type.getDeclaredConstructor().newInstance();
+            } catch (InstantiationException | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
+                throw new IllegalStateException(String.format("can't instantiate jdbc driver class %s", driverClass), e);
+            }
+        }
+        try {
+            if (!driver.acceptsURL(url)) {
+                throw new IllegalArgumentException(String.format("jdbc driver %s doesn't accept url '%s'", driver.getClass().getName(), url));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(String.format("jdbc driver %s failed to check url '%s'", driver.getClass().getName(), url), e);
+        }
+        return driver;
+    }
+
     @Override
     public Connection create() {
         try {
@@ -51,7 +99,7 @@ public class DriverManagerConnectionFactory implements EntityFactory<Connection>
             if (connection == null) {
                 throw new IllegalStateException("jdbc unable create the connection");
             } else {
-                log.info("jdbc connection was successful");
+                log.debug("jdbc connection was successful");
                 return connection;
             }
         } catch (SQLException e) {
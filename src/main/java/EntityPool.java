@@ -9,6 +9,7 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.IntStream;
 import java.util.stream.StreamSupport;
 
@@ -18,24 +19,34 @@ public class EntityPool<T> {
     private static final int DEFAULT_MAX_POOL_SIZE = 0;
     private static final int DEFAULT_PRIORITY_POOL_SIZE = 0;
     private static final int DEFAULT_CHECKOUT_TIMEOUT = -1;
+    static final long DEFAULT_SOFT_EVICTION_PERIOD = 10000;
 
     private final ArrayBlockingQueue<T> entities;
     private final Collection<EntityChecker<? super T>> checkers;
     private final EntityFactory<T> factory;
-    private final int maxSize;
+    private volatile int maxSize;
     private final int prioritySize;
     private final long defaultCheckoutTime;
-    private final Semaphore entityPermits;
+    private final ResizableSemaphore entityPermits;
     private final boolean parallelCreation;
     private final AtomicInteger currentSize = new AtomicInteger();
     private final AtomicInteger waiting = new AtomicInteger();
     private final AtomicBoolean close = new AtomicBoolean();
     private EntityReleaser<? super T> releaser;
+    private final PoolMetrics metrics = new PoolMetrics();
+    private volatile String name = "EntityPool";
     // Leak detection fields
-    private ConcurrentHashMap<T, CheckoutInfo> checkedOutEntities = new ConcurrentHashMap<>();
     private long leakDetectionThreshold;
     private boolean leakDetectionEnabled;
     private ScheduledExecutorService leakDetector;
+    private volatile Drain drain;
+    // Soft eviction fields
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<T, EntityState> entityStates = new ConcurrentHashMap<>();
+    private final AtomicInteger entitySequence = new AtomicInteger();
+    private volatile PoolTraceRecorder traceRecorder;
+    private volatile long softEvictionPeriod = DEFAULT_SOFT_EVICTION_PERIOD;
+    private ScheduledExecutorService evictor;
 
     public EntityPool(Collection<EntityChecker<? super T>> checkers, EntityFactory<T> factory, EntityReleaser<? super T> releaser,
                       boolean parallelCreation, int maxSize, int prioritySize, long defaultCheckoutTime, int initialSize) throws IllegalArgumentException {
@@ -46,7 +57,7 @@ public class EntityPool<T> {
         this.parallelCreation = parallelCreation;
         this.prioritySize = prioritySize;
         this.defaultCheckoutTime = defaultCheckoutTime;
-        this.entityPermits = new Semaphore(maxSize, true);
+        this.entityPermits = new ResizableSemaphore(maxSize);
         this.entities = new ArrayBlockingQueue<>(maxSize, true);
         createEntitiesOnInitialization(initialSize, parallelCreation);
         // Leak detection setup
@@ -123,6 +134,7 @@ public class EntityPool<T> {
     }
 
     private void doRelease(T entity, String reason) {
+        entityStates.remove(entity);
         try {
             this.releaser.release(entity);
         } catch (Exception var) {
@@ -139,13 +151,63 @@ public class EntityPool<T> {
         if (this.close.get()) {
             throw new IllegalStateException(String.format("Can't retrieve entity from the pool '%s'. Reason the pool is closed", this));
         } else {
-            long start = System.currentTimeMillis();
-            log.info("waiting threads {} ", start);
-            try {
-                return this.getEntityImpl(timout);
-            } finally {
-                log.info("stats accumulator");
+            PoolEvents.Checkout event = new PoolEvents.Checkout();
+            event.begin();
+            long start = System.nanoTime();
+            T entity = this.getEntityImpl(timout);
+            long checkoutTime = System.nanoTime();
+            metrics.record(PoolMetrics.Timer.WAIT, checkoutTime - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.pool = name;
+                event.timedOut = entity == null;
+                event.commit();
+            }
+            PoolTraceRecorder recorder = traceRecorder;
+            if (entity == null) {
+                metrics.increment(PoolMetrics.Counter.TIMEOUTS);
+                if (recorder != null) {
+                    recorder.record(PoolTraceRecorder.TIMEOUT, checkoutTime, checkoutTime - start, 0);
+                }
+                return null;
+            }
+            metrics.increment(PoolMetrics.Counter.CHECKOUTS);
+            EntityState state = entityStates.get(entity);
+            if (recorder != null) {
+                recorder.record(PoolTraceRecorder.CHECKOUT, checkoutTime, checkoutTime - start, state == null ? 0 : state.id);
+            }
+            if (state != null) {
+                state.checkoutTime = checkoutTime;
+                if (state.leakReported) {
+                    state.leakReported = false;
+                }
             }
+            return entity;
+        }
+    }
+
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name name of the pool in the flight recorder events
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    private void evicted(String reason) {
+        metrics.increment(PoolMetrics.Counter.EVICTIONS);
+        PoolEvents.Evict event = new PoolEvents.Evict();
+        if (event.shouldCommit()) {
+            event.pool = name;
+            event.reason = reason;
+            event.commit();
         }
     }
 
@@ -153,12 +215,65 @@ public class EntityPool<T> {
         return maxSize;
     }
 
+    /**
+     * Changes the max pool size, up to the max size the pool was built with as the idle
+     * queue can't grow. Shrinking limits the checkouts at once, the surplus entities are
+     * released on return or by the next {@link #refresh()}.
+     */
+    public synchronized void resize(int newMaxSize) {
+        int capacity = entities.size() + entities.remainingCapacity();
+        if (newMaxSize <= 0 || newMaxSize > capacity) {
+            throw new IllegalArgumentException(String.format("Invalid max size: %d. the value should be positive and at most %d", newMaxSize, capacity));
+        }
+        int delta = newMaxSize - maxSize;
+        if (delta > 0) {
+            entityPermits.release(delta);
+        } else if (delta < 0) {
+            entityPermits.reduce(-delta);
+        }
+        maxSize = newMaxSize;
+        log.info("pool resized to max {} entities", newMaxSize);
+    }
+
+    /**
+     * @return checkout permits left, negative right after the pool shrank; reading it doesn't lock
+     */
+    public int getAvailablePermits() {
+        return entityPermits.availablePermits();
+    }
+
+    /**
+     * @return an estimate of the checked out entities from the permits in use; reading it doesn't lock
+     */
+    public int getActiveEntitiesNumber() {
+        return Math.max(0, Math.min(maxSize - entityPermits.availablePermits(), getCurrentSize()));
+    }
+
+    /**
+     * @return an estimate of {@link #getIdleEntitiesNumber()} which doesn't lock the idle queue
+     */
+    public int getIdleEntitiesEstimate() {
+        return Math.max(0, getCurrentSize() - getActiveEntitiesNumber());
+    }
+
+    /**
+     * @return an estimate of the threads waiting for an entity; reading it doesn't lock
+     */
+    public int getWaitingThreads() {
+        return entityPermits.getQueueLength();
+    }
+
     private T getEntityImpl(long timout) throws InterruptedException {
         long endRequestTime = System.currentTimeMillis() + timout;
 
         if (!this.tryAcquire(timout)) {
             return null;
         }
+        if (this.close.get()) {
+            //woken up by close
+            this.entityPermits.release();
+            throw new IllegalStateException(String.format("Can't retrieve entity from the pool '%s'. Reason the pool is closed", this));
+        }
         int maxAttemptNumber = 100;
         int i = 0;
 
@@ -172,10 +287,28 @@ public class EntityPool<T> {
                 //retry in case another thread simultaneously created the entity
                 continue;
             }
+            PoolEvents.Create event = new PoolEvents.Create();
+            event.begin();
+            // an entity created while a soft eviction starts belongs to the generation before it
+            long entityGeneration = generation.get();
+            EntityPoolContext.takeInitializationTime();
+            long creationStart = System.nanoTime();
             try {
                 entity = factory.create();
             } catch (Exception var1) {
                 Exception e = var1;
+                long creationTime = System.nanoTime() - creationStart;
+                long initializationTime = recordCreation(creationTime);
+                metrics.increment(PoolMetrics.Counter.CREATION_FAILURES);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.pool = name;
+                    event.connectTime = creationTime - initializationTime;
+                    event.initializationTime = initializationTime;
+                    event.failed = true;
+                    event.error = e.toString();
+                    event.commit();
+                }
                 this.decrementCurrentSize();
                 if (e instanceof IllegalStateException) {
                     log.error("failed to create new entity, tried following entity factory : {}", this.factory);
@@ -191,6 +324,22 @@ public class EntityPool<T> {
                 decrementCurrentSize();
                 continue;
             }
+            long creationTime = System.nanoTime() - creationStart;
+            long initializationTime = recordCreation(creationTime);
+            metrics.increment(PoolMetrics.Counter.CREATIONS);
+            event.end();
+            if (event.shouldCommit()) {
+                event.pool = name;
+                event.connectTime = creationTime - initializationTime;
+                event.initializationTime = initializationTime;
+                event.commit();
+            }
+            EntityState state = new EntityState(entitySequence.incrementAndGet(), entityGeneration);
+            entityStates.put(entity, state);
+            PoolTraceRecorder recorder = traceRecorder;
+            if (recorder != null) {
+                recorder.record(PoolTraceRecorder.CREATE, creationStart + creationTime, creationTime, state.id);
+            }
             return entity;
         }
         log.error("Potential live lock on manage entity creation via factory '{}'!!!! " +
@@ -226,21 +375,82 @@ public class EntityPool<T> {
         release(entity, false);
     }
 
+    /**
+     * Records a creation attempt, split into the time of the factory and the initialization
+     * it reported, see {@link EntityPoolContext#recordInitialization(long)}.
+     *
+     * @return the initialization time
+     */
+    private long recordCreation(long creationTime) {
+        long initializationTime = Math.min(EntityPoolContext.takeInitializationTime(), creationTime);
+        metrics.record(PoolMetrics.Timer.CREATE, creationTime - initializationTime);
+        if (initializationTime > 0L) {
+            metrics.record(PoolMetrics.Timer.INITIALIZE, initializationTime);
+        }
+        return initializationTime;
+    }
+
+    /**
+     * Ends the checkout of an entity the caller gave back but which is released later, e.g. after
+     * work the pool does on it before it is idle again; that work isn't counted as hold time.
+     */
+    public void checkedIn(T entity) {
+        endCheckout(entity, System.nanoTime());
+    }
+
+    private long endCheckout(T entity, long now) {
+        EntityState state = entityStates.get(entity);
+        if (state == null || state.checkoutTime == 0L) {
+            return 0L;
+        }
+        long holdTime = now - state.checkoutTime;
+        metrics.record(PoolMetrics.Timer.HOLD, holdTime);
+        state.checkoutTime = 0L;
+        PoolTraceRecorder recorder = traceRecorder;
+        if (recorder != null) {
+            recorder.record(PoolTraceRecorder.RELEASE, now, holdTime, state.id);
+        }
+        return holdTime;
+    }
+
     public void release(T entity, boolean check) {
+        PoolEvents.Release event = new PoolEvents.Release();
+        event.begin();
+        long start = System.nanoTime();
+        long holdTime = endCheckout(entity, start);
+        metrics.increment(PoolMetrics.Counter.RELEASES);
         int current = getCurrentSize() - 1;
-        if (!close.get() && current < getMaxPoolSize() && (!check || checkEntity(entity))) {
+        boolean closed = close.get();
+        boolean pooled = false;
+        if (!closed && current < getMaxPoolSize() && (!check || checkEntity(entity))) {
             entities.offer(entity);
             entityPermits.release();
+            pooled = true;
+        } else if (closed && drain != null && drain.submit(entity)) {
+            log.debug("entity '{}' returned while draining the pool, closing it in the background", entity);
         } else {
-            doRelease(entity, String.format("exceeding max pool size: max='%d', current='%d'", getMaxPoolSize(), current));
+            String reason = current >= getMaxPoolSize() ? String.format("exceeding max pool size: max='%d', current='%d'", getMaxPoolSize(), current)
+                    : closed ? "closing pool" : String.format("invalid entity detection on release (%s)", entity);
+            doRelease(entity, reason);
             decrementCurrentSize();
+            if (!closed) {
+                evicted(reason);
+                entityPermits.release();
+            }
+        }
+        metrics.record(PoolMetrics.Timer.RELEASE, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.pool = name;
+            event.holdTime = holdTime;
+            event.validated = check;
+            event.pooled = pooled;
+            event.commit();
         }
-        log.info("remember stats");
-
     }
 
     public void close() {
-        if (!close.compareAndSet(false, true)) {
+        if (!markClosed()) {
             //another thread concurrently closed it.
             return;
         }
@@ -249,7 +459,174 @@ public class EntityPool<T> {
             doRelease(entity, "closing pool");
             decrementCurrentSize();
         }
-        log.info("record the stats");
+    }
+
+    /**
+     * Closes the pool in drain mode: new checkouts fail at once, idle entities and the
+     * entities returned by in-flight work within {@code drainTimeout} ms are released by
+     * {@code parallelism} background threads. The future completes when every entity is
+     * released, or exceptionally with a {@link TimeoutException} at the deadline; entities
+     * returned later are released by the returning thread.
+     *
+     * @return the future of the first close, already completed if the pool was closed by {@link #close()}
+     */
+    public CompletableFuture<Void> closeGracefully(long drainTimeout, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid close parallelism: %d. the value should be positive", parallelism));
+        }
+        synchronized (close) {
+            if (!markClosed()) {
+                return drain != null ? drain.future : CompletableFuture.completedFuture(null);
+            }
+            drain = new Drain(parallelism);
+        }
+        log.info("draining the pool, {} entities are checked out", getCurrentSize() - getIdleEntitiesNumber());
+        T entity;
+        while ((entity = entities.poll()) != null) {
+            drain.submit(entity);
+        }
+        drain.start(drainTimeout);
+        return drain.future;
+    }
+
+    private boolean markClosed() {
+        if (!close.compareAndSet(false, true)) {
+            return false;
+        }
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        synchronized (generation) {
+            if (evictor != null) {
+                evictor.shutdown();
+            }
+        }
+        PoolTraceRecorder recorder = traceRecorder;
+        if (recorder != null) {
+            recorder.close();
+        }
+        //wakes up the threads waiting for an entity, they fail as the pool is closed
+        entityPermits.release(entities.size() + entities.remainingCapacity() + prioritySize);
+        return true;
+    }
+
+    /**
+     * Marks all existing entities stale, e.g. after a database failover or a credential
+     * rotation: a background thread releases them one at a time, spread over the soft
+     * eviction period, taking each when it is idle. Until then stale entities are still
+     * handed out and pooled on return. Replacements are created on demand, so the
+     * database sees reconnects at the pace of the eviction instead of all at once.
+     *
+     * @return the new generation
+     */
+    public long softEvictAll() {
+        if (close.get()) {
+            throw new IllegalStateException(String.format("Can't evict entities of the pool '%s'. Reason the pool is closed", this));
+        }
+        long current = generation.incrementAndGet();
+        int stale = getStaleEntitiesNumber();
+        log.info("soft eviction of all entities, generation {}, {} entities to release within {} ms", current, stale, softEvictionPeriod);
+        if (stale > 0) {
+            long interval = TimeUnit.MILLISECONDS.toNanos(softEvictionPeriod) / stale;
+            try {
+                evictor().schedule(() -> evictIdle(current, interval), 0L, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                log.debug("pool closed during soft eviction");
+            }
+        }
+        return current;
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Records the checkouts, timeouts, releases and creations from now on, {@code null} stops
+     * recording. The recorder is closed with the pool.
+     */
+    public void setTraceRecorder(PoolTraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
+
+    public PoolTraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+
+    public void setSoftEvictionPeriod(long softEvictionPeriod) {
+        if (softEvictionPeriod < 0L) {
+            throw new IllegalArgumentException(String.format("Invalid soft eviction period: %d. the value should not be negative", softEvictionPeriod));
+        }
+        this.softEvictionPeriod = softEvictionPeriod;
+    }
+
+    private boolean isStale(T entity) {
+        long current = generation.get();
+        if (current == 0L) {
+            return false;
+        }
+        EntityState state = entityStates.get(entity);
+        return state != null && state.generation < current;
+    }
+
+    /**
+     * @return the entities, idle or checked out, created before the current generation
+     */
+    int getStaleEntitiesNumber() {
+        long current = generation.get();
+        int stale = 0;
+        for (EntityState state : entityStates.values()) {
+            if (state.generation < current) {
+                stale++;
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Releases one idle entity older than {@code evictedGeneration} and reschedules itself,
+     * until no such entity is left or a later eviction took over. When the stale entities
+     * are all checked out, it retries after the interval.
+     */
+    private void evictIdle(long evictedGeneration, long intervalNanos) {
+        if (close.get() || generation.get() != evictedGeneration) {
+            return;
+        }
+        boolean released = false;
+        for (T entity : entities) {
+            if (isStale(entity) && entities.remove(entity)) {
+                evicted("soft eviction");
+                decrementCurrentSize();
+                doRelease(entity, "soft eviction");
+                released = true;
+                break;
+            }
+        }
+        if (!released && getStaleEntitiesNumber() == 0) {
+            log.info("soft eviction of generation {} done, no stale entities left", evictedGeneration);
+            return;
+        }
+        try {
+            evictor().schedule(() -> evictIdle(evictedGeneration, intervalNanos), intervalNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("pool closed during soft eviction");
+        }
+    }
+
+    private ScheduledExecutorService evictor() {
+        synchronized (generation) {
+            if (evictor == null) {
+                evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "EntityPool-Evictor");
+                    t.setDaemon(true);
+                    return t;
+                });
+                if (close.get()) {
+                    evictor.shutdown();
+                }
+            }
+            return evictor;
+        }
     }
 
     /**
@@ -281,19 +658,35 @@ public class EntityPool<T> {
      * {@code false} otherwise
      */
     private boolean checkEntity(T entity) {
-        for (EntityChecker<? super T> checker : checkers) {
-            boolean validEntity = false;
-            try {
-                validEntity = checker.check(entity);
-            } catch (Exception e) {
-                log.error("Unexpected exception occurred on attempt to check if entity '{}' is still alive via '{}'", entity, checker, e);
+        PoolEvents.Validate event = new PoolEvents.Validate();
+        event.begin();
+        long start = System.nanoTime();
+        boolean valid = false;
+        try {
+            for (EntityChecker<? super T> checker : checkers) {
+                boolean validEntity = false;
+                try {
+                    validEntity = checker.check(entity);
+                } catch (Exception e) {
+                    log.error("Unexpected exception occurred on attempt to check if entity '{}' is still alive via '{}'", entity, checker, e);
+                }
+                if (validEntity) {
+                    continue;
+                }
+                metrics.increment(PoolMetrics.Counter.VALIDATION_FAILURES);
+                return false;
             }
-            if (validEntity) {
-                continue;
+            valid = true;
+            return true;
+        } finally {
+            metrics.record(PoolMetrics.Timer.VALIDATE, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.pool = name;
+                event.valid = valid;
+                event.commit();
             }
-            return false;
         }
-        return true;
     }
 
     /**
@@ -315,15 +708,15 @@ public class EntityPool<T> {
                 entities.offer(entity);
                 continue;
             }
-            doRelease(entity, current > max ? String.format("exceeding max pool size (%d current pool size is %d)", max, current)
-                    : String.format("invalid entity detection during refresh (%s)", entity)
-            );
+            String reason = current > max ? String.format("exceeding max pool size (%d current pool size is %d)", max, current)
+                    : String.format("invalid entity detection during refresh (%s)", entity);
+            doRelease(entity, reason);
+            evicted(reason);
             decrementCurrentSize();
         }
         if (entity != null) {
             entities.offer(entity);
         }
-        log.info("remember stats");
     }
 
     private void detectLeaks() {
@@ -331,47 +724,25 @@ public class EntityPool<T> {
             return;
         }
 
-        long currentTime = System.currentTimeMillis();
-        List<T> leakedEntities = new ArrayList<>();
-
-        for (Map.Entry<T, CheckoutInfo> entry : checkedOutEntities.entrySet()) {
-            T entity = entry.getKey();
-            CheckoutInfo info = entry.getValue();
-
-            long holdTime = currentTime - info.checkoutTime;
-
-            if (holdTime > leakDetectionThreshold) {
-                if (!info.leakReported) {
-                    // Log leak detection with stack trace
-                    StringBuilder stackTrace = new StringBuilder();
-                    stackTrace.append("Entity leak detected!\n");
-                    stackTrace.append(String.format("Entity: %s\n", entity));
-                    stackTrace.append(String.format("Checked out by thread: %s\n", info.threadName));
-                    stackTrace.append(String.format("Hold time: %d ms (threshold: %d ms)\n", holdTime, leakDetectionThreshold));
-                    stackTrace.append("Stack trace at checkout:\n");
-
-                    for (StackTraceElement element : info.stackTrace) {
-                        stackTrace.append("  at ").append(element.toString()).append("\n");
-                    }
-
-                    log.error(stackTrace.toString());
-                    info.leakReported = true;
-                }
-
-                // Optionally force-close leaked entities after a longer threshold
-                if (holdTime > leakDetectionThreshold * 2) {
-                    leakedEntities.add(entity);
-                }
+        long now = System.nanoTime();
+        long threshold = TimeUnit.MILLISECONDS.toNanos(leakDetectionThreshold);
+        for (Map.Entry<T, EntityState> entry : entityStates.entrySet()) {
+            EntityState state = entry.getValue();
+            long checkoutTime = state.checkoutTime;
+            if (checkoutTime == 0L || state.leakReported || now - checkoutTime <= threshold) {
+                continue;
+            }
+            state.leakReported = true;
+            long holdTime = now - checkoutTime;
+            log.warn("Entity '{}' of pool '{}' has been checked out for {} ms (threshold: {} ms), it may have leaked",
+                    entry.getKey(), name, TimeUnit.NANOSECONDS.toMillis(holdTime), leakDetectionThreshold);
+            PoolEvents.Leak event = new PoolEvents.Leak();
+            if (event.shouldCommit()) {
+                event.pool = name;
+                event.connection = String.valueOf(entry.getKey());
+                event.holdTime = holdTime;
+                event.commit();
             }
-        }
-
-        // Force release entities that have been leaked for too long
-        for (T leakedEntity : leakedEntities) {
-            log.error("Force releasing leaked entity: {}", leakedEntity);
-            checkedOutEntities.remove(leakedEntity);
-            doRelease(leakedEntity, "force release due to prolonged leak");
-            decrementCurrentSize();
-            entityPermits.release();
         }
     }
 
@@ -383,18 +754,81 @@ public class EntityPool<T> {
         System.out.println("Available permits: " + entityPermits.availablePermits());
     }
 
-    // Inner class to track checkout information
-    private static class CheckoutInfo {
-        final long checkoutTime;
-        final String threadName;
-        final StackTraceElement[] stackTrace;
+    /**
+     * Background release of the entities of a pool closed in drain mode.
+     */
+    private final class Drain {
+        private final ScheduledThreadPoolExecutor executor;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Drain(int parallelism) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = new ScheduledThreadPoolExecutor(parallelism, r -> {
+                Thread t = new Thread(r, "EntityPool-Drain-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            future.whenComplete((result, e) -> executor.shutdown());
+        }
+
+        /**
+         * @return false if the drain is over
+         */
+        private boolean submit(T entity) {
+            try {
+                executor.execute(() -> {
+                    doRelease(entity, "draining pool");
+                    decrementCurrentSize();
+                    completeIfDrained();
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        private void start(long drainTimeout) {
+            executor.schedule(() -> future.completeExceptionally(new TimeoutException(String.format(
+                    "%d entities not returned to the pool within the drain timeout of %d ms, they'll be released on return",
+                    getCurrentSize(), drainTimeout))), Math.max(drainTimeout, 0L), TimeUnit.MILLISECONDS);
+            completeIfDrained();
+        }
+
+        private void completeIfDrained() {
+            if (getCurrentSize() == 0 && future.complete(null)) {
+                log.info("pool drained");
+            }
+        }
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+
+    /**
+     * Pool side state of an entity, kept from its creation until it is released.
+     */
+    private static final class EntityState {
+        /**
+         * sequence number of the entity in this pool, identifies it in traces
+         */
+        final int id;
+        final long generation;
+        volatile long checkoutTime;
         volatile boolean leakReported;
 
-        CheckoutInfo() {
-            this.checkoutTime = System.currentTimeMillis();
-            this.threadName = Thread.currentThread().getName();
-            this.stackTrace = Thread.currentThread().getStackTrace();
-            this.leakReported = false;
+        EntityState(int id, long generation) {
+            this.id = id;
+            this.generation = generation;
         }
     }
 
@@ -407,6 +841,7 @@ public class EntityPool<T> {
         private EntityFactory<T> factory;
         private boolean parallelCreation;
         private EntityReleaser<? super T> releaser = new NoOpEntityReleaser<>();
+        private long softEvictionPeriod = DEFAULT_SOFT_EVICTION_PERIOD;
 
         private EntityPoolBuilder() {
         }
@@ -450,19 +885,37 @@ public class EntityPool<T> {
             return this;
         }
 
+        /**
+         * @param softEvictionPeriod ms over which the entities are released after {@link EntityPool#softEvictAll()}
+         */
+        public EntityPoolBuilder<T> softEvictionPeriod(long softEvictionPeriod) {
+            if (softEvictionPeriod < 0L) {
+                throw new IllegalArgumentException(String.format("Invalid soft eviction period: %d. the value should not be negative", softEvictionPeriod));
+            }
+            this.softEvictionPeriod = softEvictionPeriod;
+            return this;
+        }
+
         public EntityPoolBuilder<T> parrelCreation(boolean parallelCreation) {
             this.parallelCreation = parallelCreation;
             return this;
         }
 
-        public EntityPoolBuilder<T> addCheckers(EntityChecker<? super T>... checkers) {
-            this.checkers.addAll(Arrays.asList(checkers));
+        @SafeVarargs
+        public final EntityPoolBuilder<T> addCheckers(EntityChecker<? super T>... checkers) {
+            for (EntityChecker<? super T> checker : checkers) {
+                this.checkers.add(checker);
+            }
             return this;
         }
 
-        public EntityPoolBuilder<T> setCheckers(EntityChecker<? super T>... checkers) {
+        @SafeVarargs
+        public final EntityPoolBuilder<T> setCheckers(EntityChecker<? super T>... checkers) {
             this.checkers.clear();
-            return this.addCheckers(checkers);
+            for (EntityChecker<? super T> checker : checkers) {
+                this.checkers.add(checker);
+            }
+            return this;
         }
 
         public EntityPool<T> build() {
@@ -475,8 +928,10 @@ public class EntityPool<T> {
                     log.error("Initial pool size {} is greater than max pool size {}. Max pool size value will be used instead. check config", this.initialSize, this.maxSize);
                     this.initialSize = this.maxSize;
                 }
-                return new EntityPool<>(checkers, factory, releaser, parallelCreation,
+                EntityPool<T> pool = new EntityPool<>(checkers, factory, releaser, parallelCreation,
                         maxSize, prioritySize, defaultCheckoutTimeout, initialSize);
+                pool.setSoftEvictionPeriod(softEvictionPeriod);
+                return pool;
             }
         }
     }
@@ -2,6 +2,7 @@ import java.util.concurrent.Callable;
 
 public class EntityPoolContext {
     private static final ThreadLocal<Boolean> prioritized = ThreadLocal.withInitial(()-> Boolean.FALSE);
+    private static final ThreadLocal<long[]> initializationTime = ThreadLocal.withInitial(() -> new long[1]);
     private EntityPoolContext(){}
     public static Boolean isPrioritized(){
         return prioritized.get();
@@ -12,6 +13,24 @@ public class EntityPoolContext {
             return null;
         });
     }
+    /**
+     * Called by an entity factory on the creating thread to report the part of the creation
+     * spent initializing the entity, which the pool times apart from the creation.
+     */
+    public static void recordInitialization(long nanos){
+        initializationTime.get()[0] += nanos;
+    }
+
+    /**
+     * @return the initialization time reported on this thread since the last call
+     */
+    static long takeInitializationTime(){
+        long[] time = initializationTime.get();
+        long nanos = time[0];
+        time[0] = 0L;
+        return nanos;
+    }
+
     public static <T> T execPrioritized(Callable<T> callable){
         T result = null;
         boolean isNested = prioritized.get();
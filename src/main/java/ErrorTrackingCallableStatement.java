@@ -0,0 +1,1958 @@
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.*;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * Marks the pool connection as failed when any call of the statement throws
+ * a {@link SQLException}, see {@link ErrorTrackingStatement}.
+ */
+class ErrorTrackingCallableStatement extends DelegatingCallableStatementAdapter implements OpenStatements.Tracked {
+    private final PoolConnectionImpl connection;
+    private int trackingIndex = -1;
+    private boolean closed;
+
+    ErrorTrackingCallableStatement(CallableStatement statement, PoolConnectionImpl connection) {
+        super(statement);
+        this.connection = connection;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        try {
+            return super.executeQuery();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        try {
+            return super.executeUpdate();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        try {
+            super.setNull(parameterIndex, sqlType);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        try {
+            super.setBoolean(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        try {
+            super.setByte(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        try {
+            super.setShort(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        try {
+            super.setInt(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        try {
+            super.setLong(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        try {
+            super.setFloat(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        try {
+            super.setDouble(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        try {
+            super.setBigDecimal(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        try {
+            super.setString(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        try {
+            super.setBytes(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x) throws SQLException {
+        try {
+            super.setDate(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x) throws SQLException {
+        try {
+            super.setTime(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        try {
+            super.setTimestamp(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        try {
+            super.setAsciiStream(parameterIndex, x, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        try {
+            super.setUnicodeStream(parameterIndex, x, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        try {
+            super.setBinaryStream(parameterIndex, x, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        try {
+            super.clearParameters();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        try {
+            super.setObject(parameterIndex, x, targetSqlType);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        try {
+            super.setObject(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        try {
+            return super.execute();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        try {
+            super.addBatch();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+        try {
+            super.setCharacterStream(parameterIndex, reader, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setRef(int parameterIndex, Ref x) throws SQLException {
+        try {
+            super.setRef(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        try {
+            super.setBlob(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Clob x) throws SQLException {
+        try {
+            super.setClob(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setArray(int parameterIndex, Array x) throws SQLException {
+        try {
+            super.setArray(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        try {
+            return super.getMetaData();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+        try {
+            super.setDate(parameterIndex, x, cal);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+        try {
+            super.setTime(parameterIndex, x, cal);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        try {
+            super.setTimestamp(parameterIndex, x, cal);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        try {
+            super.setNull(parameterIndex, sqlType, typeName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setURL(int parameterIndex, URL x) throws SQLException {
+        try {
+            super.setURL(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        try {
+            return super.getParameterMetaData();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        try {
+            super.setRowId(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNString(int parameterIndex, String value) throws SQLException {
+        try {
+            super.setNString(parameterIndex, value);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+        try {
+            super.setNCharacterStream(parameterIndex, value, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, NClob value) throws SQLException {
+        try {
+            super.setNClob(parameterIndex, value);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        try {
+            super.setClob(parameterIndex, reader, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+        try {
+            super.setBlob(parameterIndex, inputStream, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        try {
+            super.setNClob(parameterIndex, reader, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+        try {
+            super.setSQLXML(parameterIndex, xmlObject);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        try {
+            super.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        try {
+            super.setAsciiStream(parameterIndex, x, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        try {
+            super.setBinaryStream(parameterIndex, x, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+        try {
+            super.setCharacterStream(parameterIndex, reader, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+        try {
+            super.setAsciiStream(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+        try {
+            super.setBinaryStream(parameterIndex, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        try {
+            super.setCharacterStream(parameterIndex, reader);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+        try {
+            super.setNCharacterStream(parameterIndex, value);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader) throws SQLException {
+        try {
+            super.setClob(parameterIndex, reader);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+        try {
+            super.setBlob(parameterIndex, inputStream);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+        try {
+            super.setNClob(parameterIndex, reader);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        try {
+            return super.executeQuery(sql);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        try {
+            return super.executeUpdate(sql);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getTrackingIndex() {
+        return trackingIndex;
+    }
+
+    @Override
+    public void setTrackingIndex(int index) {
+        this.trackingIndex = index;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        try {
+            super.close();
+            closed = true;
+            connection.statementClosed(this);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        try {
+            return super.getMaxFieldSize();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        try {
+            super.setMaxFieldSize(max);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        try {
+            return super.getMaxRows();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        try {
+            super.setMaxRows(max);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        try {
+            super.setEscapeProcessing(enable);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        try {
+            return super.getQueryTimeout();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        try {
+            super.setQueryTimeout(seconds);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        try {
+            super.cancel();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        try {
+            return super.getWarnings();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        try {
+            super.clearWarnings();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        try {
+            super.setCursorName(name);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        try {
+            return super.execute(sql);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        try {
+            return super.getResultSet();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        try {
+            return super.getUpdateCount();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        try {
+            return super.getMoreResults();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        try {
+            return super.getFetchDirection();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        try {
+            super.setFetchDirection(direction);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        try {
+            return super.getFetchSize();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        try {
+            super.setFetchSize(rows);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        try {
+            return super.getResultSetConcurrency();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        try {
+            return super.getResultSetType();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        try {
+            super.addBatch(sql);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        try {
+            super.clearBatch();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        try {
+            return super.executeBatch();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        try {
+            return super.getConnection();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        try {
+            return super.getMoreResults(current);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        try {
+            return super.getGeneratedKeys();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        try {
+            return super.executeUpdate(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        try {
+            return super.executeUpdate(sql, columnIndexes);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        try {
+            return super.executeUpdate(sql, columnNames);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        try {
+            return super.execute(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        try {
+            return super.execute(sql, columnIndexes);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        try {
+            return super.execute(sql, columnNames);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        try {
+            return super.getResultSetHoldability();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        if (closed) {
+            return true;
+        }
+        try {
+            return super.isClosed();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        try {
+            return super.isPoolable();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        try {
+            super.setPoolable(poolable);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        try {
+            super.closeOnCompletion();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        try {
+            return super.isCloseOnCompletion();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        try {
+            return super.unwrap(iface);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        try {
+            return super.isWrapperFor(iface);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, int sqlType) throws SQLException {
+        try {
+            super.registerOutParameter(parameterIndex, sqlType);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, int sqlType, int scale) throws SQLException {
+        try {
+            super.registerOutParameter(parameterIndex, sqlType, scale);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean wasNull() throws SQLException {
+        try {
+            return super.wasNull();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getString(int parameterIndex) throws SQLException {
+        try {
+            return super.getString(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean getBoolean(int parameterIndex) throws SQLException {
+        try {
+            return super.getBoolean(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public byte getByte(int parameterIndex) throws SQLException {
+        try {
+            return super.getByte(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public short getShort(int parameterIndex) throws SQLException {
+        try {
+            return super.getShort(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getInt(int parameterIndex) throws SQLException {
+        try {
+            return super.getInt(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public long getLong(int parameterIndex) throws SQLException {
+        try {
+            return super.getLong(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public float getFloat(int parameterIndex) throws SQLException {
+        try {
+            return super.getFloat(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public double getDouble(int parameterIndex) throws SQLException {
+        try {
+            return super.getDouble(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException {
+        try {
+            return super.getBigDecimal(parameterIndex, scale);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public byte[] getBytes(int parameterIndex) throws SQLException {
+        try {
+            return super.getBytes(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Date getDate(int parameterIndex) throws SQLException {
+        try {
+            return super.getDate(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Time getTime(int parameterIndex) throws SQLException {
+        try {
+            return super.getTime(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Timestamp getTimestamp(int parameterIndex) throws SQLException {
+        try {
+            return super.getTimestamp(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Object getObject(int parameterIndex) throws SQLException {
+        try {
+            return super.getObject(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int parameterIndex) throws SQLException {
+        try {
+            return super.getBigDecimal(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Object getObject(int parameterIndex, Map<String, Class<?>> map) throws SQLException {
+        try {
+            return super.getObject(parameterIndex, map);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Ref getRef(int parameterIndex) throws SQLException {
+        try {
+            return super.getRef(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Blob getBlob(int parameterIndex) throws SQLException {
+        try {
+            return super.getBlob(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Clob getClob(int parameterIndex) throws SQLException {
+        try {
+            return super.getClob(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Array getArray(int parameterIndex) throws SQLException {
+        try {
+            return super.getArray(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Date getDate(int parameterIndex, Calendar cal) throws SQLException {
+        try {
+            return super.getDate(parameterIndex, cal);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Time getTime(int parameterIndex, Calendar cal) throws SQLException {
+        try {
+            return super.getTime(parameterIndex, cal);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Timestamp getTimestamp(int parameterIndex, Calendar cal) throws SQLException {
+        try {
+            return super.getTimestamp(parameterIndex, cal);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        try {
+            super.registerOutParameter(parameterIndex, sqlType, typeName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, int sqlType) throws SQLException {
+        try {
+            super.registerOutParameter(parameterName, sqlType);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, int sqlType, int scale) throws SQLException {
+        try {
+            super.registerOutParameter(parameterName, sqlType, scale);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, int sqlType, String typeName) throws SQLException {
+        try {
+            super.registerOutParameter(parameterName, sqlType, typeName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public URL getURL(int parameterIndex) throws SQLException {
+        try {
+            return super.getURL(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setURL(String parameterName, URL val) throws SQLException {
+        try {
+            super.setURL(parameterName, val);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNull(String parameterName, int sqlType) throws SQLException {
+        try {
+            super.setNull(parameterName, sqlType);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBoolean(String parameterName, boolean x) throws SQLException {
+        try {
+            super.setBoolean(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setByte(String parameterName, byte x) throws SQLException {
+        try {
+            super.setByte(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setShort(String parameterName, short x) throws SQLException {
+        try {
+            super.setShort(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setInt(String parameterName, int x) throws SQLException {
+        try {
+            super.setInt(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setLong(String parameterName, long x) throws SQLException {
+        try {
+            super.setLong(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setFloat(String parameterName, float x) throws SQLException {
+        try {
+            super.setFloat(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setDouble(String parameterName, double x) throws SQLException {
+        try {
+            super.setDouble(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBigDecimal(String parameterName, BigDecimal x) throws SQLException {
+        try {
+            super.setBigDecimal(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setString(String parameterName, String x) throws SQLException {
+        try {
+            super.setString(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBytes(String parameterName, byte[] x) throws SQLException {
+        try {
+            super.setBytes(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setDate(String parameterName, Date x) throws SQLException {
+        try {
+            super.setDate(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setTime(String parameterName, Time x) throws SQLException {
+        try {
+            super.setTime(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setTimestamp(String parameterName, Timestamp x) throws SQLException {
+        try {
+            super.setTimestamp(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setAsciiStream(String parameterName, InputStream x, int length) throws SQLException {
+        try {
+            super.setAsciiStream(parameterName, x, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBinaryStream(String parameterName, InputStream x, int length) throws SQLException {
+        try {
+            super.setBinaryStream(parameterName, x, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x, int targetSqlType, int scale) throws SQLException {
+        try {
+            super.setObject(parameterName, x, targetSqlType, scale);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x, int targetSqlType) throws SQLException {
+        try {
+            super.setObject(parameterName, x, targetSqlType);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x) throws SQLException {
+        try {
+            super.setObject(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setCharacterStream(String parameterName, Reader reader, int length) throws SQLException {
+        try {
+            super.setCharacterStream(parameterName, reader, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setDate(String parameterName, Date x, Calendar cal) throws SQLException {
+        try {
+            super.setDate(parameterName, x, cal);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setTime(String parameterName, Time x, Calendar cal) throws SQLException {
+        try {
+            super.setTime(parameterName, x, cal);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setTimestamp(String parameterName, Timestamp x, Calendar cal) throws SQLException {
+        try {
+            super.setTimestamp(parameterName, x, cal);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNull(String parameterName, int sqlType, String typeName) throws SQLException {
+        try {
+            super.setNull(parameterName, sqlType, typeName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getString(String parameterName) throws SQLException {
+        try {
+            return super.getString(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean getBoolean(String parameterName) throws SQLException {
+        try {
+            return super.getBoolean(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public byte getByte(String parameterName) throws SQLException {
+        try {
+            return super.getByte(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public short getShort(String parameterName) throws SQLException {
+        try {
+            return super.getShort(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getInt(String parameterName) throws SQLException {
+        try {
+            return super.getInt(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public long getLong(String parameterName) throws SQLException {
+        try {
+            return super.getLong(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public float getFloat(String parameterName) throws SQLException {
+        try {
+            return super.getFloat(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public double getDouble(String parameterName) throws SQLException {
+        try {
+            return super.getDouble(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public byte[] getBytes(String parameterName) throws SQLException {
+        try {
+            return super.getBytes(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Date getDate(String parameterName) throws SQLException {
+        try {
+            return super.getDate(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Time getTime(String parameterName) throws SQLException {
+        try {
+            return super.getTime(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Timestamp getTimestamp(String parameterName) throws SQLException {
+        try {
+            return super.getTimestamp(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Object getObject(String parameterName) throws SQLException {
+        try {
+            return super.getObject(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String parameterName) throws SQLException {
+        try {
+            return super.getBigDecimal(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Object getObject(String parameterName, Map<String, Class<?>> map) throws SQLException {
+        try {
+            return super.getObject(parameterName, map);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Ref getRef(String parameterName) throws SQLException {
+        try {
+            return super.getRef(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Blob getBlob(String parameterName) throws SQLException {
+        try {
+            return super.getBlob(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Clob getClob(String parameterName) throws SQLException {
+        try {
+            return super.getClob(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Array getArray(String parameterName) throws SQLException {
+        try {
+            return super.getArray(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Date getDate(String parameterName, Calendar cal) throws SQLException {
+        try {
+            return super.getDate(parameterName, cal);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Time getTime(String parameterName, Calendar cal) throws SQLException {
+        try {
+            return super.getTime(parameterName, cal);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Timestamp getTimestamp(String parameterName, Calendar cal) throws SQLException {
+        try {
+            return super.getTimestamp(parameterName, cal);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public URL getURL(String parameterName) throws SQLException {
+        try {
+            return super.getURL(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public RowId getRowId(int parameterIndex) throws SQLException {
+        try {
+            return super.getRowId(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public RowId getRowId(String parameterName) throws SQLException {
+        try {
+            return super.getRowId(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setRowId(String parameterName, RowId x) throws SQLException {
+        try {
+            super.setRowId(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNString(String parameterName, String value) throws SQLException {
+        try {
+            super.setNString(parameterName, value);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNCharacterStream(String parameterName, Reader value, long length) throws SQLException {
+        try {
+            super.setNCharacterStream(parameterName, value, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNClob(String parameterName, NClob value) throws SQLException {
+        try {
+            super.setNClob(parameterName, value);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setClob(String parameterName, Reader reader, long length) throws SQLException {
+        try {
+            super.setClob(parameterName, reader, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBlob(String parameterName, InputStream inputStream, long length) throws SQLException {
+        try {
+            super.setBlob(parameterName, inputStream, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNClob(String parameterName, Reader reader, long length) throws SQLException {
+        try {
+            super.setNClob(parameterName, reader, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public NClob getNClob(int parameterIndex) throws SQLException {
+        try {
+            return super.getNClob(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public NClob getNClob(String parameterName) throws SQLException {
+        try {
+            return super.getNClob(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setSQLXML(String parameterName, SQLXML xmlObject) throws SQLException {
+        try {
+            super.setSQLXML(parameterName, xmlObject);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public SQLXML getSQLXML(int parameterIndex) throws SQLException {
+        try {
+            return super.getSQLXML(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public SQLXML getSQLXML(String parameterName) throws SQLException {
+        try {
+            return super.getSQLXML(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getNString(int parameterIndex) throws SQLException {
+        try {
+            return super.getNString(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getNString(String parameterName) throws SQLException {
+        try {
+            return super.getNString(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Reader getNCharacterStream(int parameterIndex) throws SQLException {
+        try {
+            return super.getNCharacterStream(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Reader getNCharacterStream(String parameterName) throws SQLException {
+        try {
+            return super.getNCharacterStream(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Reader getCharacterStream(int parameterIndex) throws SQLException {
+        try {
+            return super.getCharacterStream(parameterIndex);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Reader getCharacterStream(String parameterName) throws SQLException {
+        try {
+            return super.getCharacterStream(parameterName);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBlob(String parameterName, Blob x) throws SQLException {
+        try {
+            super.setBlob(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setClob(String parameterName, Clob x) throws SQLException {
+        try {
+            super.setClob(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setAsciiStream(String parameterName, InputStream x, long length) throws SQLException {
+        try {
+            super.setAsciiStream(parameterName, x, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBinaryStream(String parameterName, InputStream x, long length) throws SQLException {
+        try {
+            super.setBinaryStream(parameterName, x, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setCharacterStream(String parameterName, Reader reader, long length) throws SQLException {
+        try {
+            super.setCharacterStream(parameterName, reader, length);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setAsciiStream(String parameterName, InputStream x) throws SQLException {
+        try {
+            super.setAsciiStream(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBinaryStream(String parameterName, InputStream x) throws SQLException {
+        try {
+            super.setBinaryStream(parameterName, x);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setCharacterStream(String parameterName, Reader reader) throws SQLException {
+        try {
+            super.setCharacterStream(parameterName, reader);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNCharacterStream(String parameterName, Reader value) throws SQLException {
+        try {
+            super.setNCharacterStream(parameterName, value);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setClob(String parameterName, Reader reader) throws SQLException {
+        try {
+            super.setClob(parameterName, reader);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setBlob(String parameterName, InputStream inputStream) throws SQLException {
+        try {
+            super.setBlob(parameterName, inputStream);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setNClob(String parameterName, Reader reader) throws SQLException {
+        try {
+            super.setNClob(parameterName, reader);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException {
+        try {
+            return super.getObject(parameterIndex, type);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public <T> T getObject(String parameterName, Class<T> type) throws SQLException {
+        try {
+            return super.getObject(parameterName, type);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    /**
+     * Fails the calls after close: a cached statement under this one may be used by another borrower by then.
+     */
+    @Override
+    protected void doActionBeforeEachMethod() throws SQLException {
+        if (closed) {
+            throw new StatementClosedException();
+        }
+    }
+}
@@ -0,0 +1,1591 @@
+import java.sql.*;
+
+/**
+ * Marks the pool connection as failed when any call of the metadata throws
+ * a {@link SQLException}, see {@link ErrorTrackingStatement}.
+ */
+class ErrorTrackingDatabaseMetaData implements DatabaseMetaData {
+    private final DatabaseMetaData metaData;
+    private final PoolConnectionImpl connection;
+
+    ErrorTrackingDatabaseMetaData(DatabaseMetaData metaData, PoolConnectionImpl connection) {
+        this.metaData = metaData;
+        this.connection = connection;
+    }
+
+    @Override
+    public boolean allProceduresAreCallable() throws SQLException {
+        try {
+            return metaData.allProceduresAreCallable();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean allTablesAreSelectable() throws SQLException {
+        try {
+            return metaData.allTablesAreSelectable();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getURL() throws SQLException {
+        try {
+            return metaData.getURL();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getUserName() throws SQLException {
+        try {
+            return metaData.getUserName();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        try {
+            return metaData.isReadOnly();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean nullsAreSortedHigh() throws SQLException {
+        try {
+            return metaData.nullsAreSortedHigh();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean nullsAreSortedLow() throws SQLException {
+        try {
+            return metaData.nullsAreSortedLow();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean nullsAreSortedAtStart() throws SQLException {
+        try {
+            return metaData.nullsAreSortedAtStart();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean nullsAreSortedAtEnd() throws SQLException {
+        try {
+            return metaData.nullsAreSortedAtEnd();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getDatabaseProductName() throws SQLException {
+        try {
+            return metaData.getDatabaseProductName();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getDatabaseProductVersion() throws SQLException {
+        try {
+            return metaData.getDatabaseProductVersion();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getDriverName() throws SQLException {
+        try {
+            return metaData.getDriverName();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getDriverVersion() throws SQLException {
+        try {
+            return metaData.getDriverVersion();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getDriverMajorVersion() {
+        return metaData.getDriverMajorVersion();
+    }
+
+    @Override
+    public int getDriverMinorVersion() {
+        return metaData.getDriverMinorVersion();
+    }
+
+    @Override
+    public boolean usesLocalFiles() throws SQLException {
+        try {
+            return metaData.usesLocalFiles();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean usesLocalFilePerTable() throws SQLException {
+        try {
+            return metaData.usesLocalFilePerTable();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsMixedCaseIdentifiers() throws SQLException {
+        try {
+            return metaData.supportsMixedCaseIdentifiers();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean storesUpperCaseIdentifiers() throws SQLException {
+        try {
+            return metaData.storesUpperCaseIdentifiers();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean storesLowerCaseIdentifiers() throws SQLException {
+        try {
+            return metaData.storesLowerCaseIdentifiers();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean storesMixedCaseIdentifiers() throws SQLException {
+        try {
+            return metaData.storesMixedCaseIdentifiers();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsMixedCaseQuotedIdentifiers() throws SQLException {
+        try {
+            return metaData.supportsMixedCaseQuotedIdentifiers();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean storesUpperCaseQuotedIdentifiers() throws SQLException {
+        try {
+            return metaData.storesUpperCaseQuotedIdentifiers();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean storesLowerCaseQuotedIdentifiers() throws SQLException {
+        try {
+            return metaData.storesLowerCaseQuotedIdentifiers();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean storesMixedCaseQuotedIdentifiers() throws SQLException {
+        try {
+            return metaData.storesMixedCaseQuotedIdentifiers();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getIdentifierQuoteString() throws SQLException {
+        try {
+            return metaData.getIdentifierQuoteString();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getSQLKeywords() throws SQLException {
+        try {
+            return metaData.getSQLKeywords();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getNumericFunctions() throws SQLException {
+        try {
+            return metaData.getNumericFunctions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getStringFunctions() throws SQLException {
+        try {
+            return metaData.getStringFunctions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getSystemFunctions() throws SQLException {
+        try {
+            return metaData.getSystemFunctions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getTimeDateFunctions() throws SQLException {
+        try {
+            return metaData.getTimeDateFunctions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getSearchStringEscape() throws SQLException {
+        try {
+            return metaData.getSearchStringEscape();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getExtraNameCharacters() throws SQLException {
+        try {
+            return metaData.getExtraNameCharacters();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsAlterTableWithAddColumn() throws SQLException {
+        try {
+            return metaData.supportsAlterTableWithAddColumn();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsAlterTableWithDropColumn() throws SQLException {
+        try {
+            return metaData.supportsAlterTableWithDropColumn();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsColumnAliasing() throws SQLException {
+        try {
+            return metaData.supportsColumnAliasing();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean nullPlusNonNullIsNull() throws SQLException {
+        try {
+            return metaData.nullPlusNonNullIsNull();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsConvert() throws SQLException {
+        try {
+            return metaData.supportsConvert();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsConvert(int fromType, int toType) throws SQLException {
+        try {
+            return metaData.supportsConvert(fromType, toType);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsTableCorrelationNames() throws SQLException {
+        try {
+            return metaData.supportsTableCorrelationNames();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsDifferentTableCorrelationNames() throws SQLException {
+        try {
+            return metaData.supportsDifferentTableCorrelationNames();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsExpressionsInOrderBy() throws SQLException {
+        try {
+            return metaData.supportsExpressionsInOrderBy();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsOrderByUnrelated() throws SQLException {
+        try {
+            return metaData.supportsOrderByUnrelated();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsGroupBy() throws SQLException {
+        try {
+            return metaData.supportsGroupBy();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsGroupByUnrelated() throws SQLException {
+        try {
+            return metaData.supportsGroupByUnrelated();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsGroupByBeyondSelect() throws SQLException {
+        try {
+            return metaData.supportsGroupByBeyondSelect();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsLikeEscapeClause() throws SQLException {
+        try {
+            return metaData.supportsLikeEscapeClause();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsMultipleResultSets() throws SQLException {
+        try {
+            return metaData.supportsMultipleResultSets();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsMultipleTransactions() throws SQLException {
+        try {
+            return metaData.supportsMultipleTransactions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsNonNullableColumns() throws SQLException {
+        try {
+            return metaData.supportsNonNullableColumns();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsMinimumSQLGrammar() throws SQLException {
+        try {
+            return metaData.supportsMinimumSQLGrammar();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsCoreSQLGrammar() throws SQLException {
+        try {
+            return metaData.supportsCoreSQLGrammar();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsExtendedSQLGrammar() throws SQLException {
+        try {
+            return metaData.supportsExtendedSQLGrammar();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsANSI92EntryLevelSQL() throws SQLException {
+        try {
+            return metaData.supportsANSI92EntryLevelSQL();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsANSI92IntermediateSQL() throws SQLException {
+        try {
+            return metaData.supportsANSI92IntermediateSQL();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsANSI92FullSQL() throws SQLException {
+        try {
+            return metaData.supportsANSI92FullSQL();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsIntegrityEnhancementFacility() throws SQLException {
+        try {
+            return metaData.supportsIntegrityEnhancementFacility();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsOuterJoins() throws SQLException {
+        try {
+            return metaData.supportsOuterJoins();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsFullOuterJoins() throws SQLException {
+        try {
+            return metaData.supportsFullOuterJoins();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsLimitedOuterJoins() throws SQLException {
+        try {
+            return metaData.supportsLimitedOuterJoins();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getSchemaTerm() throws SQLException {
+        try {
+            return metaData.getSchemaTerm();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getProcedureTerm() throws SQLException {
+        try {
+            return metaData.getProcedureTerm();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getCatalogTerm() throws SQLException {
+        try {
+            return metaData.getCatalogTerm();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean isCatalogAtStart() throws SQLException {
+        try {
+            return metaData.isCatalogAtStart();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public String getCatalogSeparator() throws SQLException {
+        try {
+            return metaData.getCatalogSeparator();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSchemasInDataManipulation() throws SQLException {
+        try {
+            return metaData.supportsSchemasInDataManipulation();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSchemasInProcedureCalls() throws SQLException {
+        try {
+            return metaData.supportsSchemasInProcedureCalls();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSchemasInTableDefinitions() throws SQLException {
+        try {
+            return metaData.supportsSchemasInTableDefinitions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSchemasInIndexDefinitions() throws SQLException {
+        try {
+            return metaData.supportsSchemasInIndexDefinitions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSchemasInPrivilegeDefinitions() throws SQLException {
+        try {
+            return metaData.supportsSchemasInPrivilegeDefinitions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsCatalogsInDataManipulation() throws SQLException {
+        try {
+            return metaData.supportsCatalogsInDataManipulation();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsCatalogsInProcedureCalls() throws SQLException {
+        try {
+            return metaData.supportsCatalogsInProcedureCalls();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsCatalogsInTableDefinitions() throws SQLException {
+        try {
+            return metaData.supportsCatalogsInTableDefinitions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsCatalogsInIndexDefinitions() throws SQLException {
+        try {
+            return metaData.supportsCatalogsInIndexDefinitions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsCatalogsInPrivilegeDefinitions() throws SQLException {
+        try {
+            return metaData.supportsCatalogsInPrivilegeDefinitions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsPositionedDelete() throws SQLException {
+        try {
+            return metaData.supportsPositionedDelete();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsPositionedUpdate() throws SQLException {
+        try {
+            return metaData.supportsPositionedUpdate();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSelectForUpdate() throws SQLException {
+        try {
+            return metaData.supportsSelectForUpdate();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsStoredProcedures() throws SQLException {
+        try {
+            return metaData.supportsStoredProcedures();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSubqueriesInComparisons() throws SQLException {
+        try {
+            return metaData.supportsSubqueriesInComparisons();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSubqueriesInExists() throws SQLException {
+        try {
+            return metaData.supportsSubqueriesInExists();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSubqueriesInIns() throws SQLException {
+        try {
+            return metaData.supportsSubqueriesInIns();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSubqueriesInQuantifieds() throws SQLException {
+        try {
+            return metaData.supportsSubqueriesInQuantifieds();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsCorrelatedSubqueries() throws SQLException {
+        try {
+            return metaData.supportsCorrelatedSubqueries();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsUnion() throws SQLException {
+        try {
+            return metaData.supportsUnion();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsUnionAll() throws SQLException {
+        try {
+            return metaData.supportsUnionAll();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsOpenCursorsAcrossCommit() throws SQLException {
+        try {
+            return metaData.supportsOpenCursorsAcrossCommit();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsOpenCursorsAcrossRollback() throws SQLException {
+        try {
+            return metaData.supportsOpenCursorsAcrossRollback();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsOpenStatementsAcrossCommit() throws SQLException {
+        try {
+            return metaData.supportsOpenStatementsAcrossCommit();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsOpenStatementsAcrossRollback() throws SQLException {
+        try {
+            return metaData.supportsOpenStatementsAcrossRollback();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxBinaryLiteralLength() throws SQLException {
+        try {
+            return metaData.getMaxBinaryLiteralLength();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxCharLiteralLength() throws SQLException {
+        try {
+            return metaData.getMaxCharLiteralLength();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxColumnNameLength() throws SQLException {
+        try {
+            return metaData.getMaxColumnNameLength();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxColumnsInGroupBy() throws SQLException {
+        try {
+            return metaData.getMaxColumnsInGroupBy();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxColumnsInIndex() throws SQLException {
+        try {
+            return metaData.getMaxColumnsInIndex();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxColumnsInOrderBy() throws SQLException {
+        try {
+            return metaData.getMaxColumnsInOrderBy();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxColumnsInSelect() throws SQLException {
+        try {
+            return metaData.getMaxColumnsInSelect();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxColumnsInTable() throws SQLException {
+        try {
+            return metaData.getMaxColumnsInTable();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxConnections() throws SQLException {
+        try {
+            return metaData.getMaxConnections();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxCursorNameLength() throws SQLException {
+        try {
+            return metaData.getMaxCursorNameLength();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxIndexLength() throws SQLException {
+        try {
+            return metaData.getMaxIndexLength();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxSchemaNameLength() throws SQLException {
+        try {
+            return metaData.getMaxSchemaNameLength();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxProcedureNameLength() throws SQLException {
+        try {
+            return metaData.getMaxProcedureNameLength();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxCatalogNameLength() throws SQLException {
+        try {
+            return metaData.getMaxCatalogNameLength();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxRowSize() throws SQLException {
+        try {
+            return metaData.getMaxRowSize();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean doesMaxRowSizeIncludeBlobs() throws SQLException {
+        try {
+            return metaData.doesMaxRowSizeIncludeBlobs();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxStatementLength() throws SQLException {
+        try {
+            return metaData.getMaxStatementLength();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxStatements() throws SQLException {
+        try {
+            return metaData.getMaxStatements();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxTableNameLength() throws SQLException {
+        try {
+            return metaData.getMaxTableNameLength();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxTablesInSelect() throws SQLException {
+        try {
+            return metaData.getMaxTablesInSelect();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxUserNameLength() throws SQLException {
+        try {
+            return metaData.getMaxUserNameLength();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getDefaultTransactionIsolation() throws SQLException {
+        try {
+            return metaData.getDefaultTransactionIsolation();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsTransactions() throws SQLException {
+        try {
+            return metaData.supportsTransactions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsTransactionIsolationLevel(int level) throws SQLException {
+        try {
+            return metaData.supportsTransactionIsolationLevel(level);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsDataDefinitionAndDataManipulationTransactions() throws SQLException {
+        try {
+            return metaData.supportsDataDefinitionAndDataManipulationTransactions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsDataManipulationTransactionsOnly() throws SQLException {
+        try {
+            return metaData.supportsDataManipulationTransactionsOnly();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean dataDefinitionCausesTransactionCommit() throws SQLException {
+        try {
+            return metaData.dataDefinitionCausesTransactionCommit();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean dataDefinitionIgnoredInTransactions() throws SQLException {
+        try {
+            return metaData.dataDefinitionIgnoredInTransactions();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getProcedures(String catalog, String schemaPattern, String procedureNamePattern) throws SQLException {
+        try {
+            return metaData.getProcedures(catalog, schemaPattern, procedureNamePattern);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getProcedureColumns(String catalog, String schemaPattern, String procedureNamePattern, String columnNamePattern) throws SQLException {
+        try {
+            return metaData.getProcedureColumns(catalog, schemaPattern, procedureNamePattern, columnNamePattern);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getTables(String catalog, String schemaPattern, String tableNamePattern, String[] types) throws SQLException {
+        try {
+            return metaData.getTables(catalog, schemaPattern, tableNamePattern, types);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getSchemas() throws SQLException {
+        try {
+            return metaData.getSchemas();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getCatalogs() throws SQLException {
+        try {
+            return metaData.getCatalogs();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getTableTypes() throws SQLException {
+        try {
+            return metaData.getTableTypes();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getColumns(String catalog, String schemaPattern, String tableNamePattern, String columnNamePattern) throws SQLException {
+        try {
+            return metaData.getColumns(catalog, schemaPattern, tableNamePattern, columnNamePattern);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getColumnPrivileges(String catalog, String schema, String table, String columnNamePattern) throws SQLException {
+        try {
+            return metaData.getColumnPrivileges(catalog, schema, table, columnNamePattern);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getTablePrivileges(String catalog, String schemaPattern, String tableNamePattern) throws SQLException {
+        try {
+            return metaData.getTablePrivileges(catalog, schemaPattern, tableNamePattern);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getBestRowIdentifier(String catalog, String schema, String table, int scope, boolean nullable) throws SQLException {
+        try {
+            return metaData.getBestRowIdentifier(catalog, schema, table, scope, nullable);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getVersionColumns(String catalog, String schema, String table) throws SQLException {
+        try {
+            return metaData.getVersionColumns(catalog, schema, table);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getPrimaryKeys(String catalog, String schema, String table) throws SQLException {
+        try {
+            return metaData.getPrimaryKeys(catalog, schema, table);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getImportedKeys(String catalog, String schema, String table) throws SQLException {
+        try {
+            return metaData.getImportedKeys(catalog, schema, table);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getExportedKeys(String catalog, String schema, String table) throws SQLException {
+        try {
+            return metaData.getExportedKeys(catalog, schema, table);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getCrossReference(String parentCatalog, String parentSchema, String parentTable, String foreignCatalog, String foreignSchema, String foreignTable) throws SQLException {
+        try {
+            return metaData.getCrossReference(parentCatalog, parentSchema, parentTable, foreignCatalog, foreignSchema, foreignTable);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getTypeInfo() throws SQLException {
+        try {
+            return metaData.getTypeInfo();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getIndexInfo(String catalog, String schema, String table, boolean unique, boolean approximate) throws SQLException {
+        try {
+            return metaData.getIndexInfo(catalog, schema, table, unique, approximate);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsResultSetType(int type) throws SQLException {
+        try {
+            return metaData.supportsResultSetType(type);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsResultSetConcurrency(int type, int concurrency) throws SQLException {
+        try {
+            return metaData.supportsResultSetConcurrency(type, concurrency);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean ownUpdatesAreVisible(int type) throws SQLException {
+        try {
+            return metaData.ownUpdatesAreVisible(type);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean ownDeletesAreVisible(int type) throws SQLException {
+        try {
+            return metaData.ownDeletesAreVisible(type);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean ownInsertsAreVisible(int type) throws SQLException {
+        try {
+            return metaData.ownInsertsAreVisible(type);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean othersUpdatesAreVisible(int type) throws SQLException {
+        try {
+            return metaData.othersUpdatesAreVisible(type);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean othersDeletesAreVisible(int type) throws SQLException {
+        try {
+            return metaData.othersDeletesAreVisible(type);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean othersInsertsAreVisible(int type) throws SQLException {
+        try {
+            return metaData.othersInsertsAreVisible(type);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean updatesAreDetected(int type) throws SQLException {
+        try {
+            return metaData.updatesAreDetected(type);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean deletesAreDetected(int type) throws SQLException {
+        try {
+            return metaData.deletesAreDetected(type);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean insertsAreDetected(int type) throws SQLException {
+        try {
+            return metaData.insertsAreDetected(type);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsBatchUpdates() throws SQLException {
+        try {
+            return metaData.supportsBatchUpdates();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getUDTs(String catalog, String schemaPattern, String typeNamePattern, int[] types) throws SQLException {
+        try {
+            return metaData.getUDTs(catalog, schemaPattern, typeNamePattern, types);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        try {
+            return metaData.getConnection();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSavepoints() throws SQLException {
+        try {
+            return metaData.supportsSavepoints();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsNamedParameters() throws SQLException {
+        try {
+            return metaData.supportsNamedParameters();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsMultipleOpenResults() throws SQLException {
+        try {
+            return metaData.supportsMultipleOpenResults();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsGetGeneratedKeys() throws SQLException {
+        try {
+            return metaData.supportsGetGeneratedKeys();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getSuperTypes(String catalog, String schemaPattern, String typeNamePattern) throws SQLException {
+        try {
+            return metaData.getSuperTypes(catalog, schemaPattern, typeNamePattern);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getSuperTables(String catalog, String schemaPattern, String tableNamePattern) throws SQLException {
+        try {
+            return metaData.getSuperTables(catalog, schemaPattern, tableNamePattern);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getAttributes(String catalog, String schemaPattern, String typeNamePattern, String attributeNamePattern) throws SQLException {
+        try {
+            return metaData.getAttributes(catalog, schemaPattern, typeNamePattern, attributeNamePattern);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsResultSetHoldability(int holdability) throws SQLException {
+        try {
+            return metaData.supportsResultSetHoldability(holdability);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        try {
+            return metaData.getResultSetHoldability();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getDatabaseMajorVersion() throws SQLException {
+        try {
+            return metaData.getDatabaseMajorVersion();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getDatabaseMinorVersion() throws SQLException {
+        try {
+            return metaData.getDatabaseMinorVersion();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getJDBCMajorVersion() throws SQLException {
+        try {
+            return metaData.getJDBCMajorVersion();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getJDBCMinorVersion() throws SQLException {
+        try {
+            return metaData.getJDBCMinorVersion();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getSQLStateType() throws SQLException {
+        try {
+            return metaData.getSQLStateType();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean locatorsUpdateCopy() throws SQLException {
+        try {
+            return metaData.locatorsUpdateCopy();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsStatementPooling() throws SQLException {
+        try {
+            return metaData.supportsStatementPooling();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public RowIdLifetime getRowIdLifetime() throws SQLException {
+        try {
+            return metaData.getRowIdLifetime();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getSchemas(String catalog, String schemaPattern) throws SQLException {
+        try {
+            return metaData.getSchemas(catalog, schemaPattern);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean supportsStoredFunctionsUsingCallSyntax() throws SQLException {
+        try {
+            return metaData.supportsStoredFunctionsUsingCallSyntax();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean autoCommitFailureClosesAllResultSets() throws SQLException {
+        try {
+            return metaData.autoCommitFailureClosesAllResultSets();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getClientInfoProperties() throws SQLException {
+        try {
+            return metaData.getClientInfoProperties();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getFunctions(String catalog, String schemaPattern, String functionNamePattern) throws SQLException {
+        try {
+            return metaData.getFunctions(catalog, schemaPattern, functionNamePattern);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getFunctionColumns(String catalog, String schemaPattern, String functionNamePattern, String columnNamePattern) throws SQLException {
+        try {
+            return metaData.getFunctionColumns(catalog, schemaPattern, functionNamePattern, columnNamePattern);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getPseudoColumns(String catalog, String schemaPattern, String tableNamePattern, String columnNamePattern) throws SQLException {
+        try {
+            return metaData.getPseudoColumns(catalog, schemaPattern, tableNamePattern, columnNamePattern);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean generatedKeyAlwaysReturned() throws SQLException {
+        try {
+            return metaData.generatedKeyAlwaysReturned();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        try {
+            return metaData.unwrap(iface);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        try {
+            return metaData.isWrapperFor(iface);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+}
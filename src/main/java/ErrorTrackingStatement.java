@@ -0,0 +1,422 @@
+import java.sql.*;
+
+/**
+ * Marks the pool connection as failed when any call of the statement throws
+ * a {@link SQLException}, so the connection is checked before it is reused.
+ */
+class ErrorTrackingStatement extends DelegatingStatementAdapter implements OpenStatements.Tracked {
+    private final PoolConnectionImpl connection;
+    private int trackingIndex = -1;
+
+    ErrorTrackingStatement(Statement statement, PoolConnectionImpl connection) {
+        super(statement);
+        this.connection = connection;
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        try {
+            return super.executeQuery(sql);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        try {
+            return super.executeUpdate(sql);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getTrackingIndex() {
+        return trackingIndex;
+    }
+
+    @Override
+    public void setTrackingIndex(int index) {
+        this.trackingIndex = index;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            super.close();
+            connection.statementClosed(this);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        try {
+            return super.getMaxFieldSize();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        try {
+            super.setMaxFieldSize(max);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        try {
+            return super.getMaxRows();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        try {
+            super.setMaxRows(max);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        try {
+            super.setEscapeProcessing(enable);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        try {
+            return super.getQueryTimeout();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        try {
+            super.setQueryTimeout(seconds);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        try {
+            super.cancel();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        try {
+            return super.getWarnings();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        try {
+            super.clearWarnings();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        try {
+            super.setCursorName(name);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        try {
+            return super.execute(sql);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        try {
+            return super.getResultSet();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        try {
+            return super.getUpdateCount();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        try {
+            return super.getMoreResults();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        try {
+            super.setFetchDirection(direction);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        try {
+            return super.getFetchDirection();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        try {
+            super.setFetchSize(rows);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        try {
+            return super.getFetchSize();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        try {
+            return super.getResultSetConcurrency();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        try {
+            return super.getResultSetType();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        try {
+            super.addBatch(sql);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        try {
+            super.clearBatch();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        try {
+            return super.executeBatch();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        try {
+            return super.getConnection();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        try {
+            return super.getMoreResults(current);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        try {
+            return super.getGeneratedKeys();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        try {
+            return super.executeUpdate(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        try {
+            return super.executeUpdate(sql, columnIndexes);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        try {
+            return super.executeUpdate(sql, columnNames);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        try {
+            return super.execute(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        try {
+            return super.execute(sql, columnIndexes);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        try {
+            return super.execute(sql, columnNames);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        try {
+            return super.getResultSetHoldability();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        try {
+            return super.isClosed();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        try {
+            super.setPoolable(poolable);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        try {
+            return super.isPoolable();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        try {
+            super.closeOnCompletion();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        try {
+            return super.isCloseOnCompletion();
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        try {
+            return super.unwrap(iface);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        try {
+            return super.isWrapperFor(iface);
+        } catch (SQLException e) {
+            throw connection.sqlExceptionOccurred(e);
+        }
+    }
+}
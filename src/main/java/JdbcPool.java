@@ -1,17 +1,38 @@
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.util.Collection;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 
 public class JdbcPool implements DataSource {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(JdbcPool.class);
 
     private final EntityPool<PoolConnection> pool;
-    private final Collection<ApplicationStatusProvider> statusProviders = new CopyOnWriteArrayList<>();
+    public static final long DEFAULT_APPLICATION_STATUS_POLL_PERIOD = 1000;
+
+    private final ApplicationStatus applicationStatus = new ApplicationStatus();
+    private PollingApplicationStatusAdapter statusProvidersAdapter;
+    private long applicationStatusPollPeriod = DEFAULT_APPLICATION_STATUS_POLL_PERIOD;
+    private ThreadGroup threadGroup;
     private final StatementCacheConnectionFactory statementCacheConnectionFactory;
+    private volatile Path statementCacheProfileFile;
+    private volatile int statementCacheProfileSize;
+    private final Object statementCacheProfileLock = new Object();
+    private Thread statementCacheProfileSaveThread;
+    private volatile ExecutorService statementCacheWarmup;
+    private volatile SqlProfiler sqlProfiler;
+    private JdbcPoolJmx jmx;
+    private PrometheusExporter prometheusExporter;
+    private String name;
 
     public JdbcPool(EntityPool<PoolConnection> pool)throws IllegalArgumentException {
         this(pool,null);
@@ -25,8 +46,65 @@ public class JdbcPool implements DataSource {
         this.statementCacheConnectionFactory = statementCacheConnectionFactory;
     }
     public void close(){
+        unregisterMonitoring();
+        setApplicationStatusProviders(Collections.emptyList());
+        saveFinalStatementCacheProfile();
+        stopStatementCacheWarmup();
         pool.close();
     }
+
+    /**
+     * Stops new checkouts and closes the connections in the background, {@code parallelism}
+     * at a time, waiting up to {@code drainTimeout} ms for the checked out ones to be returned.
+     * See {@link EntityPool#closeGracefully(long, int)}.
+     */
+    public CompletableFuture<Void> closeGracefully(long drainTimeout, int parallelism) {
+        unregisterMonitoring();
+        setApplicationStatusProviders(Collections.emptyList());
+        saveFinalStatementCacheProfile();
+        stopStatementCacheWarmup();
+        return pool.closeGracefully(drainTimeout, parallelism);
+    }
+
+    /**
+     * Replaces all connections, e.g. after a database failover or a credential rotation,
+     * without closing the pool. See {@link EntityPool#softEvictAll()}.
+     */
+    public void softEvictAll() {
+        pool.softEvictAll();
+    }
+
+    /**
+     * @return the totals since the pool was created: every checkout is served by an idle
+     * connection (reused) or a new one (created), the times are in ms
+     */
+    public api.EntityPoolMonitor.PoolStatistics getStatistics() {
+        PoolMetrics.Snapshot snapshot = pool.getMetrics().snapshot();
+        long created = snapshot.get(PoolMetrics.Counter.CREATIONS);
+        long checkouts = snapshot.get(PoolMetrics.Counter.CHECKOUTS);
+        long reused = Math.max(0L, checkouts - created);
+        LatencyHistogram.Snapshot create = snapshot.get(PoolMetrics.Timer.CREATE);
+        LatencyHistogram.Snapshot initialize = snapshot.get(PoolMetrics.Timer.INITIALIZE);
+        return new api.EntityPoolMonitor.PoolStatistics(
+                created,
+                reused,
+                snapshot.get(PoolMetrics.Counter.RELEASES),
+                snapshot.get(PoolMetrics.Timer.WAIT).getMean() / 1e6,
+                checkouts > 0L ? (double) reused / checkouts * 100 : 0.0,
+                snapshot.get(PoolMetrics.Counter.CREATION_FAILURES),
+                create.getMean() / 1e6,
+                create.getMax() / 1e6,
+                initialize.getMean() / 1e6,
+                initialize.getMax() / 1e6);
+    }
+
+    /**
+     * @return checkout, hold, creation, validation and release timings and counters of the pool
+     */
+    public PoolMetrics getMetrics() {
+        return pool.getMetrics();
+    }
+
     public int getPoolSize(){
         if(pool != null){
             return pool.getCurrentSize();
@@ -42,6 +120,11 @@ public class JdbcPool implements DataSource {
                 throw new SQLException("No connection are available in the connection pool");
             }
             con.grab();
+            con.setStatusEpoch(applicationStatus.getEpoch());
+            StatementCacheConnection statementCacheConnection = statementCacheConnection(con);
+            if (statementCacheConnection != null) {
+                statementCacheConnection.checkedOut();
+            }
             return con;
         }catch (InterruptedException| IllegalStateException e){
             throw new SQLException("can't retrieve jdbc connection. Reason: "+ e);
@@ -88,19 +171,236 @@ public class JdbcPool implements DataSource {
         return false;
     }
 
-    public void setApplicationStatusProviders(Collection<ApplicationStatusProvider> statusProviders){
-        this.statusProviders.clear();
-        this.statusProviders.addAll(statusProviders);
+    /**
+     * Raise a signal of this status to have returned connections validated, see {@link ApplicationStatus}.
+     */
+    public ApplicationStatus getApplicationStatus() {
+        return applicationStatus;
+    }
+
+    /**
+     * Replaces the polled providers. They are asked every {@link #setApplicationStatusPollPeriod(long) poll period}
+     * on a background thread, and an error they report is raised in {@link #getApplicationStatus()}.
+     */
+    public synchronized void setApplicationStatusProviders(Collection<ApplicationStatusProvider> statusProviders){
+        if (statusProvidersAdapter != null) {
+            statusProvidersAdapter.stop();
+            statusProvidersAdapter = null;
+        }
+        if (!statusProviders.isEmpty()) {
+            statusProvidersAdapter = new PollingApplicationStatusAdapter(statusProviders, applicationStatus,
+                    applicationStatusPollPeriod, threadGroup);
+            statusProvidersAdapter.start();
+        }
+    }
+
+    /**
+     * Takes effect with the next {@link #setApplicationStatusProviders(Collection)}.
+     */
+    public synchronized void setApplicationStatusPollPeriod(long applicationStatusPollPeriod) {
+        this.applicationStatusPollPeriod = applicationStatusPollPeriod;
+    }
+
+    synchronized void setJmx(JdbcPoolJmx jmx) {
+        this.jmx = jmx;
+    }
+
+    synchronized void setPrometheusExporter(PrometheusExporter prometheusExporter) {
+        prometheusExporter.register(name, this);
+        this.prometheusExporter = prometheusExporter;
+    }
+
+    private synchronized void unregisterMonitoring() {
+        if (jmx != null) {
+            jmx.unregister();
+            jmx = null;
+        }
+        if (prometheusExporter != null) {
+            prometheusExporter.unregister(name);
+            prometheusExporter = null;
+        }
+    }
+
+    /**
+     * @return the name of the pool in jmx and prometheus
+     */
+    public String getName() {
+        return name;
+    }
+
+    void setName(String name) {
+        this.name = name;
+        pool.setName(name);
+    }
+
+    EntityPool<PoolConnection> getEntityPool() {
+        return pool;
+    }
+
+    synchronized void setThreadGroup(ThreadGroup threadGroup) {
+        this.threadGroup = threadGroup;
     }
 
     public StatementCacheConnectionFactory getStatementCacheConnectionFactory() {
         return statementCacheConnectionFactory;
     }
 
+    /**
+     * @return per-SQL execution statistics, or null if SQL profiling isn't enabled
+     */
+    public SqlProfiler getSqlProfiler() {
+        return sqlProfiler;
+    }
+
+    void setSqlProfiler(SqlProfiler sqlProfiler) {
+        this.sqlProfiler = sqlProfiler;
+    }
+
+    /**
+     * Enables saving the {@code size} most used statements of the statement cache to the
+     * file, periodically and on {@link #close()}. No-op without statement cache.
+     */
+    public void setStatementCacheProfile(Path file, int size) {
+        this.statementCacheProfileSize = size;
+        this.statementCacheProfileFile = file;
+    }
+
+    public void saveStatementCacheProfile() {
+        synchronized (statementCacheProfileLock) {
+            Path file = statementCacheProfileFile;
+            if (file == null || statementCacheConnectionFactory == null) {
+                return;
+            }
+            try {
+                statementCacheConnectionFactory.captureProfile(statementCacheProfileSize).save(file);
+            } catch (IOException e) {
+                log.error("unable to save statement cache profile to '{}'", file, e);
+            }
+        }
+    }
+
+    /**
+     * Saves the statement cache profile every {@code period} ms on a background thread, until the pool is closed.
+     */
+    synchronized void startStatementCacheProfileSave(long period) {
+        if (period <= 0L || statementCacheProfileSaveThread != null) {
+            return;
+        }
+        statementCacheProfileSaveThread = new Thread(threadGroup == null ? Thread.currentThread().getThreadGroup() : threadGroup, () -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(period);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                saveStatementCacheProfile();
+            }
+        }, "jdbcPoolStatementCacheProfileThread");
+        statementCacheProfileSaveThread.setDaemon(true);
+        statementCacheProfileSaveThread.start();
+    }
+
+    /**
+     * Warms up the statement cache of the connections created for a checkout on a background
+     * thread, when they are returned and before they go back to the idle queue, instead of on
+     * the thread of the checkout. Such a connection is handed out cold to its first caller, the
+     * pool creates connections only for checkouts so there is no idle one to warm up instead.
+     * The initial connections are warmed up when created. The warm-up isn't counted as hold time.
+     */
+    synchronized void startStatementCacheWarmup() {
+        if (statementCacheConnectionFactory == null || statementCacheWarmup != null) {
+            return;
+        }
+        ThreadGroup group = threadGroup == null ? Thread.currentThread().getThreadGroup() : threadGroup;
+        statementCacheWarmup = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(group, r, "jdbcPoolStatementCacheWarmupThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        statementCacheConnectionFactory.setDeferWarmup(true);
+    }
+
+    /**
+     * Lets the warm-ups in progress finish, their connections are then released by the closed pool.
+     */
+    private synchronized void stopStatementCacheWarmup() {
+        if (statementCacheWarmup != null) {
+            statementCacheConnectionFactory.setDeferWarmup(false);
+            statementCacheWarmup.shutdown();
+            statementCacheWarmup = null;
+        }
+    }
+
+    /**
+     * Stops the periodic save and saves the profile a last time, later saves are no-ops so
+     * a save in progress on the background thread can't overwrite it.
+     */
+    private void saveFinalStatementCacheProfile() {
+        synchronized (this) {
+            if (statementCacheProfileSaveThread != null) {
+                statementCacheProfileSaveThread.interrupt();
+                statementCacheProfileSaveThread = null;
+            }
+        }
+        synchronized (statementCacheProfileLock) {
+            saveStatementCacheProfile();
+            statementCacheProfileFile = null;
+        }
+    }
+
     public void release(PoolConnection connection, boolean check){
-        for(ApplicationStatusProvider statusProvider : statusProviders)
-            check |=statusProvider.errorOccurred();
+        check |= applicationStatus.validationNeeded(connection.getStatusEpoch());
+        if (statementCacheWarmup != null && warmUpBeforeRelease(connection, check)) {
+            return;
+        }
+        returnToPool(connection, check);
+    }
+
+    private void returnToPool(PoolConnection connection, boolean check) {
+        StatementCacheConnection statementCacheConnection = statementCacheConnection(connection);
+        if (statementCacheConnection != null) {
+            statementCacheConnection.returned();
+        }
         pool.release(connection, check);
+    }
+
+    /**
+     * @return the statement cache of the connection, null if statements aren't cached
+     */
+    private StatementCacheConnection statementCacheConnection(PoolConnection connection) {
+        if (statementCacheConnectionFactory == null) {
+            return null;
+        }
+        Connection underlying = connection.uncheckGetWrappedConnection();
+        return underlying instanceof StatementCacheConnection ? (StatementCacheConnection) underlying : null;
+    }
 
+    /**
+     * @return true if the connection has a deferred warm-up, which then releases it
+     */
+    private boolean warmUpBeforeRelease(PoolConnection connection, boolean check) {
+        ExecutorService warmup = statementCacheWarmup;
+        StatementCacheConnection statementCacheConnection = statementCacheConnection(connection);
+        if (warmup == null || statementCacheConnection == null) {
+            return false;
+        }
+        StatementCacheProfile profile = statementCacheConnection.takeDeferredWarmUp();
+        if (profile == null) {
+            return false;
+        }
+        pool.checkedIn(connection);
+        try {
+            warmup.execute(() -> {
+                try {
+                    statementCacheConnection.warmUp(profile);
+                } finally {
+                    returnToPool(connection, check);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
     }
 }
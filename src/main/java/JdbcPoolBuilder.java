@@ -5,18 +5,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.management.MBeanServer;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class JdbcPoolBuilder {
     private static final Logger log = LoggerFactory.getLogger(JdbcPoolBuilder.class);
+    private static final AtomicInteger POOL_SEQUENCE = new AtomicInteger();
     private final List<EntityConverter<Connection, Connection>> connectionConverters = new ArrayList<>();
     private final Collection<ApplicationStatusProvider> statusProviders = new ArrayList<>();
+    private final List<String> connectionInitSql = new ArrayList<>();
     private final DefaultConnectionChecker defaultConnectionChecker;
     private final EntityPool.EntityPoolBuilder<PoolConnection> entityPoolBuilder;
     private final Properties properties;
@@ -29,22 +35,41 @@ public class JdbcPoolBuilder {
     private StatementCacheConnectionFactory statementCacheConnectionFactory;
     private boolean useConnectionStatementCache = true;
     private boolean autocloseStatements = true;
+    private int maxOpenStatements;
     private EntityFactory<Connection> connectionFactory;
     private long idleConnectionCheckPeriod = 600000;
-    private long idleStatementsCheckPeriod;
-    private long statementIdlePeriod;
+    private long idleStatementsCheckPeriod = 60000;
+    private long statementIdlePeriod = 600000;
+    private int statementCacheSize = StatementCacheConnectionFactory.DEFAULT_MAX_CACHED_STATEMENTS;
+    private StatementCachePolicy.Factory statementCachePolicy = StatementCacheConnectionFactory.DEFAULT_POLICY;
+    private int maxTotalCachedStatements;
+    private long maxTotalCachedStatementsWeight;
+    private StatementWeigher statementWeigher = StatementWeigher.DEFAULT;
+    private Path statementCacheProfileFile;
+    private int statementCacheProfileSize = 200;
+    private long statementCacheProfileSavePeriod = 300000;
     private boolean traceEnabled;
+    private boolean sqlProfilingEnabled;
+    private boolean useDriverDirectly;
+    private boolean connectionInitSqlMultiStatement;
+    private long applicationStatusPollPeriod = JdbcPool.DEFAULT_APPLICATION_STATUS_POLL_PERIOD;
+    private int maxProfiledSqlFingerprints = SqlProfiler.DEFAULT_MAX_FINGERPRINTS;
+    private SqlProfiler sqlProfiler;
     private MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
     private boolean jmxInitialized;
     private String jmxDomain = "com.brotech.jdbc";
+    private String poolName;
+    private PrometheusExporter prometheusExporter;
     private long aggregationPeriod;
+    private Path traceFile;
+    private int traceRecords = 1 << 20;
     private boolean checkConnectionThreadOwnerShip;
     private boolean useLogModeToCheckThreadOwnerShip;
 
     @SuppressWarnings("unchecked")
     public JdbcPoolBuilder(Properties properties) {
         this.properties = properties;
-        this.aggregationPeriod = 100L;
+        this.aggregationPeriod = 10000L;
         this.defaultConnectionChecker = new DefaultConnectionChecker();
         this.entityPoolBuilder = EntityPool.<PoolConnection>builder()
                 .releaser(new DefaultConnectionReleaser())
@@ -65,6 +90,48 @@ public class JdbcPoolBuilder {
         this.driverClass = driverClass;
     }
 
+    /**
+     * Creates the connections with this factory instead of the jdbc driver, the url, driver
+     * class and credentials are then ignored.
+     */
+    public void setConnectionFactory(EntityFactory<Connection> connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Resolves the {@link java.sql.Driver} once and creates connections with {@code driver.connect}
+     * instead of {@code DriverManager.getConnection}, see {@link DriverManagerConnectionFactory}.
+     */
+    public void setUseDriverDirectly(boolean useDriverDirectly) {
+        this.useDriverDirectly = useDriverDirectly;
+    }
+
+    /**
+     * @param softEvictionPeriod ms over which the connections are closed after {@link JdbcPool#softEvictAll()}
+     */
+    public void setSoftEvictionPeriod(long softEvictionPeriod) {
+        entityPoolBuilder.softEvictionPeriod(softEvictionPeriod);
+    }
+
+    /**
+     * Adds a statement run on every new connection before it enters the pool,
+     * all of them in one round trip, see {@link ConnectionInitializer}.
+     */
+    public void addConnectionInitSql(String sql) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new IllegalArgumentException("connection init sql can't be empty");
+        }
+        this.connectionInitSql.add(sql);
+    }
+
+    /**
+     * Sends the init statements joined into one string instead of a batch, for drivers
+     * which don't pipeline batches but accept multiple statements per execute.
+     */
+    public void setConnectionInitSqlMultiStatement(boolean connectionInitSqlMultiStatement) {
+        this.connectionInitSqlMultiStatement = connectionInitSqlMultiStatement;
+    }
+
     public void setThreadGroup(ThreadGroup threadGroup) {
         this.threadGroup = threadGroup;
     }
@@ -73,6 +140,18 @@ public class JdbcPoolBuilder {
         this.autocloseStatements = autocloseStatements;
     }
 
+    /**
+     * @param maxOpenStatements statements a checkout may keep open while they are auto closed; creating one more
+     *                          closes it and fails with an {@link java.sql.SQLException}. {@code 0}, the default,
+     *                          doesn't limit them
+     */
+    public void setMaxOpenStatements(int maxOpenStatements) {
+        if (maxOpenStatements < 0) {
+            throw new IllegalArgumentException(String.format("Invalid max open statements: %d. the value should not be negative", maxOpenStatements));
+        }
+        this.maxOpenStatements = maxOpenStatements;
+    }
+
 
     public void setIdleConnectionCheckPeriod(long idleConnectionCheckPeriod) {
         this.idleConnectionCheckPeriod = idleConnectionCheckPeriod;
@@ -88,6 +167,48 @@ public class JdbcPoolBuilder {
         this.statementIdlePeriod = statementIdlePeriod;
     }
 
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public void setStatementCachePolicy(StatementCachePolicy.Factory statementCachePolicy) {
+        this.statementCachePolicy = statementCachePolicy;
+    }
+
+    public void setMaxTotalCachedStatements(int maxTotalCachedStatements) {
+        this.maxTotalCachedStatements = maxTotalCachedStatements;
+    }
+
+    public void setMaxTotalCachedStatementsWeight(long maxTotalCachedStatementsWeight) {
+        this.maxTotalCachedStatementsWeight = maxTotalCachedStatementsWeight;
+    }
+
+    public void setStatementWeigher(StatementWeigher statementWeigher) {
+        this.statementWeigher = statementWeigher;
+    }
+
+    /**
+     * File keeping the most used statements between restarts. The initial connections prepare
+     * them before the pool is built, connections created later for a checkout are handed out cold
+     * and prepare them on a background thread once returned, see {@link JdbcPool#startStatementCacheWarmup()}; the file
+     * is rewritten every {@code statementCacheProfileSavePeriod} and when the pool is closed.
+     */
+    public void setStatementCacheProfileFile(Path statementCacheProfileFile) {
+        this.statementCacheProfileFile = statementCacheProfileFile;
+    }
+
+    public void setStatementCacheProfileSize(int statementCacheProfileSize) {
+        this.statementCacheProfileSize = statementCacheProfileSize;
+    }
+
+    public void setStatementCacheProfileSavePeriod(long statementCacheProfileSavePeriod) {
+        this.statementCacheProfileSavePeriod = statementCacheProfileSavePeriod;
+    }
+
+    public void setUseConnectionStatementCache(boolean useConnectionStatementCache) {
+        this.useConnectionStatementCache = useConnectionStatementCache;
+    }
+
     public boolean isTraceEnabled() {
         return traceEnabled;
     }
@@ -96,6 +217,28 @@ public class JdbcPoolBuilder {
         this.traceEnabled = traceEnabled;
     }
 
+    /**
+     * Adds a polled provider; pushing errors to {@link JdbcPool#getApplicationStatus()} is cheaper.
+     */
+    public void addApplicationStatusProvider(ApplicationStatusProvider statusProvider) {
+        this.statusProviders.add(statusProvider);
+    }
+
+    public void setApplicationStatusPollPeriod(long applicationStatusPollPeriod) {
+        this.applicationStatusPollPeriod = applicationStatusPollPeriod;
+    }
+
+    /**
+     * Records executions, rows and latencies per SQL fingerprint, see {@link JdbcPool#getSqlProfiler()}.
+     */
+    public void setSqlProfilingEnabled(boolean sqlProfilingEnabled) {
+        this.sqlProfilingEnabled = sqlProfilingEnabled;
+    }
+
+    public void setMaxProfiledSqlFingerprints(int maxProfiledSqlFingerprints) {
+        this.maxProfiledSqlFingerprints = maxProfiledSqlFingerprints;
+    }
+
     public MBeanServer getmBeanServer() {
         return mBeanServer;
     }
@@ -108,6 +251,9 @@ public class JdbcPoolBuilder {
         return jmxInitialized;
     }
 
+    /**
+     * Registers the {@link api.JdbcPoolMXBean} of the pool in the configured mBeanServer under the jmxDomain.
+     */
     public void setJmxInitialized(boolean jmxInitialized) {
         this.jmxInitialized = jmxInitialized;
     }
@@ -120,10 +266,45 @@ public class JdbcPoolBuilder {
         this.jmxDomain = jmxDomain;
     }
 
+    public String getPoolName() {
+        return poolName;
+    }
+
+    /**
+     * @param poolName name of the pool in jmx and prometheus, {@code JdbcPool-<n>} by default
+     */
+    public void setPoolName(String poolName) {
+        this.poolName = poolName;
+    }
+
+    /**
+     * Records the pool checkouts, releases and creations into this file, see {@link PoolTraceRecorder}.
+     */
+    public void setTraceFile(Path traceFile) {
+        this.traceFile = traceFile;
+    }
+
+    /**
+     * @param traceRecords capacity of the trace ring, in events of {@value PoolTraceRecorder#RECORD_BYTES} bytes
+     */
+    public void setTraceRecords(int traceRecords) {
+        this.traceRecords = traceRecords;
+    }
+
+    /**
+     * Exports the metrics of the pool through the given exporter, which is started by the application.
+     */
+    public void setPrometheusExporter(PrometheusExporter prometheusExporter) {
+        this.prometheusExporter = prometheusExporter;
+    }
+
     public long getAggregationPeriod() {
         return aggregationPeriod;
     }
 
+    /**
+     * @param aggregationPeriod ms between the computations of the rates and percentiles exposed in jmx
+     */
     public void setAggregationPeriod(long aggregationPeriod) {
         this.aggregationPeriod = aggregationPeriod;
     }
@@ -161,17 +342,72 @@ public class JdbcPoolBuilder {
             return jdbcPool;
         }
         EntityFactory<Connection> factory = createFactory();
+        if (sqlProfilingEnabled) {
+            sqlProfiler = new SqlProfiler(maxProfiledSqlFingerprints);
+        }
         EntityFactory<PoolConnection> factoryToUse = wrapFactory(factory);
         if (statementCacheConnectionFactory != null) {
             entityPoolBuilder.addCheckers(new EntityChecker[]{this.statementCacheConnectionFactory});
+            loadStatementCacheProfile();
         }
         EntityPool<PoolConnection> entityPool = entityPoolBuilder.factory(factoryToUse).build();
         this.configurePoolRefresh(entityPool);
+        if (traceFile != null) {
+            this.configureTrace(entityPool);
+        }
         this.jdbcPool = new JdbcPool(entityPool, this.statementCacheConnectionFactory);
+        this.jdbcPool.setThreadGroup(this.threadGroup);
+        this.jdbcPool.setApplicationStatusPollPeriod(this.applicationStatusPollPeriod);
         this.jdbcPool.setApplicationStatusProviders(this.statusProviders);
+        this.jdbcPool.setSqlProfiler(sqlProfiler);
+        this.jdbcPool.setName(poolName != null ? poolName : "JdbcPool-" + POOL_SEQUENCE.incrementAndGet());
+        if (jmxInitialized) {
+            this.configureJmx(entityPool);
+        }
+        if (prometheusExporter != null) {
+            this.jdbcPool.setPrometheusExporter(prometheusExporter);
+        }
+        if (statementCacheConnectionFactory != null && statementCacheProfileFile != null) {
+            this.jdbcPool.setStatementCacheProfile(statementCacheProfileFile, statementCacheProfileSize);
+            this.jdbcPool.startStatementCacheProfileSave(statementCacheProfileSavePeriod);
+            this.jdbcPool.startStatementCacheWarmup();
+        }
         return jdbcPool;
     }
 
+    private void loadStatementCacheProfile() {
+        if (statementCacheProfileFile == null) {
+            return;
+        }
+        try {
+            StatementCacheProfile profile = StatementCacheProfile.load(statementCacheProfileFile);
+            statementCacheConnectionFactory.setWarmupProfile(profile);
+            log.info("loaded {} statements to warm up new connections from '{}'", profile.getEntries().size(), statementCacheProfileFile);
+        } catch (IOException e) {
+            log.error("unable to load statement cache profile from '{}', connections won't be warmed up", statementCacheProfileFile, e);
+        }
+    }
+
+    private void configureTrace(EntityPool<PoolConnection> pool) {
+        try {
+            pool.setTraceRecorder(PoolTraceRecorder.open(traceFile, traceRecords));
+            log.info("recording the pool trace into '{}' ({} events)", traceFile, traceRecords);
+        } catch (IOException e) {
+            log.error("unable to open the pool trace file '{}', the pool won't be traced", traceFile, e);
+        }
+    }
+
+    private void configureJmx(EntityPool<PoolConnection> pool) {
+        if (mBeanServer == null) {
+            log.error("jmx is enabled but no mBeanServer is configured! the pool won't be registered");
+            return;
+        }
+        String name = jdbcPool.getName();
+        JdbcPoolJmx jmx = new JdbcPoolJmx(name, pool, aggregationPeriod, threadGroup);
+        jmx.register(mBeanServer, JdbcPoolJmx.objectName(jmxDomain, name));
+        this.jdbcPool.setJmx(jmx);
+    }
+
     private void configurePoolRefresh(final EntityPool<PoolConnection> pool) {
         if (this.idleConnectionCheckPeriod > 0L) {
             if (!pool.isCheckersConfigured()) {
@@ -207,7 +443,8 @@ public class JdbcPoolBuilder {
 
     private EntityFactory<PoolConnection> wrapFactory(EntityFactory<Connection> factory) {
         if (useConnectionStatementCache) {
-            statementCacheConnectionFactory = new StatementCacheConnectionFactory(idleConnectionCheckPeriod, statementIdlePeriod);
+            statementCacheConnectionFactory = new StatementCacheConnectionFactory(idleStatementsCheckPeriod, statementIdlePeriod, statementCacheSize,
+                    statementCachePolicy, maxTotalCachedStatements, maxTotalCachedStatementsWeight, statementWeigher);
             connectionConverters.add(new EntityConverter<Connection, Connection>() {
                 @Override
                 public boolean canConvert(Connection var1) {
@@ -221,17 +458,34 @@ public class JdbcPoolBuilder {
             });
         }
         final EntityFactory<JdbcPool> poolProvider = () -> jdbcPool;
+        final ConnectionInitializer initializer = connectionInitSql.isEmpty() ? null
+                : new ConnectionInitializer(connectionInitSql, connectionInitSqlMultiStatement);
         return () -> {
             Connection result = factory.create();
+            if (initializer != null) {
+                result = initializer.initialize(result);
+            }
             for (EntityConverter<Connection, Connection> converter : connectionConverters) {
                 if (converter.canConvert(result)) {
                     result = converter.convert(result);
                 }
             }
-            PoolConnection poolConnection = new PoolConnectionImpl(poolProvider, result, autocloseStatements);
-            if (checkConnectionThreadOwnerShip) {
-                poolConnection = new ThreadOwnedPoolConnection(poolConnection, useLogModeToCheckThreadOwnerShip);
+            PoolConnectionImpl connection = new PoolConnectionImpl(poolProvider, result, autocloseStatements, sqlProfiler, maxOpenStatements);
+            try {
+                connection.readInitialSessionState();
+            } catch (SQLException e) {
+                try {
+                    result.close();
+                } catch (SQLException closeError) {
+                    e.addSuppressed(closeError);
+                }
+                throw new IllegalStateException("can't read the auto commit mode of a new connection", e);
+            }
+            if (!checkConnectionThreadOwnerShip) {
+                return connection;
             }
+            PoolConnection poolConnection = new ThreadOwnedPoolConnection(connection, useLogModeToCheckThreadOwnerShip);
+            connection.setHandedOutConnection(poolConnection);
             return poolConnection;
         };
     }
@@ -241,8 +495,8 @@ public class JdbcPoolBuilder {
             log.info("creating the jdbc connection factory");
             return createJdbcConnectionFactory();
         }
-        if (isJdbcParamsEmpty()) {
-            log.error("some parameters are missing");
+        if (!isJdbcParamsEmpty()) {
+            log.warn("a connection factory is configured, the jdbc url, driver class and credentials are ignored");
         }
         return connectionFactory;
     }
@@ -252,6 +506,6 @@ public class JdbcPoolBuilder {
     }
 
     private EntityFactory<Connection> createJdbcConnectionFactory() throws IllegalAccessException {
-        return new DriverManagerConnectionFactory(driverClass, url, properties);
+        return new DriverManagerConnectionFactory(driverClass, url, properties, useDriverDirectly);
     }
 }
@@ -0,0 +1,286 @@
+import api.JdbcPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * The {@link JdbcPoolMXBean} of a pool. Gauges are the lock-free estimates of the
+ * {@link EntityPool}, not read from its idle queue which locks. A background thread
+ * aggregates the {@link PoolMetrics} of every period into an immutable
+ * {@link Aggregate} which attribute reads pick up with one volatile read.
+ */
+final class JdbcPoolJmx implements JdbcPoolMXBean {
+    private static final Logger log = LoggerFactory.getLogger(JdbcPoolJmx.class);
+
+    private final String poolName;
+    private final EntityPool<?> pool;
+    private final long aggregationPeriod;
+    private final Thread thread;
+    private volatile Aggregate aggregate = Aggregate.EMPTY;
+    private MBeanServer mBeanServer;
+    private ObjectName objectName;
+
+    JdbcPoolJmx(String poolName, EntityPool<?> pool, long aggregationPeriod, ThreadGroup threadGroup) {
+        if (aggregationPeriod <= 0L) {
+            throw new IllegalArgumentException(String.format("jmx aggregation period %d must be positive", aggregationPeriod));
+        }
+        this.poolName = poolName;
+        this.pool = pool;
+        this.aggregationPeriod = aggregationPeriod;
+        this.thread = new Thread(threadGroup == null ? Thread.currentThread().getThreadGroup() : threadGroup,
+                this::run, "jdbcPoolJmxAggregationThread");
+        this.thread.setDaemon(true);
+    }
+
+    static ObjectName objectName(String jmxDomain, String poolName) {
+        try {
+            return new ObjectName(jmxDomain + ":type=JdbcPool,name=" + ObjectName.quote(poolName));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(String.format("invalid jmx domain '%s'", jmxDomain), e);
+        }
+    }
+
+    /**
+     * Registers the bean and starts the aggregation; a registration failure is logged,
+     * monitoring doesn't stop the pool from starting.
+     */
+    synchronized void register(MBeanServer mBeanServer, ObjectName objectName) {
+        try {
+            mBeanServer.registerMBean(this, objectName);
+            this.mBeanServer = mBeanServer;
+            this.objectName = objectName;
+            thread.start();
+            log.info("jdbc pool '{}' registered in jmx as {}", poolName, objectName);
+        } catch (JMException e) {
+            log.error("unable to register jdbc pool '{}' in jmx as {}", poolName, objectName, e);
+        }
+    }
+
+    synchronized void unregister() {
+        thread.interrupt();
+        if (mBeanServer == null) {
+            return;
+        }
+        try {
+            mBeanServer.unregisterMBean(objectName);
+        } catch (JMException e) {
+            log.warn("unable to unregister jdbc pool '{}' from jmx", poolName, e);
+        }
+        mBeanServer = null;
+    }
+
+    private void run() {
+        PoolMetrics.Snapshot previous = pool.getMetrics().snapshot();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(aggregationPeriod);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            PoolMetrics.Snapshot current = pool.getMetrics().snapshot();
+            aggregate = new Aggregate(current.since(previous));
+            previous = current;
+        }
+    }
+
+    @Override
+    public String getPoolName() {
+        return poolName;
+    }
+
+    @Override
+    public int getMaxSize() {
+        return pool.getMaxPoolSize();
+    }
+
+    @Override
+    public int getCurrentSize() {
+        return pool.getCurrentSize();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return pool.getActiveEntitiesNumber();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return pool.getIdleEntitiesEstimate();
+    }
+
+    @Override
+    public int getWaitingThreads() {
+        return pool.getWaitingThreads();
+    }
+
+    @Override
+    public int getAvailablePermits() {
+        return pool.getAvailablePermits();
+    }
+
+    @Override
+    public long getGeneration() {
+        return pool.getGeneration();
+    }
+
+    @Override
+    public long getAggregationPeriod() {
+        return aggregationPeriod;
+    }
+
+    @Override
+    public double getCheckoutRate() {
+        return aggregate.checkoutRate;
+    }
+
+    @Override
+    public double getTimeoutRate() {
+        return aggregate.timeoutRate;
+    }
+
+    @Override
+    public double getCreationRate() {
+        return aggregate.creationRate;
+    }
+
+    @Override
+    public double getEvictionRate() {
+        return aggregate.evictionRate;
+    }
+
+    @Override
+    public double getValidationFailureRate() {
+        return aggregate.validationFailureRate;
+    }
+
+    @Override
+    public double getWaitTimeMean() {
+        return aggregate.waitTimeMean;
+    }
+
+    @Override
+    public double getWaitTime50thPercentile() {
+        return aggregate.waitTime50;
+    }
+
+    @Override
+    public double getWaitTime99thPercentile() {
+        return aggregate.waitTime99;
+    }
+
+    @Override
+    public double getWaitTime999thPercentile() {
+        return aggregate.waitTime999;
+    }
+
+    @Override
+    public double getWaitTimeMax() {
+        return aggregate.waitTimeMax;
+    }
+
+    @Override
+    public double getHoldTime50thPercentile() {
+        return aggregate.holdTime50;
+    }
+
+    @Override
+    public double getHoldTime99thPercentile() {
+        return aggregate.holdTime99;
+    }
+
+    @Override
+    public double getHoldTimeMax() {
+        return aggregate.holdTimeMax;
+    }
+
+    @Override
+    public double getCreationTime99thPercentile() {
+        return aggregate.creationTime99;
+    }
+
+    @Override
+    public double getValidationTime99thPercentile() {
+        return aggregate.validationTime99;
+    }
+
+    @Override
+    public double getReleaseTime99thPercentile() {
+        return aggregate.releaseTime99;
+    }
+
+    @Override
+    public void softEvictAll() {
+        pool.softEvictAll();
+    }
+
+    @Override
+    public void resize(int maxSize) {
+        pool.resize(maxSize);
+    }
+
+    @Override
+    public void refresh() {
+        pool.refresh();
+    }
+
+    /**
+     * Rates and percentiles of one aggregation period.
+     */
+    private static final class Aggregate {
+        static final Aggregate EMPTY = new Aggregate(null);
+
+        final double checkoutRate;
+        final double timeoutRate;
+        final double creationRate;
+        final double evictionRate;
+        final double validationFailureRate;
+        final double waitTimeMean;
+        final double waitTime50;
+        final double waitTime99;
+        final double waitTime999;
+        final double waitTimeMax;
+        final double holdTime50;
+        final double holdTime99;
+        final double holdTimeMax;
+        final double creationTime99;
+        final double validationTime99;
+        final double releaseTime99;
+
+        Aggregate(PoolMetrics.Snapshot interval) {
+            if (interval == null) {
+                checkoutRate = timeoutRate = creationRate = evictionRate = validationFailureRate = 0d;
+                waitTimeMean = waitTime50 = waitTime99 = waitTime999 = waitTimeMax = 0d;
+                holdTime50 = holdTime99 = holdTimeMax = creationTime99 = validationTime99 = releaseTime99 = 0d;
+                return;
+            }
+            double seconds = Math.max(interval.getIntervalMillis(), 1L) / 1e3;
+            checkoutRate = interval.get(PoolMetrics.Counter.CHECKOUTS) / seconds;
+            timeoutRate = interval.get(PoolMetrics.Counter.TIMEOUTS) / seconds;
+            creationRate = interval.get(PoolMetrics.Counter.CREATIONS) / seconds;
+            evictionRate = interval.get(PoolMetrics.Counter.EVICTIONS) / seconds;
+            validationFailureRate = interval.get(PoolMetrics.Counter.VALIDATION_FAILURES) / seconds;
+            LatencyHistogram.Snapshot wait = interval.get(PoolMetrics.Timer.WAIT);
+            waitTimeMean = wait.getMean() / 1e6;
+            waitTime50 = millis(wait, 50d);
+            waitTime99 = millis(wait, 99d);
+            waitTime999 = millis(wait, 99.9d);
+            waitTimeMax = wait.getMax() / 1e6;
+            LatencyHistogram.Snapshot hold = interval.get(PoolMetrics.Timer.HOLD);
+            holdTime50 = millis(hold, 50d);
+            holdTime99 = millis(hold, 99d);
+            holdTimeMax = hold.getMax() / 1e6;
+            creationTime99 = millis(interval.get(PoolMetrics.Timer.CREATE), 99d);
+            validationTime99 = millis(interval.get(PoolMetrics.Timer.VALIDATE), 99d);
+            releaseTime99 = millis(interval.get(PoolMetrics.Timer.RELEASE), 99d);
+        }
+
+        private static double millis(LatencyHistogram.Snapshot latencies, double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1e6;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of non-negative values, typically nanoseconds.
+ * Every power of two is split into {@value #SUB_BUCKETS} linear buckets, so a
+ * recorded value is reported with at most 12.5% relative error, in a fixed
+ * table of {@value #BUCKETS} counters covering the whole {@code long} range.
+ *
+ * <p>Recording is a couple of atomic increments and never blocks; a snapshot
+ * taken while other threads record may miss the values recorded concurrently.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+    static final int BUCKETS = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public void record(long value) {
+        if (value < 0L) {
+            value = 0L;
+        }
+        counts.getAndIncrement(bucket(value));
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulate(value);
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    static Snapshot snapshotOf(long[] counts, long sum, long max) {
+        long count = 0L;
+        for (long c : counts) {
+            count += c;
+        }
+        return new Snapshot(counts, count, sum, max);
+    }
+
+    static int bucket(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueIn(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1L;
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0L ? 0d : (double) sum / count;
+        }
+
+        /**
+         * Counts the values of the buckets lying entirely at or below each bound, so a
+         * value is counted under a higher bound than its own by at most 12.5%.
+         *
+         * @param upperBounds ascending bounds
+         * @param into receives the cumulative count of each bound
+         */
+        void cumulativeCounts(long[] upperBounds, long[] into) {
+            long seen = 0L;
+            int bound = 0;
+            for (int i = 0; i < counts.length && bound < upperBounds.length; i++) {
+                while (bound < upperBounds.length && highestValueIn(i) > upperBounds[bound]) {
+                    into[bound++] = seen;
+                }
+                seen += counts[i];
+            }
+            while (bound < upperBounds.length) {
+                into[bound++] = seen;
+            }
+        }
+
+        /**
+         * @param earlier a snapshot of the same histogram taken before this one
+         * @return the values recorded between the two snapshots; the maximum is
+         * the highest value of the highest bucket recorded in between
+         */
+        public Snapshot minus(Snapshot earlier) {
+            long[] interval = new long[counts.length];
+            int highest = -1;
+            for (int i = 0; i < counts.length; i++) {
+                interval[i] = counts[i] - earlier.counts[i];
+                if (interval[i] > 0L) {
+                    highest = i;
+                }
+            }
+            long intervalMax = highest < 0 ? 0L : Math.min(highestValueIn(highest), max);
+            return new Snapshot(interval, count - earlier.count, sum - earlier.sum, intervalMax);
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the highest value of the bucket holding the percentile, never more than {@link #getMax()}
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0L) {
+                return 0L;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100d) / 100d * count));
+            long seen = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueIn(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * Plain LRU over idle statements, the statement returned first is released first.
+ */
+public class LruStatementCachePolicy implements StatementCachePolicy {
+    private final LinkedHashSet<CachedStatement> statements = new LinkedHashSet<>();
+    private final int maxSize;
+
+    public LruStatementCachePolicy(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void recordAccess(Object key) {
+    }
+
+    @Override
+    public CachedStatement onIdle(CachedStatement statement) {
+        statements.add(statement);
+        if (statements.size() <= maxSize) {
+            return null;
+        }
+        Iterator<CachedStatement> iterator = statements.iterator();
+        CachedStatement eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+
+    @Override
+    public void onTaken(CachedStatement statement) {
+        statements.remove(statement);
+    }
+
+    @Override
+    public void onRemoved(CachedStatement statement) {
+        statements.remove(statement);
+    }
+
+    @Override
+    public CachedStatement evictionCandidate() {
+        return statements.isEmpty() ? null : statements.iterator().next();
+    }
+
+    @Override
+    public int size() {
+        return statements.size();
+    }
+}
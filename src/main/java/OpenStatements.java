@@ -0,0 +1,74 @@
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * The statements of a checkout which are still open, for closing them when the
+ * connection is returned. A statement knows its slot, so closing it removes it
+ * in constant time (the last statement moves into the freed slot), the return
+ * only visits statements that are really open and the array shrinks back once
+ * a burst of open statements has been closed. It is not bounded itself, the
+ * connection refuses new statements once {@code maxOpenStatements} are open.
+ *
+ * <p>Not thread safe, like the connection the statements belong to.
+ */
+final class OpenStatements {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Tracked[] statements = new Tracked[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * A statement with a slot in {@link OpenStatements}.
+     */
+    interface Tracked extends Statement {
+        int getTrackingIndex();
+
+        void setTrackingIndex(int index);
+    }
+
+    void add(Tracked statement) {
+        if (size == statements.length) {
+            statements = Arrays.copyOf(statements, size << 1);
+        }
+        statement.setTrackingIndex(size);
+        statements[size++] = statement;
+    }
+
+    void remove(Tracked statement) {
+        int index = statement.getTrackingIndex();
+        if (index < 0 || index >= size || statements[index] != statement) {
+            return;
+        }
+        statement.setTrackingIndex(-1);
+        Tracked last = statements[--size];
+        statements[size] = null;
+        if (last != statement) {
+            statements[index] = last;
+            last.setTrackingIndex(index);
+        }
+        if (statements.length > INITIAL_CAPACITY && size < statements.length >>> 2) {
+            statements = Arrays.copyOf(statements, statements.length >>> 1);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the open statements, which are no longer tracked
+     */
+    Tracked[] drain() {
+        Tracked[] open = Arrays.copyOf(statements, size);
+        for (Tracked statement : open) {
+            statement.setTrackingIndex(-1);
+        }
+        if (statements.length > INITIAL_CAPACITY) {
+            statements = new Tracked[INITIAL_CAPACITY];
+        } else {
+            Arrays.fill(statements, 0, size, null);
+        }
+        size = 0;
+        return open;
+    }
+}
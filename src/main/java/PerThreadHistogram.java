@@ -0,0 +1,101 @@
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link LatencyHistogram} buckets with one recorder per recording thread. A recorder
+ * has a single writer, so recording is plain increments published with ordered
+ * stores: no CAS, no lock and no cache line shared with other threads. Readers sum
+ * the recorders; the counts of a thread that died are folded into a retired table
+ * and its recorder is dropped on the next snapshot, or every
+ * {@value #RETIRE_INTERVAL} registrations so that threads churning between two
+ * snapshots don't pile up recorders.
+ */
+final class PerThreadHistogram {
+    private static final int RETIRE_INTERVAL = 64;
+    private final Queue<Recorder> recorders = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Recorder> recorder = ThreadLocal.withInitial(this::register);
+    private final AtomicInteger registrations = new AtomicInteger();
+    private final long[] retiredCounts = new long[LatencyHistogram.BUCKETS];
+    private long retiredSum;
+    private long retiredMax;
+
+    void record(long value) {
+        recorder.get().record(value < 0L ? 0L : value);
+    }
+
+    /**
+     * @return the values recorded so far, a value recorded concurrently may be missed
+     */
+    LatencyHistogram.Snapshot snapshot() {
+        synchronized (retiredCounts) {
+            retireDeadRecorders();
+            long[] counts = retiredCounts.clone();
+            long sum = retiredSum;
+            long max = retiredMax;
+            for (Recorder r : recorders) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += r.counts.get(i);
+                }
+                sum += r.sum.get();
+                max = Math.max(max, r.max.get());
+            }
+            return LatencyHistogram.snapshotOf(counts, sum, max);
+        }
+    }
+
+    private Recorder register() {
+        if (registrations.incrementAndGet() % RETIRE_INTERVAL == 0) {
+            synchronized (retiredCounts) {
+                retireDeadRecorders();
+            }
+        }
+        Recorder r = new Recorder(Thread.currentThread());
+        recorders.add(r);
+        return r;
+    }
+
+    /**
+     * Folds the counts of the recorders of dead threads into the retired table; the caller holds its lock.
+     */
+    private void retireDeadRecorders() {
+        for (Iterator<Recorder> it = recorders.iterator(); it.hasNext(); ) {
+            Recorder r = it.next();
+            //the termination of a thread happens before isAlive() returns false, its counts are final
+            Thread owner = r.owner.get();
+            if (owner != null && owner.isAlive()) {
+                continue;
+            }
+            for (int i = 0; i < retiredCounts.length; i++) {
+                retiredCounts[i] += r.counts.get(i);
+            }
+            retiredSum += r.sum.get();
+            retiredMax = Math.max(retiredMax, r.max.get());
+            it.remove();
+        }
+    }
+
+    private static final class Recorder {
+        private final WeakReference<Thread> owner;
+        private final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.BUCKETS);
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        private Recorder(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+
+        private void record(long value) {
+            int bucket = LatencyHistogram.bucket(value);
+            counts.lazySet(bucket, counts.get(bucket) + 1L);
+            sum.lazySet(sum.get() + value);
+            if (value > max.get()) {
+                max.lazySet(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Feeds polling {@link ApplicationStatusProvider}s into an {@link ApplicationStatus}:
+ * a background thread asks every provider each {@code period} ms and raises or
+ * clears the provider's signal, so returning a connection doesn't call them.
+ */
+final class PollingApplicationStatusAdapter {
+    private static final Logger log = Logger.getLogger(PollingApplicationStatusAdapter.class.getName());
+
+    private final List<ApplicationStatusProvider> providers;
+    private final List<ApplicationStatus.Signal> signals = new ArrayList<>();
+    private final long period;
+    private final Thread thread;
+    private boolean stopped;
+
+    PollingApplicationStatusAdapter(Collection<ApplicationStatusProvider> providers, ApplicationStatus status, long period,
+                                    ThreadGroup threadGroup) {
+        if (period <= 0L) {
+            throw new IllegalArgumentException(String.format("application status poll period %d must be positive", period));
+        }
+        this.providers = new ArrayList<>(providers);
+        for (int i = 0; i < this.providers.size(); i++) {
+            signals.add(status.newSignal());
+        }
+        this.period = period;
+        this.thread = new Thread(threadGroup == null ? Thread.currentThread().getThreadGroup() : threadGroup,
+                this::run, "jdbcPoolApplicationStatusThread");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        poll();
+        thread.start();
+    }
+
+    /**
+     * Stops polling and clears the signals of the providers.
+     */
+    void stop() {
+        synchronized (this) {
+            stopped = true;
+            for (ApplicationStatus.Signal signal : signals) {
+                signal.clearError();
+            }
+        }
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(period);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            poll();
+        }
+    }
+
+    private void poll() {
+        for (int i = 0; i < providers.size(); i++) {
+            boolean error;
+            try {
+                error = providers.get(i).errorOccurred();
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, String.format("application status provider '%s' failed, assuming an error", providers.get(i)), e);
+                error = true;
+            }
+            synchronized (this) {
+                if (stopped) {
+                    return;
+                }
+                if (error) {
+                    signals.get(i).raiseError();
+                } else {
+                    signals.get(i).clearError();
+                }
+            }
+        }
+    }
+}
@@ -4,4 +4,11 @@ public interface PoolConnection extends Connection {
     Connection getWrappedConnection();
     Connection uncheckGetWrappedConnection();
     void grab();
+
+    /**
+     * @return the {@link ApplicationStatus#getEpoch() application status epoch} when the connection was handed out
+     */
+    long getStatusEpoch();
+
+    void setStatusEpoch(long statusEpoch);
 }
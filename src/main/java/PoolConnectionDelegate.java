@@ -26,4 +26,14 @@ public class PoolConnectionDelegate extends DelegatingConnectionAdapter implemen
         doActionBeforeEachMethod();
         poolConnection.grab();
     }
+
+    @Override
+    public long getStatusEpoch() {
+        return poolConnection.getStatusEpoch();
+    }
+
+    @Override
+    public void setStatusEpoch(long statusEpoch) {
+        poolConnection.setStatusEpoch(statusEpoch);
+    }
 }
@@ -1,12 +1,6 @@
 import api.EntityFactory;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
@@ -14,21 +8,57 @@ import java.util.logging.Logger;
 
 public class PoolConnectionImpl implements PoolConnection {
     private static Logger log = Logger.getLogger(PoolConnection.class.getName());
+    private static final int OPEN_STATEMENTS_WARNING_THRESHOLD = 1000;
     private final Connection connection;
     private final EntityFactory<JdbcPool> poolFactory;
     private final boolean autocloseStatements;
-    private final List<Statement> statements = new ArrayList<>();
-
+    private final OpenStatements statements = new OpenStatements();
+    private final SqlProfiler profiler;
+    private final int maxOpenStatements;
+    private final SessionState session = new SessionState();
+    private PoolConnection handedOutConnection = this;
 
     private boolean errorOccurred;
     private volatile boolean pooled;
+    private long statusEpoch;
 
     public PoolConnectionImpl(EntityFactory<JdbcPool> poolFactory, Connection connection, boolean autocloseStatements) {
+        this(poolFactory, connection, autocloseStatements, null);
+    }
+
+    public PoolConnectionImpl(EntityFactory<JdbcPool> poolFactory, Connection connection, boolean autocloseStatements, SqlProfiler profiler) {
+        this(poolFactory, connection, autocloseStatements, profiler, 0);
+    }
+
+    /**
+     * @param maxOpenStatements statements a checkout may keep open when they are auto closed, creating one more
+     *                          fails; {@code 0} doesn't limit them
+     */
+    public PoolConnectionImpl(EntityFactory<JdbcPool> poolFactory, Connection connection, boolean autocloseStatements,
+                              SqlProfiler profiler, int maxOpenStatements) {
         this.connection = connection;
         this.poolFactory = poolFactory;
         this.autocloseStatements = autocloseStatements;
+        this.profiler = profiler;
+        this.maxOpenStatements = maxOpenStatements;
+    }
+
+
+    /**
+     * Sets the connection wrapping this one that the pool hands out, which is the one
+     * released back to the pool on close.
+     */
+    void setHandedOutConnection(PoolConnection handedOutConnection) {
+        this.handedOutConnection = handedOutConnection;
     }
 
+    /**
+     * Reads the auto commit mode the physical connection was created with, once, so a transaction
+     * left open is rolled back on return even if the caller never touched auto commit.
+     */
+    void readInitialSessionState() throws SQLException {
+        session.getAutoCommit(connection);
+    }
 
     public boolean isErrorOccurred() {
         return errorOccurred;
@@ -49,10 +79,21 @@ public class PoolConnectionImpl implements PoolConnection {
         pooled = false;
     }
 
+    @Override
+    public long getStatusEpoch() {
+        return statusEpoch;
+    }
+
+    @Override
+    public void setStatusEpoch(long statusEpoch) {
+        this.statusEpoch = statusEpoch;
+    }
+
     @Override
     public Statement createStatement() throws SQLException {
+        checkOpenStatements();
         try {
-            return addStatement(wrapSqlExceptions(connection.createStatement(),Statement.class));
+            return addStatement(wrapSqlExceptions(profiled(connection.createStatement())));
         }catch (SQLException exception){
             errorOccurred=true;
             throw exception;
@@ -61,8 +102,9 @@ public class PoolConnectionImpl implements PoolConnection {
 
     @Override
     public PreparedStatement prepareStatement(String sql) throws SQLException {
+        checkOpenStatements();
         try {
-         return addStatement(wrapSqlExceptions(connection.prepareStatement(sql),PreparedStatement.class));
+         return addStatement(wrapSqlExceptions(profiled(connection.prepareStatement(sql), sql)));
         }catch (SQLException exception){
             errorOccurred=true;
             throw exception;
@@ -71,8 +113,9 @@ public class PoolConnectionImpl implements PoolConnection {
 
     @Override
     public CallableStatement prepareCall(String sql) throws SQLException {
+        checkOpenStatements();
         try {
-         return addStatement(wrapSqlExceptions(connection.prepareCall(sql),CallableStatement.class));
+         return addStatement(wrapSqlExceptions(profiled(connection.prepareCall(sql), sql)));
         }catch (SQLException exception){
             errorOccurred=true;
             throw exception;
@@ -92,7 +135,7 @@ public class PoolConnectionImpl implements PoolConnection {
     @Override
     public boolean getAutoCommit() throws SQLException {
         try {
-            return connection.getAutoCommit();
+            return session.getAutoCommit(connection);
         }catch (SQLException exception){
             errorOccurred=true;
             throw exception;
@@ -102,7 +145,7 @@ public class PoolConnectionImpl implements PoolConnection {
     @Override
     public void setAutoCommit(boolean autoCommit) throws SQLException {
         try {
-            connection.setAutoCommit(autoCommit);
+            session.setAutoCommit(connection, autoCommit);
         }catch (SQLException exception){
             errorOccurred=true;
             throw exception;
@@ -136,12 +179,17 @@ public class PoolConnectionImpl implements PoolConnection {
             return;
         }
         try {
-            if(!connection.getAutoCommit()){
-                log.warning("Returning connection with auto commit set to false");
-                Exception stackTrace = new Exception("Stack trace");
-                log.warning(stackTrace.toString());
-                errorOccurred = true;
+            if(session.isInTransaction()){
+                // a connection created with auto commit off is always in a transaction, the rollback is its reset
+                if(session.isDirty(SessionState.AUTO_COMMIT)){
+                    log.warning("Returning connection with auto commit set to false, rolling back");
+                    Exception stackTrace = new Exception("Stack trace");
+                    log.warning(stackTrace.toString());
+                    errorOccurred = true;
+                }
+                connection.rollback();
             }
+            session.restore(connection);
         }catch (SQLException ex){
             log.warning(String.format("Error when returning connection to the pool '%s'",ex));
             errorOccurred = true;
@@ -149,7 +197,7 @@ public class PoolConnectionImpl implements PoolConnection {
         if(autocloseStatements){
             int failedCount = 0;
             SQLException exception = null;
-            for (Statement statement : statements){
+            for (Statement statement : statements.drain()){
                 try {
                     statement.close();
                 }catch (SQLException e){
@@ -162,7 +210,6 @@ public class PoolConnectionImpl implements PoolConnection {
                 log.warning(String.format("error when auto closing %d statement(s)",failedCount));
                 errorOccurred = true;
             }
-            statements.clear();
             boolean check = errorOccurred;
             JdbcPool pool = poolFactory.create();
             if(pool == null){
@@ -172,7 +219,7 @@ public class PoolConnectionImpl implements PoolConnection {
             }else {
                 errorOccurred = false;
                 pooled = true;
-                pool.release(this,check);
+                pool.release(handedOutConnection,check);
             }
         }
     }
@@ -190,7 +237,7 @@ public class PoolConnectionImpl implements PoolConnection {
     @Override
     public DatabaseMetaData getMetaData() throws SQLException {
         try {
-            return wrapSqlExceptions(connection.getMetaData(), DatabaseMetaData.class);
+            return wrapSqlExceptions(connection.getMetaData());
         }catch (SQLException e ){
             errorOccurred = true;
             throw e;
@@ -200,7 +247,7 @@ public class PoolConnectionImpl implements PoolConnection {
     @Override
     public boolean isReadOnly() throws SQLException {
         try {
-            return connection.isReadOnly();
+            return session.isReadOnly(connection);
         }catch (SQLException e ){
             errorOccurred = true;
             throw e;
@@ -210,8 +257,8 @@ public class PoolConnectionImpl implements PoolConnection {
     @Override
     public void setReadOnly(boolean readOnly) throws SQLException {
         try {
-            connection.setReadOnly(readOnly);
-        }catch (Exception e){
+            session.setReadOnly(connection, readOnly);
+        }catch (SQLException e){
             errorOccurred =true;
             throw e;
         }
@@ -219,22 +266,42 @@ public class PoolConnectionImpl implements PoolConnection {
 
     @Override
     public String getCatalog() throws SQLException {
-        return "";
+        try {
+            return session.getCatalog(connection);
+        }catch (SQLException e){
+            errorOccurred = true;
+            throw e;
+        }
     }
 
     @Override
     public void setCatalog(String catalog) throws SQLException {
-
+        try {
+            session.setCatalog(connection, catalog);
+        }catch (SQLException e){
+            errorOccurred = true;
+            throw e;
+        }
     }
 
     @Override
     public int getTransactionIsolation() throws SQLException {
-        return 0;
+        try {
+            return session.getTransactionIsolation(connection);
+        }catch (SQLException e){
+            errorOccurred = true;
+            throw e;
+        }
     }
 
     @Override
     public void setTransactionIsolation(int level) throws SQLException {
-
+        try {
+            session.setTransactionIsolation(connection, level);
+        }catch (SQLException e){
+            errorOccurred = true;
+            throw e;
+        }
     }
 
     @Override
@@ -254,12 +321,24 @@ public class PoolConnectionImpl implements PoolConnection {
 
     @Override
     public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
-        return null;
+        checkOpenStatements();
+        try {
+            return addStatement(wrapSqlExceptions(profiled(connection.prepareStatement(sql, resultSetType, resultSetConcurrency), sql)));
+        }catch (SQLException exception){
+            errorOccurred=true;
+            throw exception;
+        }
     }
 
     @Override
     public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
-        return null;
+        checkOpenStatements();
+        try {
+            return addStatement(wrapSqlExceptions(profiled(connection.prepareCall(sql, resultSetType, resultSetConcurrency), sql)));
+        }catch (SQLException exception){
+            errorOccurred=true;
+            throw exception;
+        }
     }
 
     @Override
@@ -274,12 +353,22 @@ public class PoolConnectionImpl implements PoolConnection {
 
     @Override
     public int getHoldability() throws SQLException {
-        return 0;
+        try {
+            return session.getHoldability(connection);
+        }catch (SQLException e){
+            errorOccurred = true;
+            throw e;
+        }
     }
 
     @Override
     public void setHoldability(int holdability) throws SQLException {
-
+        try {
+            session.setHoldability(connection, holdability);
+        }catch (SQLException e){
+            errorOccurred = true;
+            throw e;
+        }
     }
 
     @Override
@@ -309,12 +398,24 @@ public class PoolConnectionImpl implements PoolConnection {
 
     @Override
     public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
-        return null;
+        checkOpenStatements();
+        try {
+            return addStatement(wrapSqlExceptions(profiled(connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql)));
+        }catch (SQLException exception){
+            errorOccurred=true;
+            throw exception;
+        }
     }
 
     @Override
     public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
-        return null;
+        checkOpenStatements();
+        try {
+            return addStatement(wrapSqlExceptions(profiled(connection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql)));
+        }catch (SQLException exception){
+            errorOccurred=true;
+            throw exception;
+        }
     }
 
     @Override
@@ -389,12 +490,22 @@ public class PoolConnectionImpl implements PoolConnection {
 
     @Override
     public String getSchema() throws SQLException {
-        return "";
+        try {
+            return session.getSchema(connection);
+        }catch (SQLException e){
+            errorOccurred = true;
+            throw e;
+        }
     }
 
     @Override
     public void setSchema(String schema) throws SQLException {
-
+        try {
+            session.setSchema(connection, schema);
+        }catch (SQLException e){
+            errorOccurred = true;
+            throw e;
+        }
     }
 
     @Override
@@ -404,12 +515,22 @@ public class PoolConnectionImpl implements PoolConnection {
 
     @Override
     public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
-
+        try {
+            session.setNetworkTimeout(connection, executor, milliseconds);
+        }catch (SQLException e){
+            errorOccurred = true;
+            throw e;
+        }
     }
 
     @Override
     public int getNetworkTimeout() throws SQLException {
-        return 0;
+        try {
+            return session.getNetworkTimeout(connection);
+        }catch (SQLException e){
+            errorOccurred = true;
+            throw e;
+        }
     }
 
     @Override
@@ -434,30 +555,68 @@ public class PoolConnectionImpl implements PoolConnection {
         }
     }
 
-    private <T> T wrapSqlExceptions(final T object, Class<T> cls) {
-        return cls.cast(Proxy.newProxyInstance(PoolConnectionImpl.class.getClassLoader(), new Class[]{cls}, new InvocationHandler() {
-            @Override
-            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-                try {
-                    // actually call the real object’s method
-                    return method.invoke(object, args);
-                } catch (InvocationTargetException e) {
-                    // reflection wraps any exception thrown by the target in ITE
-                    Throwable target = e.getTargetException();
-                    if (target instanceof SQLException)
-                        errorOccurred = true;      // mark that we saw a SQL error
-                    // re-throw the real exception (not the wrapper)
-                    throw (target != null ? target : e);
-                }
-            }
-        }));
+    /**
+     * Marks the connection as failed, so it is checked before it's reused, unless the exception
+     * reports a call on a closed statement.
+     */
+    SQLException sqlExceptionOccurred(SQLException exception) {
+        if (!(exception instanceof StatementClosedException)) {
+            errorOccurred = true;
+        }
+        return exception;
+    }
+
+    void statementClosed(OpenStatements.Tracked statement) {
+        statements.remove(statement);
     }
 
+    private ErrorTrackingStatement wrapSqlExceptions(Statement statement) {
+        return new ErrorTrackingStatement(statement, this);
+    }
+
+    private ErrorTrackingPreparedStatement wrapSqlExceptions(PreparedStatement statement) {
+        return new ErrorTrackingPreparedStatement(statement, this);
+    }
 
-    private <T extends Statement> T addStatement(T statement) {
-        if (autocloseStatements)
+    private ErrorTrackingCallableStatement wrapSqlExceptions(CallableStatement statement) {
+        return new ErrorTrackingCallableStatement(statement, this);
+    }
+
+    private DatabaseMetaData wrapSqlExceptions(DatabaseMetaData metaData) {
+        return new ErrorTrackingDatabaseMetaData(metaData, this);
+    }
+
+    private Statement profiled(Statement statement) {
+        return profiler == null ? statement : new ProfiledStatement(statement, profiler);
+    }
+
+    private PreparedStatement profiled(PreparedStatement statement, String sql) {
+        return profiler == null ? statement : new ProfiledPreparedStatement(statement, profiler, sql);
+    }
+
+    private CallableStatement profiled(CallableStatement statement, String sql) {
+        return profiler == null ? statement : new ProfiledCallableStatement(statement, profiler, sql);
+    }
+
+    /**
+     * Fails the creation of a statement exceeding {@code maxOpenStatements} before the driver is called,
+     * the connection itself is fine so it isn't marked as failed.
+     */
+    private void checkOpenStatements() throws SQLException {
+        if (autocloseStatements && maxOpenStatements > 0 && statements.size() >= maxOpenStatements) {
+            throw new SQLException(String.format("%d statements of connection '%s' are open, close them before creating more (maxOpenStatements)",
+                    statements.size(), this));
+        }
+    }
+
+    private <T extends OpenStatements.Tracked> T addStatement(T statement) {
+        if (autocloseStatements) {
             statements.add(statement);
+            if (statements.size() == OPEN_STATEMENTS_WARNING_THRESHOLD) {
+                log.warning(String.format("%d statements of connection '%s' are open, are they closed after use?",
+                        OPEN_STATEMENTS_WARNING_THRESHOLD, this));
+            }
+        }
         return statement;
-
     }
 }
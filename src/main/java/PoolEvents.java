@@ -0,0 +1,121 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder events of the pool, enabled and thresholded by the {@code jdbcpool.jfc}
+ * settings. They are emitted with {@code begin()}, {@code end()} and {@code shouldCommit()}
+ * ({@code end()} first, the threshold is checked against the duration it sets): with
+ * recording off the event doesn't escape and the calls compile to a disabled check, the
+ * fields are only filled in when the event is committed.
+ */
+final class PoolEvents {
+    private static final String CATEGORY = "JdbcPool";
+
+    private PoolEvents() {
+    }
+
+    @Name("com.brotech.jdbc.Checkout")
+    @Label("Connection Checkout")
+    @Description("Wait for a connection from the pool, the duration is the wait time")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Checkout extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Timed Out")
+        boolean timedOut;
+    }
+
+    @Name("com.brotech.jdbc.Release")
+    @Label("Connection Release")
+    @Description("Return of a connection to the pool, the duration is the release time")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Release extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Hold Time")
+        @Timespan
+        long holdTime;
+
+        @Label("Validated")
+        boolean validated;
+
+        @Label("Returned To Pool")
+        boolean pooled;
+    }
+
+    @Name("com.brotech.jdbc.Create")
+    @Label("Connection Creation")
+    @Description("Creation of a connection by the connection factory")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Create extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Connect Time")
+        @Timespan
+        long connectTime;
+
+        @Label("Initialization Time")
+        @Description("Session init SQL run by the connection factory")
+        @Timespan
+        long initializationTime;
+
+        @Label("Failed")
+        boolean failed;
+
+        @Label("Error")
+        String error;
+    }
+
+    @Name("com.brotech.jdbc.Validate")
+    @Label("Connection Validation")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Validate extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Valid")
+        boolean valid;
+    }
+
+    @Name("com.brotech.jdbc.Evict")
+    @Label("Connection Eviction")
+    @Description("Connection released by the pool: invalid, stale, leaked or exceeding the max size")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Evict extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Reason")
+        String reason;
+    }
+
+    @Name("com.brotech.jdbc.Leak")
+    @Label("Connection Leak")
+    @Description("Connection checked out for longer than the leak detection threshold")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Leak extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Connection")
+        String connection;
+
+        @Label("Hold Time")
+        @Timespan
+        long holdTime;
+    }
+}
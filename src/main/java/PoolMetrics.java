@@ -0,0 +1,153 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings and counters of an {@link EntityPool}, recorded without locks on the
+ * checkout and release paths: the timers are per-thread log-linear histograms of
+ * nanoseconds, the counters are striped adders.
+ *
+ * <p>{@link #snapshot()} returns the totals since the pool was created; metrics of an
+ * interval are the difference of two snapshots, see {@link Snapshot#since(Snapshot)},
+ * so every reader keeps its own previous snapshot and readers don't reset each other.
+ */
+public final class PoolMetrics {
+
+    public enum Timer {
+        /**
+         * from the checkout request to the entity handed out, timed out requests included
+         */
+        WAIT,
+        /**
+         * from the checkout to the return of an entity
+         */
+        HOLD,
+        /**
+         * creation attempts of the entity factory, failed ones included, without the initialization
+         */
+        CREATE,
+        /**
+         * initializations of new entities reported by the factory, e.g. the session init SQL of a connection
+         */
+        INITIALIZE,
+        /**
+         * checks of an entity by all checkers
+         */
+        VALIDATE,
+        /**
+         * returns of an entity to the pool, validation included
+         */
+        RELEASE
+    }
+
+    public enum Counter {
+        CHECKOUTS,
+        TIMEOUTS,
+        CREATIONS,
+        CREATION_FAILURES,
+        VALIDATION_FAILURES,
+        /**
+         * entities released by the pool: invalid, stale, leaked or exceeding the max size
+         */
+        EVICTIONS,
+        RELEASES
+    }
+
+    private static final Timer[] TIMERS = Timer.values();
+    private static final Counter[] COUNTERS = Counter.values();
+
+    private final PerThreadHistogram[] timers = new PerThreadHistogram[TIMERS.length];
+    private final LongAdder[] counters = new LongAdder[COUNTERS.length];
+
+    PoolMetrics() {
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = new PerThreadHistogram();
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    void record(Timer timer, long nanos) {
+        timers[timer.ordinal()].record(nanos);
+    }
+
+    void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    public Snapshot snapshot() {
+        LatencyHistogram.Snapshot[] timerSnapshots = new LatencyHistogram.Snapshot[timers.length];
+        for (int i = 0; i < timers.length; i++) {
+            timerSnapshots[i] = timers[i].snapshot();
+        }
+        long[] counterValues = new long[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            counterValues[i] = counters[i].sum();
+        }
+        return new Snapshot(System.nanoTime(), -1L, timerSnapshots, counterValues);
+    }
+
+    public static final class Snapshot {
+        private final long takenAt;
+        private final long intervalNanos;
+        private final LatencyHistogram.Snapshot[] timers;
+        private final long[] counters;
+
+        private Snapshot(long takenAt, long intervalNanos, LatencyHistogram.Snapshot[] timers, long[] counters) {
+            this.takenAt = takenAt;
+            this.intervalNanos = intervalNanos;
+            this.timers = timers;
+            this.counters = counters;
+        }
+
+        public LatencyHistogram.Snapshot get(Timer timer) {
+            return timers[timer.ordinal()];
+        }
+
+        public long get(Counter counter) {
+            return counters[counter.ordinal()];
+        }
+
+        /**
+         * @return the length of the interval in ms, -1 for totals since the pool was created
+         */
+        public long getIntervalMillis() {
+            return intervalNanos < 0L ? -1L : TimeUnit.NANOSECONDS.toMillis(intervalNanos);
+        }
+
+        /**
+         * @param earlier a snapshot of the same pool taken before this one
+         * @return the metrics recorded between the two snapshots
+         */
+        public Snapshot since(Snapshot earlier) {
+            LatencyHistogram.Snapshot[] interval = new LatencyHistogram.Snapshot[timers.length];
+            for (int i = 0; i < timers.length; i++) {
+                interval[i] = timers[i].minus(earlier.timers[i]);
+            }
+            long[] counts = new long[counters.length];
+            for (int i = 0; i < counters.length; i++) {
+                counts[i] = counters[i] - earlier.counters[i];
+            }
+            return new Snapshot(takenAt, takenAt - earlier.takenAt, interval, counts);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder("PoolMetrics{");
+            if (intervalNanos >= 0L) {
+                result.append("interval=").append(getIntervalMillis()).append("ms, ");
+            }
+            for (Counter counter : COUNTERS) {
+                result.append(counter.name().toLowerCase()).append('=').append(get(counter)).append(", ");
+            }
+            for (Timer timer : TIMERS) {
+                LatencyHistogram.Snapshot latencies = get(timer);
+                result.append(String.format("%s={count=%d, mean=%.1fus, p99=%.1fus, max=%.1fus}, ",
+                        timer.name().toLowerCase(), latencies.getCount(), latencies.getMean() / 1e3,
+                        latencies.getValueAtPercentile(99d) / 1e3, latencies.getMax() / 1e3));
+            }
+            result.setLength(result.length() - 2);
+            return result.append('}').toString();
+        }
+    }
+}
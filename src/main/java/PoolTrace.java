@@ -0,0 +1,181 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A trace written by {@link PoolTraceRecorder}, as the checkout requests it holds: when each
+ * one arrived, how long it waited and how long it held the entity. The records are ordered by
+ * time, so a trace whose ring wrapped, or which wasn't closed, reads the same; a checkout is
+ * paired with the next release of the same entity, checkouts whose release isn't in the trace
+ * are dropped.
+ */
+public final class PoolTrace {
+    private final long startMillis;
+    private final List<Request> requests;
+    private final long[] creationTimes;
+    private final int unmatched;
+
+    private PoolTrace(long startMillis, List<Request> requests, long[] creationTimes, int unmatched) {
+        this.startMillis = startMillis;
+        this.requests = Collections.unmodifiableList(requests);
+        this.creationTimes = creationTimes;
+        this.unmatched = unmatched;
+    }
+
+    public static PoolTrace read(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+        }
+        if (buffer.capacity() < PoolTraceRecorder.HEADER_BYTES || buffer.getInt(0) != PoolTraceRecorder.MAGIC) {
+            throw new IOException(String.format("'%s' isn't a pool trace", file));
+        }
+        if (buffer.getInt(4) != PoolTraceRecorder.VERSION || buffer.getInt(12) != PoolTraceRecorder.RECORD_BYTES) {
+            throw new IOException(String.format("unsupported pool trace version %d in '%s'", buffer.getInt(4), file));
+        }
+        int records = Math.min(buffer.getInt(8), (buffer.capacity() - PoolTraceRecorder.HEADER_BYTES) / PoolTraceRecorder.RECORD_BYTES);
+        List<Integer> offsets = new ArrayList<>();
+        for (int i = 0; i < records; i++) {
+            int offset = PoolTraceRecorder.HEADER_BYTES + i * PoolTraceRecorder.RECORD_BYTES;
+            if (buffer.getInt(offset + 20) != 0) {
+                offsets.add(offset);
+            }
+        }
+        final ByteBuffer recordBuffer = buffer;
+        offsets.sort(Comparator.comparingLong(recordBuffer::getLong));
+
+        List<Request> requests = new ArrayList<>();
+        Map<Integer, long[]> checkedOut = new HashMap<>();
+        long[] creationTimes = new long[offsets.size()];
+        int creations = 0;
+        for (int offset : offsets) {
+            long time = buffer.getLong(offset);
+            long duration = buffer.getLong(offset + 8);
+            int entity = buffer.getInt(offset + 16);
+            switch (buffer.getInt(offset + 20)) {
+                case PoolTraceRecorder.CHECKOUT:
+                    checkedOut.put(entity, new long[]{time - duration, duration});
+                    break;
+                case PoolTraceRecorder.TIMEOUT:
+                    requests.add(new Request(time - duration, duration, 0L, true));
+                    break;
+                case PoolTraceRecorder.RELEASE:
+                    long[] checkout = checkedOut.remove(entity);
+                    if (checkout != null) {
+                        requests.add(new Request(checkout[0], checkout[1], duration, false));
+                    }
+                    break;
+                case PoolTraceRecorder.CREATE:
+                    creationTimes[creations++] = duration;
+                    break;
+                default:
+                    throw new IOException(String.format("unknown event type %d in pool trace '%s'", buffer.getInt(offset + 20), file));
+            }
+        }
+        requests.sort(Comparator.comparingLong(Request::getArrival));
+        return new PoolTrace(buffer.getLong(16), requests, Arrays.copyOf(creationTimes, creations), checkedOut.size());
+    }
+
+    /**
+     * @return when the recording started, in epoch ms; request times are relative to it
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @return the checkout requests ordered by arrival
+     */
+    public List<Request> getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the creation times in ns
+     */
+    public long[] getCreationTimes() {
+        return creationTimes.clone();
+    }
+
+    /**
+     * @return the checkouts without release in the trace, still held when it ended or released
+     * after the ring wrapped
+     */
+    public int getUnmatched() {
+        return unmatched;
+    }
+
+    /**
+     * @return the mean hold time of the requests that got an entity, in ns
+     */
+    public long getMeanHold() {
+        long sum = 0L;
+        int count = 0;
+        for (Request request : requests) {
+            if (!request.timedOut) {
+                sum += request.hold;
+                count++;
+            }
+        }
+        return count == 0 ? 0L : sum / count;
+    }
+
+    /**
+     * @return the time from the first arrival to the last release, in ns
+     */
+    public long getDuration() {
+        if (requests.isEmpty()) {
+            return 0L;
+        }
+        long end = 0L;
+        for (Request request : requests) {
+            end = Math.max(end, request.arrival + request.wait + request.hold);
+        }
+        return end - requests.get(0).arrival;
+    }
+
+    /**
+     * A checkout request: times are in ns, arrival relative to the start of the recording.
+     */
+    public static final class Request {
+        private final long arrival;
+        private final long wait;
+        private final long hold;
+        private final boolean timedOut;
+
+        Request(long arrival, long wait, long hold, boolean timedOut) {
+            this.arrival = arrival;
+            this.wait = wait;
+            this.hold = hold;
+            this.timedOut = timedOut;
+        }
+
+        public long getArrival() {
+            return arrival;
+        }
+
+        public long getWait() {
+            return wait;
+        }
+
+        /**
+         * @return the hold time, 0 for a request that timed out
+         */
+        public long getHold() {
+            return hold;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the checkouts, timeouts, releases and creations of an {@link EntityPool} into a
+ * memory-mapped ring file, read back by {@link PoolTrace}. A record is a slot claimed with one
+ * atomic increment and four absolute writes to the mapping, no allocation, no system call and
+ * no lock; the page cache writes the file out. When the ring is full the oldest records are
+ * overwritten, so the file holds the last {@code records} events.
+ *
+ * <p>Layout: a {@value #HEADER_BYTES} byte header (magic, version, record count, record size,
+ * start time in epoch ms) followed by {@value #RECORD_BYTES} byte records: time in ns since
+ * the recorder was opened, duration in ns (the wait of a checkout or timeout, the hold time of
+ * a release, the creation time of a creation), the pool's id of the entity and the event type.
+ */
+public final class PoolTraceRecorder implements Closeable {
+    static final int MAGIC = 0x4A505452;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 24;
+    static final int CHECKOUT = 1;
+    static final int TIMEOUT = 2;
+    static final int RELEASE = 3;
+    static final int CREATE = 4;
+    static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int records;
+    private final long startNanos;
+    private final AtomicLong position = new AtomicLong();
+
+    private PoolTraceRecorder(Path file, MappedByteBuffer buffer, int records) {
+        this.file = file;
+        this.buffer = buffer;
+        this.records = records;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Creates or truncates the trace file and maps it.
+     *
+     * @param records capacity of the ring, the file takes {@value #RECORD_BYTES} bytes per record
+     */
+    public static PoolTraceRecorder open(Path file, int records) throws IOException {
+        if (records <= 0 || records > MAX_RECORDS) {
+            throw new IllegalArgumentException(String.format("trace capacity %d must be between 1 and %d records", records, MAX_RECORDS));
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0L, HEADER_BYTES + (long) records * RECORD_BYTES);
+        }
+        PoolTraceRecorder recorder = new PoolTraceRecorder(file, buffer, records);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, records);
+        buffer.putInt(12, RECORD_BYTES);
+        buffer.putLong(16, System.currentTimeMillis());
+        return recorder;
+    }
+
+    /**
+     * @param time {@link System#nanoTime()} of the end of the event
+     */
+    void record(int type, long time, long duration, int entity) {
+        int offset = HEADER_BYTES + (int) (position.getAndIncrement() % records) * RECORD_BYTES;
+        buffer.putLong(offset, time - startNanos);
+        buffer.putLong(offset + 8, duration);
+        buffer.putInt(offset + 16, entity);
+        buffer.putInt(offset + 20, type);
+    }
+
+    /**
+     * @return the number of events recorded, overwritten ones included
+     */
+    public long getRecorded() {
+        return position.get();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes the mapping out; the file stays mapped until the recorder is collected, events
+     * recorded afterwards are still written by the page cache.
+     */
+    @Override
+    public void close() {
+        buffer.force();
+    }
+}
@@ -0,0 +1,82 @@
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Records the executions of a prepared statement in the {@link SqlProfiler}.
+ */
+class ProfiledPreparedStatement extends DelegatingPreparedStatementAdapter {
+    private final StatementProfile profile;
+
+    ProfiledPreparedStatement(PreparedStatement statement, SqlProfiler profiler, String sql) {
+        super(statement);
+        this.profile = new StatementProfile(profiler, sql);
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        long start = profile.start();
+        ResultSet result;
+        try {
+            result = super.executeQuery();
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, 0L);
+        return profile.track(result);
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        long start = profile.start();
+        int count;
+        try {
+            count = super.executeUpdate();
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, count);
+        return count;
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        long start = profile.start();
+        boolean hasResultSet;
+        try {
+            hasResultSet = super.execute();
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, 0L);
+        return hasResultSet;
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        long start = profile.start();
+        int[] counts;
+        try {
+            counts = super.executeBatch();
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, counts);
+        return counts;
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return profile.track(super.getResultSet());
+    }
+
+    @Override
+    public void close() throws SQLException {
+        profile.finishResult();
+        super.close();
+    }
+}
@@ -0,0 +1,39 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Counts the rows read and reports them to the statement's SQL when closed,
+ * or when the statement is closed or executed again.
+ */
+class ProfiledResultSet extends DelegatingResultSetAdapter {
+    private final SqlProfiler.Recorder recorder;
+    private long rows;
+    private boolean reported;
+
+    ProfiledResultSet(ResultSet resultSet, SqlProfiler.Recorder recorder) {
+        super(resultSet);
+        this.recorder = recorder;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        boolean hasRow = super.next();
+        if (hasRow) {
+            rows++;
+        }
+        return hasRow;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        report();
+        super.close();
+    }
+
+    void report() {
+        if (!reported) {
+            reported = true;
+            recorder.fetched(rows);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Records the executions of a plain statement in the {@link SqlProfiler}, each
+ * under the fingerprint of the SQL it executes. A batch is recorded under its
+ * first SQL.
+ */
+class ProfiledStatement extends DelegatingStatementAdapter {
+    private final StatementProfile profile;
+    private String batchSql;
+
+    ProfiledStatement(Statement statement, SqlProfiler profiler) {
+        super(statement);
+        this.profile = new StatementProfile(profiler, null);
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        long start = profile.start(sql);
+        ResultSet result;
+        try {
+            result = super.executeQuery(sql);
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, 0L);
+        return profile.track(result);
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        long start = profile.start(sql);
+        int count;
+        try {
+            count = super.executeUpdate(sql);
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, count);
+        return count;
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        long start = profile.start(sql);
+        int count;
+        try {
+            count = super.executeUpdate(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, count);
+        return count;
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        long start = profile.start(sql);
+        int count;
+        try {
+            count = super.executeUpdate(sql, columnIndexes);
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, count);
+        return count;
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        long start = profile.start(sql);
+        int count;
+        try {
+            count = super.executeUpdate(sql, columnNames);
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, count);
+        return count;
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        long start = profile.start(sql);
+        boolean hasResultSet;
+        try {
+            hasResultSet = super.execute(sql);
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, 0L);
+        return hasResultSet;
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        long start = profile.start(sql);
+        boolean hasResultSet;
+        try {
+            hasResultSet = super.execute(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, 0L);
+        return hasResultSet;
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        long start = profile.start(sql);
+        boolean hasResultSet;
+        try {
+            hasResultSet = super.execute(sql, columnIndexes);
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, 0L);
+        return hasResultSet;
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        long start = profile.start(sql);
+        boolean hasResultSet;
+        try {
+            hasResultSet = super.execute(sql, columnNames);
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, 0L);
+        return hasResultSet;
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        super.addBatch(sql);
+        if (batchSql == null) {
+            batchSql = sql;
+        }
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        super.clearBatch();
+        batchSql = null;
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        long start = profile.start(batchSql);
+        batchSql = null;
+        int[] counts;
+        try {
+            counts = super.executeBatch();
+        } catch (SQLException e) {
+            profile.failed(start);
+            throw e;
+        }
+        profile.executed(start, counts);
+        return counts;
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return profile.track(super.getResultSet());
+    }
+
+    @Override
+    public void close() throws SQLException {
+        profile.finishResult();
+        super.close();
+    }
+}
@@ -0,0 +1,279 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the gauges, counters and latency histograms of the registered pools in the
+ * OpenMetrics text format on {@code /metrics} of the JDK http server, by default on the
+ * loopback interface.
+ *
+ * <p>A scrape renders into a text buffer and a byte buffer kept between scrapes, writing
+ * numbers without formatting, so its cost grows with the number of samples only. The
+ * histogram buckets are coarse bounds over the {@link LatencyHistogram} buckets; a
+ * value may be counted under the bound above its own when they share a bucket.
+ */
+public final class PrometheusExporter {
+    private static final Logger log = LoggerFactory.getLogger(PrometheusExporter.class);
+    private static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+    private static final long[] BUCKET_BOUNDS = {
+            10_000L, 50_000L, 100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L, 1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L};
+    private static final String[] BUCKET_LABELS = new String[BUCKET_BOUNDS.length];
+    private static final PoolMetrics.Timer[] TIMERS = PoolMetrics.Timer.values();
+    private static final PoolMetrics.Counter[] COUNTERS = PoolMetrics.Counter.values();
+    private static final String[] TIMER_NAMES = {
+            "jdbcpool_wait_seconds", "jdbcpool_hold_seconds", "jdbcpool_create_seconds", "jdbcpool_initialize_seconds",
+            "jdbcpool_validate_seconds", "jdbcpool_release_seconds"};
+    private static final String[] TIMER_HELP = {
+            "Time from a checkout request to the connection handed out",
+            "Time connections are checked out",
+            "Time to open a connection, failed attempts included, without the session initialization",
+            "Time to run the session init SQL of a new connection",
+            "Time to validate a connection",
+            "Time to return a connection to the pool"};
+    private static final String[] COUNTER_NAMES = {
+            "jdbcpool_checkouts", "jdbcpool_checkout_timeouts", "jdbcpool_connections_created",
+            "jdbcpool_connection_creation_failures", "jdbcpool_validation_failures",
+            "jdbcpool_connections_evicted", "jdbcpool_releases"};
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            BUCKET_LABELS[i] = Double.toString(BUCKET_BOUNDS[i] / 1e9);
+        }
+    }
+
+    private final Map<String, JdbcPool> pools = new ConcurrentSkipListMap<>();
+    private final InetSocketAddress address;
+    private final StringBuilder text = new StringBuilder(16384);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final long[] bucketCounts = new long[BUCKET_BOUNDS.length];
+    private ByteBuffer bytes = ByteBuffer.allocate(16384);
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param port port on the loopback interface, 0 for an ephemeral one
+     */
+    public PrometheusExporter(int port) {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    public PrometheusExporter(InetSocketAddress address) {
+        this.address = address;
+    }
+
+    public void register(String poolName, JdbcPool pool) {
+        if (pools.putIfAbsent(poolName, pool) != null) {
+            throw new IllegalArgumentException(String.format("a pool named '%s' is already exported", poolName));
+        }
+    }
+
+    public void unregister(String poolName) {
+        pools.remove(poolName);
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("the prometheus exporter is already started");
+        }
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "jdbcPoolPrometheusExporterThread");
+            t.setDaemon(true);
+            return t;
+        });
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            //the server writes headers and body separately, with Nagle a scrape waits for the delayed ack (~40ms)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(address, 0);
+        server.createContext("/metrics", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        log.info("prometheus exporter listening on {}", server.getAddress());
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * @return the bound port, useful when started on port 0
+     */
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("the prometheus exporter isn't started");
+        }
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1L);
+                return;
+            }
+            ByteBuffer body;
+            synchronized (text) {
+                render(text);
+                body = encode(text);
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                if ("HEAD".equals(exchange.getRequestMethod())) {
+                    exchange.sendResponseHeaders(200, -1L);
+                    return;
+                }
+                exchange.sendResponseHeaders(200, body.remaining());
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body.array(), 0, body.remaining());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("failed to render the pool metrics", e);
+            exchange.sendResponseHeaders(500, -1L);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Renders the metrics of all registered pools, every family once with a sample per pool.
+     */
+    void render(StringBuilder out) {
+        out.setLength(0);
+        int n = pools.size();
+        String[] names = new String[n];
+        EntityPool<?>[] entityPools = new EntityPool<?>[n];
+        PoolMetrics.Snapshot[] snapshots = new PoolMetrics.Snapshot[n];
+        int i = 0;
+        for (Map.Entry<String, JdbcPool> entry : pools.entrySet()) {
+            if (i == n) {
+                break;
+            }
+            names[i] = entry.getKey();
+            entityPools[i] = entry.getValue().getEntityPool();
+            snapshots[i] = entityPools[i].getMetrics().snapshot();
+            i++;
+        }
+        n = i;
+
+        family(out, "jdbcpool_connections_max", "gauge", "Max pool size");
+        for (i = 0; i < n; i++) {
+            sample(out, "jdbcpool_connections_max", names[i], entityPools[i].getMaxPoolSize());
+        }
+        family(out, "jdbcpool_connections", "gauge", "Open connections");
+        for (i = 0; i < n; i++) {
+            sample(out, "jdbcpool_connections", names[i], entityPools[i].getCurrentSize());
+        }
+        family(out, "jdbcpool_connections_active", "gauge", "Checked out connections");
+        for (i = 0; i < n; i++) {
+            sample(out, "jdbcpool_connections_active", names[i], entityPools[i].getActiveEntitiesNumber());
+        }
+        family(out, "jdbcpool_connections_idle", "gauge", "Idle connections");
+        for (i = 0; i < n; i++) {
+            sample(out, "jdbcpool_connections_idle", names[i], entityPools[i].getIdleEntitiesEstimate());
+        }
+        family(out, "jdbcpool_threads_waiting", "gauge", "Threads waiting for a connection");
+        for (i = 0; i < n; i++) {
+            sample(out, "jdbcpool_threads_waiting", names[i], entityPools[i].getWaitingThreads());
+        }
+        for (int c = 0; c < COUNTERS.length; c++) {
+            String name = COUNTER_NAMES[c];
+            family(out, name, "counter", null);
+            for (i = 0; i < n; i++) {
+                sample(out, name + "_total", names[i], snapshots[i].get(COUNTERS[c]));
+            }
+        }
+        for (int t = 0; t < TIMERS.length; t++) {
+            String name = TIMER_NAMES[t];
+            family(out, name, "histogram", TIMER_HELP[t]);
+            out.append("# UNIT ").append(name).append(" seconds\n");
+            for (i = 0; i < n; i++) {
+                histogram(out, name, names[i], snapshots[i].get(TIMERS[t]));
+            }
+        }
+        out.append("# EOF\n");
+    }
+
+    private void histogram(StringBuilder out, String name, String pool, LatencyHistogram.Snapshot latencies) {
+        latencies.cumulativeCounts(BUCKET_BOUNDS, bucketCounts);
+        for (int b = 0; b < BUCKET_BOUNDS.length; b++) {
+            bucket(out, name, pool, BUCKET_LABELS[b], bucketCounts[b]);
+        }
+        bucket(out, name, pool, "+Inf", latencies.getCount());
+        labels(out.append(name).append("_count"), pool).append(' ').append(latencies.getCount()).append('\n');
+        labels(out.append(name).append("_sum"), pool).append(' ').append(latencies.getSum() / 1e9).append('\n');
+    }
+
+    private static void bucket(StringBuilder out, String name, String pool, String le, long count) {
+        out.append(name).append("_bucket{pool=\"");
+        escape(out, pool).append("\",le=\"").append(le).append("\"} ").append(count).append('\n');
+    }
+
+    private static void family(StringBuilder out, String name, String type, String help) {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        if (help != null) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        }
+    }
+
+    private static void sample(StringBuilder out, String name, String pool, long value) {
+        labels(out.append(name), pool).append(' ').append(value).append('\n');
+    }
+
+    private static StringBuilder labels(StringBuilder out, String pool) {
+        return escape(out.append("{pool=\""), pool).append("\"}");
+    }
+
+    private static StringBuilder escape(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @return the encoded text in the reused byte buffer, grown when too small
+     */
+    private ByteBuffer encode(CharSequence chars) {
+        while (true) {
+            bytes.clear();
+            encoder.reset();
+            CoderResult result = encoder.encode(CharBuffer.wrap(chars), bytes, true);
+            if (!result.isOverflow()) {
+                result = encoder.flush(bytes);
+            }
+            if (result.isOverflow()) {
+                bytes = ByteBuffer.allocate(bytes.capacity() << 1);
+                continue;
+            }
+            bytes.flip();
+            return bytes;
+        }
+    }
+}
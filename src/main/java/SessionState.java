@@ -0,0 +1,212 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * Client side copy of the session attributes of a pooled connection, so that
+ * getters don't go to the driver and the connection can be reset to the state
+ * it had when it was created.
+ *
+ * <p>An attribute's initial value is read from the driver the first time the
+ * attribute is used, which costs one call per physical connection; auto commit
+ * is read when the connection is created, so a transaction is detected on return
+ * even if the caller never used it. Setting the current value again is skipped. An attribute differing from its initial value
+ * is dirty and {@link #restore(Connection)} resets only the dirty ones, so a
+ * checkout that doesn't touch the session costs nothing on return.
+ *
+ * <p>Changes made by SQL ({@code SET search_path ...}) bypass the tracking.
+ */
+final class SessionState {
+    static final int AUTO_COMMIT = 1;
+    static final int READ_ONLY = 1 << 1;
+    static final int TRANSACTION_ISOLATION = 1 << 2;
+    static final int CATALOG = 1 << 3;
+    static final int SCHEMA = 1 << 4;
+    static final int NETWORK_TIMEOUT = 1 << 5;
+    static final int HOLDABILITY = 1 << 6;
+
+    /**
+     * resets the network timeout on the calling thread, it isn't waiting for anything
+     */
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+    private int known;
+    private int dirty;
+    private boolean initialAutoCommit;
+    private boolean autoCommit;
+    private boolean initialReadOnly;
+    private boolean readOnly;
+    private int initialTransactionIsolation;
+    private int transactionIsolation;
+    private String initialCatalog;
+    private String catalog;
+    private String initialSchema;
+    private String schema;
+    private int initialNetworkTimeout;
+    private int networkTimeout;
+    private int initialHoldability;
+    private int holdability;
+
+    /**
+     * @return true if auto commit is known to be off, without asking the driver
+     */
+    boolean isInTransaction() {
+        return (known & AUTO_COMMIT) != 0 && !autoCommit;
+    }
+
+    /**
+     * @return true if the attribute differs from its initial value
+     */
+    boolean isDirty(int attribute) {
+        return (dirty & attribute) != 0;
+    }
+
+    boolean getAutoCommit(Connection connection) throws SQLException {
+        if ((known & AUTO_COMMIT) == 0) {
+            initialAutoCommit = autoCommit = connection.getAutoCommit();
+            known |= AUTO_COMMIT;
+        }
+        return autoCommit;
+    }
+
+    void setAutoCommit(Connection connection, boolean value) throws SQLException {
+        if (getAutoCommit(connection) != value) {
+            connection.setAutoCommit(value);
+            autoCommit = value;
+            mark(AUTO_COMMIT, value != initialAutoCommit);
+        }
+    }
+
+    boolean isReadOnly(Connection connection) throws SQLException {
+        if ((known & READ_ONLY) == 0) {
+            initialReadOnly = readOnly = connection.isReadOnly();
+            known |= READ_ONLY;
+        }
+        return readOnly;
+    }
+
+    void setReadOnly(Connection connection, boolean value) throws SQLException {
+        if (isReadOnly(connection) != value) {
+            connection.setReadOnly(value);
+            readOnly = value;
+            mark(READ_ONLY, value != initialReadOnly);
+        }
+    }
+
+    int getTransactionIsolation(Connection connection) throws SQLException {
+        if ((known & TRANSACTION_ISOLATION) == 0) {
+            initialTransactionIsolation = transactionIsolation = connection.getTransactionIsolation();
+            known |= TRANSACTION_ISOLATION;
+        }
+        return transactionIsolation;
+    }
+
+    void setTransactionIsolation(Connection connection, int value) throws SQLException {
+        if (getTransactionIsolation(connection) != value) {
+            connection.setTransactionIsolation(value);
+            transactionIsolation = value;
+            mark(TRANSACTION_ISOLATION, value != initialTransactionIsolation);
+        }
+    }
+
+    String getCatalog(Connection connection) throws SQLException {
+        if ((known & CATALOG) == 0) {
+            initialCatalog = catalog = connection.getCatalog();
+            known |= CATALOG;
+        }
+        return catalog;
+    }
+
+    void setCatalog(Connection connection, String value) throws SQLException {
+        if (!Objects.equals(getCatalog(connection), value)) {
+            connection.setCatalog(value);
+            catalog = value;
+            mark(CATALOG, !Objects.equals(value, initialCatalog));
+        }
+    }
+
+    String getSchema(Connection connection) throws SQLException {
+        if ((known & SCHEMA) == 0) {
+            initialSchema = schema = connection.getSchema();
+            known |= SCHEMA;
+        }
+        return schema;
+    }
+
+    void setSchema(Connection connection, String value) throws SQLException {
+        if (!Objects.equals(getSchema(connection), value)) {
+            connection.setSchema(value);
+            schema = value;
+            mark(SCHEMA, !Objects.equals(value, initialSchema));
+        }
+    }
+
+    int getNetworkTimeout(Connection connection) throws SQLException {
+        if ((known & NETWORK_TIMEOUT) == 0) {
+            initialNetworkTimeout = networkTimeout = connection.getNetworkTimeout();
+            known |= NETWORK_TIMEOUT;
+        }
+        return networkTimeout;
+    }
+
+    void setNetworkTimeout(Connection connection, Executor executor, int value) throws SQLException {
+        if (getNetworkTimeout(connection) != value) {
+            connection.setNetworkTimeout(executor, value);
+            networkTimeout = value;
+            mark(NETWORK_TIMEOUT, value != initialNetworkTimeout);
+        }
+    }
+
+    int getHoldability(Connection connection) throws SQLException {
+        if ((known & HOLDABILITY) == 0) {
+            initialHoldability = holdability = connection.getHoldability();
+            known |= HOLDABILITY;
+        }
+        return holdability;
+    }
+
+    void setHoldability(Connection connection, int value) throws SQLException {
+        if (getHoldability(connection) != value) {
+            connection.setHoldability(value);
+            holdability = value;
+            mark(HOLDABILITY, value != initialHoldability);
+        }
+    }
+
+    /**
+     * Resets the dirty attributes to their initial values. Auto commit goes
+     * last: switching it on commits, so a pending transaction must have been
+     * rolled back before.
+     */
+    void restore(Connection connection) throws SQLException {
+        if (dirty == 0) {
+            return;
+        }
+        if ((dirty & READ_ONLY) != 0) {
+            setReadOnly(connection, initialReadOnly);
+        }
+        if ((dirty & TRANSACTION_ISOLATION) != 0) {
+            setTransactionIsolation(connection, initialTransactionIsolation);
+        }
+        if ((dirty & CATALOG) != 0) {
+            setCatalog(connection, initialCatalog);
+        }
+        if ((dirty & SCHEMA) != 0) {
+            setSchema(connection, initialSchema);
+        }
+        if ((dirty & NETWORK_TIMEOUT) != 0) {
+            setNetworkTimeout(connection, DIRECT_EXECUTOR, initialNetworkTimeout);
+        }
+        if ((dirty & HOLDABILITY) != 0) {
+            setHoldability(connection, initialHoldability);
+        }
+        if ((dirty & AUTO_COMMIT) != 0) {
+            setAutoCommit(connection, initialAutoCommit);
+        }
+    }
+
+    private void mark(int attribute, boolean changed) {
+        dirty = changed ? dirty | attribute : dirty & ~attribute;
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes SQL to a fingerprint shared by all executions that differ only in
+ * literal values: string and numeric literals become {@code ?}, comments are
+ * dropped, whitespace is collapsed and lists of placeholders such as
+ * {@code IN (?, ?, ?)} collapse to {@code (?+)}. Quoted identifiers and the
+ * case of the SQL are kept.
+ */
+final class SqlFingerprint {
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\?(?:, \\?)+\\)");
+
+    private SqlFingerprint() {
+    }
+
+    static String of(String sql) {
+        int length = sql.length();
+        StringBuilder builder = new StringBuilder(length);
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = builder.length() > 0;
+                i++;
+                continue;
+            }
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                i = skipLine(sql, i);
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                if (c != ',' && c != ')' && !endsWith(builder, '(')) {
+                    builder.append(' ');
+                }
+                pendingSpace = false;
+            }
+            if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                builder.append('?');
+            } else if (c == '"' || c == '`') {
+                int end = skipQuoted(sql, i, c);
+                builder.append(sql, i, end);
+                i = end;
+            } else if (isNumberStart(sql, i)) {
+                i++;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                builder.append('?');
+            } else {
+                builder.append(c);
+                i++;
+                if (c == ',') {
+                    pendingSpace = true;
+                }
+            }
+        }
+        String fingerprint = builder.toString();
+        return fingerprint.indexOf("(?,") < 0 ? fingerprint : PLACEHOLDER_LIST.matcher(fingerprint).replaceAll("(?+)");
+    }
+
+    private static boolean isNumberStart(String sql, int i) {
+        char c = sql.charAt(i);
+        boolean digit = c >= '0' && c <= '9';
+        if (!digit && !(c == '.' && i + 1 < sql.length() && Character.isDigit(sql.charAt(i + 1)))) {
+            return false;
+        }
+        if (i == 0) {
+            return true;
+        }
+        char previous = sql.charAt(i - 1);
+        return !Character.isLetterOrDigit(previous) && previous != '_' && previous != '$' && previous != '.';
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipLine(String sql, int start) {
+        int end = sql.indexOf('\n', start);
+        return end < 0 ? sql.length() : end + 1;
+    }
+
+    private static boolean endsWith(StringBuilder builder, char c) {
+        return builder.length() > 0 && builder.charAt(builder.length() - 1) == c;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Point-in-time statistics of one SQL fingerprint, see {@link SqlProfiler#snapshot()}.
+ * Rows are the update counts of updates plus the rows read from result sets.
+ */
+public final class SqlStatistics {
+    private final String fingerprint;
+    private final long executions;
+    private final long errors;
+    private final long rows;
+    private final LatencyHistogram.Snapshot latencies;
+
+    SqlStatistics(String fingerprint, long executions, long errors, long rows, LatencyHistogram.Snapshot latencies) {
+        this.fingerprint = fingerprint;
+        this.executions = executions;
+        this.errors = errors;
+        this.rows = rows;
+        this.latencies = latencies;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getTotalNanos() {
+        return latencies.getSum();
+    }
+
+    public LatencyHistogram.Snapshot getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s executions=%d errors=%d rows=%d total=%.3fms mean=%.1fus p99=%.1fus max=%.1fus",
+                fingerprint, executions, errors, rows, latencies.getSum() / 1e6, latencies.getMean() / 1e3,
+                latencies.getValueAtPercentile(99d) / 1e3, latencies.getMax() / 1e3);
+    }
+}
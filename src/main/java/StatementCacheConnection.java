@@ -1,20 +1,523 @@
+import api.ReleasableStatement;
+
+import java.sql.CallableStatement;
 import java.sql.Connection;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.ConcurrentHashMap;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Connection decorator which keeps closed prepared and callable statements open on the
+ * underlying connection and hands them out again for the same SQL, so the
+ * driver doesn't have to parse and plan the statement on every call.
+ *
+ * <p>Statements are keyed by SQL, result set type, concurrency and holdability,
+ * calls in JDBC escape syntax are normalized first (see {@link #normalizeCall(String)}).
+ * Only idle statements (closed by the application) are held by the cache; their
+ * number is bounded by {@code maxCachedStatements} and the {@link StatementCachePolicy}
+ * decides which one is released when the bound is exceeded. Statements not used for a while
+ * are released by {@link StatementCacheConnectionFactory} via
+ * {@link #dropRecentlyNotUsedFromCache(long)} when the pool checks the connection.
+ *
+ * <p>A pooled connection is used by a single thread at a time, the only other
+ * callers are the housekeeping and the pool-wide budget of the factory, so the
+ * cache is guarded by the connection monitor. Physical statements are always
+ * released outside of it. Statements evicted by another connection for the
+ * budget, or by {@link StatementCacheConnectionFactory#dropOldStatements()}, are
+ * unlinked from the cache and released right away if the connection is idle in
+ * the pool ({@link #returned()} and {@link #checkedOut()} tell), holding a lock
+ * the checkout, {@code isValid} and {@code close} wait for. Otherwise the owner
+ * of this connection releases them on its next cache operation or when it returns
+ * the connection, never concurrently with its own work. The factory counts them
+ * as cached until they are released.
+ */
 public class StatementCacheConnection extends DelegatingConnectionAdapter {
-    private final ConcurrentHashMap<Object, BlockingDeque<CachedPrepareStatement>> preparedStatements = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<Object, BlockingDeque<CachedCallableStatement>> calleStatements = new ConcurrentHashMap<>();
+    private static final Logger log = Logger.getLogger(StatementCacheConnection.class.getName());
+    /**
+     * holdability value used in the key when the caller relies on the driver default
+     */
+    private static final int DEFAULT_HOLDABILITY = 0;
+
+    private final Map<Object, Deque<CachedPrepareStatement>> preparedStatements = new HashMap<>();
+    private final Map<Object, Deque<CachedCallableStatement>> calleStatements = new HashMap<>();
+    /**
+     * idle statements in the order they were returned, the head is the least recently used one
+     */
+    private final LinkedHashSet<CachedStatement> idleStatements = new LinkedHashSet<>();
+    /**
+     * statements evicted for the pool-wide budget, waiting to be released by the owning thread
+     */
+    private final ConcurrentLinkedQueue<CachedStatement> pendingRelease = new ConcurrentLinkedQueue<>();
     private final StatementCacheConnectionFactory factory;
-    public StatementCacheConnection(StatementCacheConnectionFactory factory,Connection connection) {
+    private final int maxCachedStatements;
+    private final StatementCachePolicy policy;
+    private final StatementCacheKey.Interner statementKeys;
+    private final StatementCacheKey.Interner callKeys;
+    private long cachedWeight;
+    private boolean closed;
+    /**
+     * guards {@code idle} and the release of evicted statements by other threads while the connection is idle
+     */
+    private final Object idleLock = new Object();
+    /**
+     * true while the connection is idle in the pool, a new connection is owned by its creator until returned
+     */
+    private boolean idle;
+    /**
+     * profile to warm up with once the connection is returned, accessed by the owning thread only
+     */
+    private StatementCacheProfile deferredWarmup;
+
+    public StatementCacheConnection(StatementCacheConnectionFactory factory, Connection connection) {
+        this(factory, connection, StatementCacheConnectionFactory.DEFAULT_MAX_CACHED_STATEMENTS);
+    }
+
+    public StatementCacheConnection(StatementCacheConnectionFactory factory, Connection connection, int maxCachedStatements) {
+        this(factory, connection, maxCachedStatements, StatementCacheConnectionFactory.DEFAULT_POLICY);
+    }
+
+    public StatementCacheConnection(StatementCacheConnectionFactory factory, Connection connection, int maxCachedStatements,
+                                    StatementCachePolicy.Factory policyFactory) {
         super(connection);
         this.factory = factory;
+        this.maxCachedStatements = maxCachedStatements;
+        this.policy = policyFactory.create(maxCachedStatements);
+        this.statementKeys = new StatementCacheKey.Interner(maxCachedStatements);
+        this.callKeys = new StatementCacheKey.Interner(maxCachedStatements, StatementCacheConnection::normalizeCall);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return prepareCached(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, DEFAULT_HOLDABILITY);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return prepareCached(sql, resultSetType, resultSetConcurrency, DEFAULT_HOLDABILITY);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return prepareCached(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return prepareCachedCall(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, DEFAULT_HOLDABILITY);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return prepareCachedCall(sql, resultSetType, resultSetConcurrency, DEFAULT_HOLDABILITY);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return prepareCachedCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        synchronized (idleLock) {
+            List<CachedStatement> toRelease;
+            synchronized (this) {
+                closed = true;
+                toRelease = new ArrayList<>(idleStatements);
+                factory.statementsUnlinked(idleStatements.size(), cachedWeight);
+                idleStatements.clear();
+                cachedWeight = 0L;
+                preparedStatements.clear();
+                calleStatements.clear();
+            }
+            releaseUnlinked(toRelease, "closing connection");
+            releasePending();
+            factory.connectionClosed(this);
+            super.close();
+        }
     }
 
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        synchronized (idleLock) {
+            return super.isValid(timeout);
+        }
+    }
+
+    /**
+     * Called by the pool before it hands the connection out, waits for a release of evicted
+     * statements by another thread to complete.
+     */
+    void checkedOut() {
+        synchronized (idleLock) {
+            idle = false;
+        }
+    }
+
+    /**
+     * Called by the pool before the connection goes back to the idle queue, releases the
+     * statements evicted while it was checked out; the ones evicted while it's idle are
+     * released right away.
+     */
+    void returned() {
+        synchronized (idleLock) {
+            releasePending();
+            idle = true;
+        }
+    }
+
+    /**
+     * Releases the idle statements not used since the given time, and the ones evicted for the
+     * budget. Only for the thread owning the connection or while the connection is idle in the
+     * pool, as done by {@link StatementCacheConnectionFactory#check(PoolConnection)}.
+     */
     public void dropRecentlyNotUsedFromCache(long dropStatementNotUsedSince) {
+        synchronized (idleLock) {
+            releaseUnlinked(unlinkNotUsedSince(dropStatementNotUsedSince), "idle statement eviction");
+            releasePending();
+        }
+    }
+
+    /**
+     * Releases the statements evicted for the budget, see {@link #dropRecentlyNotUsedFromCache(long)}.
+     */
+    void releasePendingStatements() {
+        synchronized (idleLock) {
+            releasePending();
+        }
+    }
+
+    /**
+     * Unlinks the idle statements not used since the given time from any thread, they are
+     * released like the budget evictions.
+     */
+    void dropRecentlyNotUsedFromCacheLater(long dropStatementNotUsedSince) {
+        releaseOrDefer(unlinkNotUsedSince(dropStatementNotUsedSince), "idle statement eviction");
+    }
+
+    /**
+     * Releases statements unlinked by another thread if the connection is idle in the pool,
+     * or leaves them to the owner.
+     */
+    private void releaseOrDefer(List<CachedStatement> statements, String reason) {
+        if (statements.isEmpty()) {
+            return;
+        }
+        synchronized (idleLock) {
+            if (idle) {
+                releaseUnlinked(statements, reason);
+            } else {
+                pendingRelease.addAll(statements);
+            }
+        }
+    }
+
+    private List<CachedStatement> unlinkNotUsedSince(long dropStatementNotUsedSince) {
+        List<CachedStatement> unlinked = new ArrayList<>();
+        synchronized (this) {
+            Iterator<CachedStatement> iterator = idleStatements.iterator();
+            while (iterator.hasNext()) {
+                CachedStatement statement = iterator.next();
+                if (statement.getLastTimeUsed() >= dropStatementNotUsedSince) {
+                    //statements are ordered by last usage, the rest are used recently
+                    break;
+                }
+                iterator.remove();
+                unlink(statement);
+                unlinked.add(statement);
+            }
+        }
+        return unlinked;
+    }
+
+    public synchronized int getCachedStatementsCount() {
+        return idleStatements.size();
+    }
+
+    /**
+     * @return estimated memory pinned by the idle statements of this connection, in bytes
+     */
+    public synchronized long getCachedStatementsWeight() {
+        return cachedWeight;
+    }
+
+    synchronized CachedStatement budgetEvictionCandidate() {
+        return closed ? null : policy.evictionCandidate();
+    }
+
+    /**
+     * Unlinks the statement picked by the pool-wide budget, the statement is released
+     * right away if the connection is idle in the pool, or by the thread owning it.
+     *
+     * @return false if the statement isn't idle any more
+     */
+    boolean evictForBudget(CachedStatement statement) {
+        synchronized (this) {
+            if (!idleStatements.remove(statement)) {
+                return false;
+            }
+            unlink(statement);
+        }
+        releaseOrDefer(Collections.singletonList(statement), "exceeding pool-wide statement cache budget");
+        return true;
+    }
+
+    public int getMaxCachedStatements() {
+        return maxCachedStatements;
+    }
+
+    /**
+     * Prepares the statements of the profile, most used first, and puts them to the
+     * cache. Meant for a new connection before it is handed out, or while it is returned
+     * and not idle in the pool yet; a statement which can't be prepared (e.g. the table is gone since the profile was saved) is skipped.
+     *
+     * @return the number of statements prepared
+     */
+    public int warmUp(StatementCacheProfile profile) {
+        deferredWarmup = null;
+        int prepared = 0;
+        for (StatementCacheProfile.Entry entry : profile.getEntries()) {
+            if (prepared >= maxCachedStatements) {
+                break;
+            }
+            try {
+                if (entry.isCallable()) {
+                    prepareCachedCall(entry.getSql(), entry.getResultSetType(), entry.getResultSetConcurrency(), entry.getResultSetHoldability()).close();
+                } else {
+                    prepareCached(entry.getSql(), entry.getResultSetType(), entry.getResultSetConcurrency(), entry.getResultSetHoldability()).close();
+                }
+                prepared++;
+            } catch (SQLException e) {
+                log.warning(String.format("unable to warm up statement cache with '%s': %s", entry.getSql(), e.getMessage()));
+            }
+        }
+        return prepared;
+    }
+
+    void deferWarmUp(StatementCacheProfile profile) {
+        deferredWarmup = profile;
+    }
+
+    /**
+     * @return the warm-up profile deferred by {@link StatementCacheConnectionFactory#setDeferWarmup(boolean)},
+     * once, or null if there is none
+     */
+    StatementCacheProfile takeDeferredWarmUp() {
+        StatementCacheProfile profile = deferredWarmup;
+        deferredWarmup = null;
+        return profile;
+    }
+
+    /**
+     * Adds the use counts of the cached statements to the collector.
+     */
+    synchronized void collectProfile(StatementCacheProfile.Collector collector) {
+        for (CachedStatement statement : idleStatements) {
+            StatementCacheKey key = (StatementCacheKey) statement.getKey();
+            collector.add(key.getSql(), statement instanceof CachedCallableStatement, key.getResultSetType(),
+                    key.getResultSetConcurrency(), key.getResultSetHoldability(), statement.getUseCount());
+        }
+    }
+
+    private PreparedStatement prepareCached(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        releasePending();
+        StatementCacheKey key = statementKeys.intern(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+        CachedPrepareStatement statement = takeIdle(preparedStatements, key);
+        if (statement == null) {
+            PreparedStatement underlying = resultSetHoldability == DEFAULT_HOLDABILITY
+                    ? super.prepareStatement(sql, resultSetType, resultSetConcurrency)
+                    : super.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            statement = new CachedPrepareStatement(underlying, this, key, factory.weigh(sql));
+        }
+        statement.setOpened();
+        return statement;
+    }
+
+    private CallableStatement prepareCachedCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        releasePending();
+        StatementCacheKey key = callKeys.intern(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+        CachedCallableStatement statement = takeIdle(calleStatements, key);
+        if (statement == null) {
+            CallableStatement underlying = resultSetHoldability == DEFAULT_HOLDABILITY
+                    ? super.prepareCall(sql, resultSetType, resultSetConcurrency)
+                    : super.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            statement = new CachedCallableStatement(underlying, this, key, factory.weigh(sql));
+        }
+        statement.setOpened();
+        return statement;
+    }
+
+    /**
+     * Normalizes the JDBC escape syntax of a call, so that {@code { call p(?) }},
+     * {@code {call p(?)}} and {@code {? = call p(?)}} / {@code {?=call p(?)}} share a cache
+     * entry. Only whitespace outside of the procedure text is touched, literals are kept as is.
+     */
+    static String normalizeCall(String sql) {
+        String call = sql.trim();
+        if (call.length() < 2 || call.charAt(0) != '{' || call.charAt(call.length() - 1) != '}') {
+            return call;
+        }
+        String body = call.substring(1, call.length() - 1).trim();
+        String prefix = "";
+        if (body.startsWith("?")) {
+            int equals = body.indexOf('=');
+            if (equals < 0 || !body.substring(1, equals).trim().isEmpty()) {
+                return call;
+            }
+            prefix = "?=";
+            body = body.substring(equals + 1).trim();
+        }
+        if (body.length() < 5 || !body.regionMatches(true, 0, "call", 0, 4) || !Character.isWhitespace(body.charAt(4))) {
+            return call;
+        }
+        return "{" + prefix + "call " + body.substring(5).trim() + "}";
+    }
+
+    private synchronized <S extends CachedStatement> S takeIdle(Map<Object, Deque<S>> cache, Object key) {
+        policy.recordAccess(key);
+        Deque<S> statements = cache.get(key);
+        if (statements == null) {
+            return null;
+        }
+        S statement = statements.pollFirst();
+        if (statements.isEmpty()) {
+            cache.remove(key);
+        }
+        if (statement != null) {
+            idleStatements.remove(statement);
+            uncacheWeight(statement);
+            policy.onTaken(statement);
+        }
+        return statement;
+    }
+
+    void returnToCache(CachedPrepareStatement statement) {
+        returnToCache(preparedStatements, statement);
+    }
+
+    void returnToCache(CachedCallableStatement statement) {
+        returnToCache(calleStatements, statement);
+    }
+
+    /**
+     * Puts the statement closed by the application back to the cache. The
+     * statement is released instead if it can't be reset or the connection is
+     * already closed.
+     */
+    private <S extends CachedStatement> void returnToCache(Map<Object, Deque<S>> cache, S statement) {
+        statement.setLastTimeUsed(System.currentTimeMillis());
+        try {
+            statement.reset();
+        } catch (SQLException e) {
+            log.log(Level.WARNING, "unable to reset cached statement, it will be released", e);
+            synchronized (this) {
+                policy.onRemoved(statement);
+            }
+            releaseStatement(statement, "failed reset on return");
+            return;
+        }
+        CachedStatement evicted = null;
+        synchronized (this) {
+            if (!closed) {
+                cache.computeIfAbsent(statement.getKey(), k -> new ArrayDeque<>()).addFirst(statement);
+                idleStatements.add(statement);
+                cachedWeight += statement.getWeight();
+                factory.statementsCached(1, statement.getWeight());
+                evicted = policy.onIdle(statement);
+                if (evicted != null) {
+                    idleStatements.remove(evicted);
+                    unlinkEvicted(evicted);
+                }
+                statement = null;
+            } else {
+                policy.onRemoved(statement);
+            }
+        }
+        if (statement != null) {
+            releaseStatement(statement, "connection is closed");
+        }
+        if (evicted != null) {
+            releaseUnlinked(Collections.singletonList(evicted), "exceeding statement cache size");
+        }
+        factory.enforceBudget();
+        releasePending();
+    }
+
+    private void releasePending() {
+        CachedStatement statement;
+        while ((statement = pendingRelease.poll()) != null) {
+            releaseUnlinked(statement, "exceeding pool-wide statement cache budget");
+        }
+    }
+
+    /**
+     * Removes the statement, which is already out of {@code idleStatements}, from the keyed cache and
+     * the policy. The factory counts it as unlinked until {@link #releaseUnlinked} released it.
+     */
+    private void unlink(CachedStatement statement) {
+        policy.onRemoved(statement);
+        unlinkEvicted(statement);
+    }
+
+    /**
+     * {@link #unlink(CachedStatement)} for a statement the policy already dropped.
+     */
+    private void unlinkEvicted(CachedStatement statement) {
+        removeFromKeyedCache(statement);
+        cachedWeight -= statement.getWeight();
+        factory.statementsUnlinked(1, statement.getWeight());
+    }
+
+    private void uncacheWeight(CachedStatement statement) {
+        cachedWeight -= statement.getWeight();
+        factory.statementsUncached(1, statement.getWeight());
+    }
+
+    private void removeFromKeyedCache(CachedStatement statement) {
+        if (statement instanceof CachedCallableStatement) {
+            removeFromKeyedCache(calleStatements, (CachedCallableStatement) statement);
+        } else {
+            removeFromKeyedCache(preparedStatements, (CachedPrepareStatement) statement);
+        }
+    }
+
+    private static <S extends CachedStatement> void removeFromKeyedCache(Map<Object, Deque<S>> cache, S statement) {
+        Deque<S> statements = cache.get(statement.getKey());
+        if (statements != null && statements.remove(statement) && statements.isEmpty()) {
+            cache.remove(statement.getKey());
+        }
+    }
+
+    private void releaseUnlinked(List<CachedStatement> statements, String reason) {
+        for (CachedStatement statement : statements) {
+            releaseUnlinked(statement, reason);
+        }
+    }
+
+    /**
+     * Releases a statement unlinked from the cache, the factory stops counting it once it's closed.
+     */
+    private void releaseUnlinked(CachedStatement statement, String reason) {
+        releaseStatement(statement, reason);
+        factory.statementsReleased(1, statement.getWeight());
     }
 
-    public int getCachedStatementsCount() {
-        return 0;
+    private void releaseStatement(ReleasableStatement statement, String reason) {
+        try {
+            statement.release();
+        } catch (SQLException e) {
+            log.warning(String.format("unexpected exception on attempt to release cached statement '%s' due to %s: %s", statement, reason, e.getMessage()));
+        }
     }
 }
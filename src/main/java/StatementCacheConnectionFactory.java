@@ -2,40 +2,244 @@ import api.EntityChecker;
 
 import java.sql.Connection;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Creates {@link StatementCacheConnection}s, drops their idle statements while
+ * the connections are checked by the pool and keeps the total of cached
+ * statements of all connections within an optional pool-wide budget, by count
+ * ({@code maxTotalStatements}) and/or by estimated weight ({@code maxTotalWeight}).
+ * A non-positive limit means no limit.
+ *
+ * <p>When the budget is exceeded, each connection proposes the statement its own
+ * policy would evict next and the globally least valuable one is evicted: the one
+ * with the highest {@code idle time * weight}, so old and large statements go first.
+ * An evicted statement is counted as cached until it is physically closed, which
+ * for a checked out connection waits for its owner or the next pool check.
+ */
 public class StatementCacheConnectionFactory implements EntityChecker<PoolConnection> {
     private static final Logger log = Logger.getLogger(StatementCacheConnectionFactory.class.getName());
+    public static final int DEFAULT_MAX_CACHED_STATEMENTS = 256;
+    public static final StatementCachePolicy.Factory DEFAULT_POLICY = StatementCachePolicy.windowTinyLfu();
 
     private final ConcurrentHashMap<StatementCacheConnection,Long> connectionsAndCheckTime = new ConcurrentHashMap<>();
     private final long idleStatementCheckPeriod;
     private final long statementIdlePeriod;
+    private final int maxCachedStatementsPerConnection;
+    private final StatementCachePolicy.Factory policyFactory;
+    private final int maxTotalStatements;
+    private final long maxTotalWeight;
+    private final StatementWeigher weigher;
+    private final AtomicInteger totalStatements = new AtomicInteger();
+    private final AtomicLong totalWeight = new AtomicLong();
+    private final AtomicInteger unlinkedStatements = new AtomicInteger();
+    private final AtomicLong unlinkedWeight = new AtomicLong();
+    private final Object budgetLock = new Object();
+    private volatile StatementCacheProfile warmupProfile = StatementCacheProfile.EMPTY;
+    private volatile boolean deferWarmup;
 
     public StatementCacheConnectionFactory(long idleStatementCheckPeriod, long statementIdlePeriod) {
+        this(idleStatementCheckPeriod, statementIdlePeriod, DEFAULT_MAX_CACHED_STATEMENTS);
+    }
+
+    public StatementCacheConnectionFactory(long idleStatementCheckPeriod, long statementIdlePeriod, int maxCachedStatementsPerConnection) {
+        this(idleStatementCheckPeriod, statementIdlePeriod, maxCachedStatementsPerConnection, DEFAULT_POLICY);
+    }
+
+    public StatementCacheConnectionFactory(long idleStatementCheckPeriod, long statementIdlePeriod, int maxCachedStatementsPerConnection,
+                                           StatementCachePolicy.Factory policyFactory) {
+        this(idleStatementCheckPeriod, statementIdlePeriod, maxCachedStatementsPerConnection, policyFactory, 0, 0L, StatementWeigher.DEFAULT);
+    }
+
+    public StatementCacheConnectionFactory(long idleStatementCheckPeriod, long statementIdlePeriod, int maxCachedStatementsPerConnection,
+                                           StatementCachePolicy.Factory policyFactory, int maxTotalStatements, long maxTotalWeight,
+                                           StatementWeigher weigher) {
+        if (weigher == null) {
+            throw new IllegalArgumentException("can't create statement cache with null statement weigher");
+        }
+        if (policyFactory == null) {
+            throw new IllegalArgumentException("can't create statement cache with null cache policy factory");
+        }
+        if (maxCachedStatementsPerConnection <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid statement cache size: %d. the value should be positive", maxCachedStatementsPerConnection));
+        }
         this.idleStatementCheckPeriod = idleStatementCheckPeriod;
         this.statementIdlePeriod = statementIdlePeriod;
+        this.maxCachedStatementsPerConnection = maxCachedStatementsPerConnection;
+        this.policyFactory = policyFactory;
+        this.maxTotalStatements = maxTotalStatements;
+        this.maxTotalWeight = maxTotalWeight;
+        this.weigher = weigher;
     }
     public StatementCacheConnection getConnection(Connection underlying){
-        StatementCacheConnection connection = new StatementCacheConnection(this, underlying);
+        StatementCacheConnection connection = new StatementCacheConnection(this, underlying, maxCachedStatementsPerConnection, policyFactory);
         connectionsAndCheckTime.put(connection,System.currentTimeMillis());
+        StatementCacheProfile profile = warmupProfile;
+        if (!profile.isEmpty()) {
+            if (deferWarmup) {
+                connection.deferWarmUp(profile);
+            } else {
+                connection.warmUp(profile);
+            }
+        }
         return connection;
     }
     void connectionClosed(StatementCacheConnection statementCacheConnection){
         connectionsAndCheckTime.remove(statementCacheConnection);
     }
+    /**
+     * Unlinks the statements idle for longer than the statement idle period from the cache of
+     * every connection. The connections may be checked out, so the statements are released by
+     * their owners or the next check of the connection, see {@link StatementCacheConnection}.
+     */
     public void dropOldStatements(){
+        if (statementIdlePeriod <= 0L) {
+            return;
+        }
         long dropStatementNotUsedSince = System.currentTimeMillis()-statementIdlePeriod;
         for(StatementCacheConnection connection : connectionsAndCheckTime.keySet()){
-            connection.dropRecentlyNotUsedFromCache(dropStatementNotUsedSince);
+            connection.dropRecentlyNotUsedFromCacheLater(dropStatementNotUsedSince);
         }
     }
     public int getCachedStatementsCount(){
-        int result = 0;
-        for (StatementCacheConnection connection: connectionsAndCheckTime.keySet()){
-            result +=connection.getCachedStatementsCount();
+        return totalStatements.get();
+    }
+
+    /**
+     * @return estimated memory pinned by the cached statements of all connections, in bytes
+     */
+    public long getCachedStatementsWeight() {
+        return totalWeight.get();
+    }
+
+    /**
+     * Sets the statements every new connection prepares before it is returned by {@link #getConnection(Connection)},
+     * or later if the warm-up is deferred.
+     */
+    public void setWarmupProfile(StatementCacheProfile warmupProfile) {
+        this.warmupProfile = warmupProfile == null ? StatementCacheProfile.EMPTY : warmupProfile;
+    }
+
+    public StatementCacheProfile getWarmupProfile() {
+        return warmupProfile;
+    }
+
+    /**
+     * @param deferWarmup true to have new connections only remember the warm-up profile, see
+     *                    {@link StatementCacheConnection#takeDeferredWarmUp()}; a connection created
+     *                    for a checkout then doesn't make the caller wait for the prepares
+     */
+    public void setDeferWarmup(boolean deferWarmup) {
+        this.deferWarmup = deferWarmup;
+    }
+
+    /**
+     * Captures the {@code topK} most used statements of all connections. The hits of the
+     * warm-up profile are carried over halved, so statements hot in the previous run keep
+     * their place until the current run has enough history of its own.
+     */
+    public StatementCacheProfile captureProfile(int topK) {
+        StatementCacheProfile.Collector collector = new StatementCacheProfile.Collector();
+        for (StatementCacheProfile.Entry entry : warmupProfile.getEntries()) {
+            collector.add(entry, entry.getHits() / 2);
+        }
+        for (StatementCacheConnection connection : connectionsAndCheckTime.keySet()) {
+            connection.collectProfile(collector);
+        }
+        return collector.top(topK);
+    }
+
+    public int getMaxTotalStatements() {
+        return maxTotalStatements;
+    }
+
+    public long getMaxTotalWeight() {
+        return maxTotalWeight;
+    }
+
+    long weigh(String sql) {
+        return weigher.weigh(sql);
+    }
+
+    void statementsCached(int count, long weight) {
+        totalStatements.addAndGet(count);
+        totalWeight.addAndGet(weight);
+    }
+
+    void statementsUncached(int count, long weight) {
+        totalStatements.addAndGet(-count);
+        totalWeight.addAndGet(-weight);
+    }
+
+    /**
+     * Statements removed from a cache but not closed yet: they stay in the totals and
+     * are no longer candidates of the budget.
+     */
+    void statementsUnlinked(int count, long weight) {
+        unlinkedStatements.addAndGet(count);
+        unlinkedWeight.addAndGet(weight);
+    }
+
+    /**
+     * Unlinked statements which are now closed.
+     */
+    void statementsReleased(int count, long weight) {
+        unlinkedStatements.addAndGet(-count);
+        unlinkedWeight.addAndGet(-weight);
+        statementsUncached(count, weight);
+    }
+
+    /**
+     * @return the statements evicted from a cache and not closed yet, included in {@link #getCachedStatementsCount()}
+     */
+    public int getUnlinkedStatementsCount() {
+        return unlinkedStatements.get();
+    }
+
+    private boolean isOverBudget() {
+        return (maxTotalStatements > 0 && totalStatements.get() - unlinkedStatements.get() > maxTotalStatements)
+                || (maxTotalWeight > 0L && totalWeight.get() - unlinkedWeight.get() > maxTotalWeight);
+    }
+
+    /**
+     * Evicts the globally least valuable idle statements until the cache is within the
+     * budget. Must not be called while holding the monitor of a connection.
+     */
+    void enforceBudget() {
+        if (!isOverBudget()) {
+            return;
         }
-        return result;
+        synchronized (budgetLock) {
+            while (isOverBudget()) {
+                long now = System.currentTimeMillis();
+                StatementCacheConnection victimConnection = null;
+                CachedStatement victim = null;
+                long victimScore = -1L;
+                for (StatementCacheConnection connection : connectionsAndCheckTime.keySet()) {
+                    CachedStatement candidate = connection.budgetEvictionCandidate();
+                    if (candidate == null) {
+                        continue;
+                    }
+                    long score = (now - candidate.getLastTimeUsed() + 1L) * Math.max(1L, candidate.getWeight());
+                    if (score > victimScore) {
+                        victimScore = score;
+                        victim = candidate;
+                        victimConnection = connection;
+                    }
+                }
+                if (victim == null) {
+                    return;
+                }
+                victimConnection.evictForBudget(victim);
+            }
+        }
+    }
+
+    public int getMaxCachedStatementsPerConnection() {
+        return maxCachedStatementsPerConnection;
     }
 
     @Override
@@ -45,15 +249,17 @@ public class StatementCacheConnectionFactory implements EntityChecker<PoolConnec
             StatementCacheConnection statementCacheConnection = (StatementCacheConnection) underlying;
             Long lastCheckTime = connectionsAndCheckTime.get(statementCacheConnection);
             long now = System.currentTimeMillis();
-            if(lastCheckTime + idleStatementCheckPeriod < now){
-                try {
+            try {
+                if(statementIdlePeriod > 0L && lastCheckTime != null && lastCheckTime + idleStatementCheckPeriod < now){
                     statementCacheConnection.dropRecentlyNotUsedFromCache(now-statementIdlePeriod);
                     connectionsAndCheckTime.put(statementCacheConnection,now);
-                }catch (Exception exception){
-                    log.log(Level.WARNING, " error during releasing old statements");
-                    log.warning(exception.getMessage());
-                    return false;
+                } else {
+                    statementCacheConnection.releasePendingStatements();
                 }
+            }catch (Exception exception){
+                log.log(Level.WARNING, " error during releasing old statements");
+                log.warning(exception.getMessage());
+                return false;
             }
         }
         return true;
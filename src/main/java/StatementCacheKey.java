@@ -0,0 +1,128 @@
+import java.util.function.UnaryOperator;
+
+/**
+ * Key of a statement in {@link StatementCacheConnection}: SQL plus result set
+ * type, concurrency and holdability. The hash is computed once, so lookups
+ * never rehash the (possibly long) SQL, and equal keys built from the same SQL
+ * instance compare by reference.
+ *
+ * <p>Keys are obtained from an {@link Interner}, which remembers the key built
+ * for a SQL string instance. SQL is almost always a literal or a constant, so the
+ * same instance comes back on every call and the lookup doesn't allocate.
+ */
+public final class StatementCacheKey {
+    /**
+     * SQL as passed by the caller, used to recognize the same instance
+     */
+    private final String source;
+    private final String sql;
+    private final int resultSetType;
+    private final int resultSetConcurrency;
+    private final int resultSetHoldability;
+    private final int hash;
+
+    StatementCacheKey(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+        this(sql, sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    private StatementCacheKey(String source, String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+        this.source = source;
+        this.sql = sql;
+        this.resultSetType = resultSetType;
+        this.resultSetConcurrency = resultSetConcurrency;
+        this.resultSetHoldability = resultSetHoldability;
+        this.hash = 31 * sql.hashCode() + optionsHash(resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public int getResultSetType() {
+        return resultSetType;
+    }
+
+    public int getResultSetConcurrency() {
+        return resultSetConcurrency;
+    }
+
+    public int getResultSetHoldability() {
+        return resultSetHoldability;
+    }
+
+    private boolean matches(String source, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+        return this.source == source
+                && this.resultSetType == resultSetType
+                && this.resultSetConcurrency == resultSetConcurrency
+                && this.resultSetHoldability == resultSetHoldability;
+    }
+
+    private static int optionsHash(int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+        return (resultSetType * 31 + resultSetConcurrency) * 31 + resultSetHoldability;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StatementCacheKey)) {
+            return false;
+        }
+        StatementCacheKey key = (StatementCacheKey) o;
+        return hash == key.hash
+                && resultSetType == key.resultSetType
+                && resultSetConcurrency == key.resultSetConcurrency
+                && resultSetHoldability == key.resultSetHoldability
+                && sql.equals(key.sql);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+
+    /**
+     * Direct-mapped table of recently used keys, indexed by the identity of the
+     * SQL string and the options. A hit is a reference comparison and returns the
+     * existing key, a miss builds a new key and overwrites the slot. The table has
+     * a fixed size, so dynamically built SQL can't make it grow. Used by a single
+     * connection; a racy slot update only costs an extra key allocation, since keys
+     * are immutable.
+     *
+     * <p>The optional normalizer is applied to the SQL of new keys only, so the
+     * normalized SQL is built once per SQL instance and not on every lookup.
+     */
+    public static final class Interner {
+        private final StatementCacheKey[] slots;
+        private final int mask;
+        private final UnaryOperator<String> normalizer;
+
+        public Interner(int expectedKeys) {
+            this(expectedKeys, UnaryOperator.identity());
+        }
+
+        public Interner(int expectedKeys, UnaryOperator<String> normalizer) {
+            this.normalizer = normalizer;
+            int size = Integer.highestOneBit(Math.max(expectedKeys, 8) * 2 - 1) << 1;
+            this.slots = new StatementCacheKey[size];
+            this.mask = size - 1;
+        }
+
+        public StatementCacheKey intern(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+            int index = (System.identityHashCode(sql) ^ optionsHash(resultSetType, resultSetConcurrency, resultSetHoldability)) & mask;
+            StatementCacheKey key = slots[index];
+            if (key != null && key.matches(sql, resultSetType, resultSetConcurrency, resultSetHoldability)) {
+                return key;
+            }
+            key = new StatementCacheKey(sql, normalizer.apply(sql), resultSetType, resultSetConcurrency, resultSetHoldability);
+            slots[index] = key;
+            return key;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Decides which idle statement a {@link StatementCacheConnection} releases when
+ * its cache is full. Implementations are used by a single connection and are
+ * always called under the connection monitor, so they don't need to be thread safe.
+ *
+ * <p>Statements leave the policy when they are borrowed ({@link #onTaken}) and
+ * come back when the application closes them ({@link #onIdle}), so an
+ * implementation may remember where a borrowed statement was kept.
+ */
+public interface StatementCachePolicy {
+
+    /**
+     * Called on every prepare of the key, whether it is a cache hit or not.
+     */
+    void recordAccess(Object key);
+
+    /**
+     * The statement is closed by the application and becomes idle.
+     *
+     * @return the idle statement which has to be released to stay within the
+     * maximum size (it may be the given statement itself), or {@code null}
+     */
+    CachedStatement onIdle(CachedStatement statement);
+
+    /**
+     * The idle statement is handed out to the application again.
+     */
+    void onTaken(CachedStatement statement);
+
+    /**
+     * The statement is released by the connection and won't come back.
+     */
+    void onRemoved(CachedStatement statement);
+
+    int size();
+
+    /**
+     * @return the idle statement this policy would release next, or {@code null} if
+     * there is none. Used to pick victims across connections for the pool-wide budget.
+     */
+    CachedStatement evictionCandidate();
+
+    /**
+     * Creates a policy for a single connection.
+     */
+    interface Factory {
+        StatementCachePolicy create(int maxSize);
+    }
+
+    static Factory lru() {
+        return LruStatementCachePolicy::new;
+    }
+
+    static Factory windowTinyLfu() {
+        return WindowTinyLfuStatementCachePolicy::new;
+    }
+}
@@ -0,0 +1,243 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The most used statements of the statement cache with their hit counts. A profile
+ * captured by {@link StatementCacheConnectionFactory#captureProfile(int)} is saved to
+ * a local file and loaded on the next start, so new connections can prepare the
+ * hot statements before they are handed out (see {@link StatementCacheConnection#warmUp}).
+ *
+ * <p>The file is plain text, one statement per line:
+ * {@code hits <TAB> P|C <TAB> type <TAB> concurrency <TAB> holdability <TAB> sql},
+ * where {@code C} marks a call and tabs, line breaks and backslashes of the SQL are escaped.
+ */
+public final class StatementCacheProfile {
+    private static final String HEADER = "# jdbcCP statement cache profile v1";
+    public static final StatementCacheProfile EMPTY = new StatementCacheProfile(Collections.emptyList());
+
+    private final List<Entry> entries;
+
+    private StatementCacheProfile(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return entries ordered by hits, most used first
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Writes the profile to a temporary file which then replaces the target, so a
+     * crash during the write never leaves a truncated profile.
+     */
+    public void save(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Entry entry : entries) {
+                    writer.write(entry.hits + "\t" + (entry.callable ? 'C' : 'P') + "\t" + entry.resultSetType + "\t"
+                            + entry.resultSetConcurrency + "\t" + entry.resultSetHoldability + "\t" + escape(entry.sql));
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return the profile stored in the file, or {@link #EMPTY} if there is no such file
+     * @throws IOException if the file can't be read or isn't a statement cache profile
+     */
+    public static StatementCacheProfile load(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (!HEADER.equals(line)) {
+                throw new IOException(String.format("'%s' is not a statement cache profile", file));
+            }
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split("\t", 6);
+                if (fields.length != 6) {
+                    throw new IOException(String.format("malformed statement cache profile entry in '%s': %s", file, line));
+                }
+                try {
+                    entries.add(new Entry(unescape(fields[5]), "C".equals(fields[1]), Integer.parseInt(fields[2]),
+                            Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), Long.parseLong(fields[0])));
+                } catch (NumberFormatException e) {
+                    throw new IOException(String.format("malformed statement cache profile entry in '%s': %s", file, line), e);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return EMPTY;
+        }
+        entries.sort(Entry.BY_HITS);
+        return new StatementCacheProfile(entries);
+    }
+
+    private static String escape(String sql) {
+        StringBuilder builder = new StringBuilder(sql.length());
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            switch (c) {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String unescape(String sql) {
+        StringBuilder builder = new StringBuilder(sql.length());
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c != '\\' || i + 1 == sql.length()) {
+                builder.append(c);
+                continue;
+            }
+            char next = sql.charAt(++i);
+            builder.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+        }
+        return builder.toString();
+    }
+
+    public static final class Entry {
+        private static final Comparator<Entry> BY_HITS = Comparator.comparingLong((Entry e) -> e.hits).reversed();
+
+        private final String sql;
+        private final boolean callable;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+        private final int resultSetHoldability;
+        private final long hits;
+
+        Entry(String sql, boolean callable, int resultSetType, int resultSetConcurrency, int resultSetHoldability, long hits) {
+            this.sql = sql;
+            this.callable = callable;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.resultSetHoldability = resultSetHoldability;
+            this.hits = hits;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public boolean isCallable() {
+            return callable;
+        }
+
+        public int getResultSetType() {
+            return resultSetType;
+        }
+
+        public int getResultSetConcurrency() {
+            return resultSetConcurrency;
+        }
+
+        public int getResultSetHoldability() {
+            return resultSetHoldability;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        private boolean sameStatement(Entry other) {
+            return callable == other.callable && resultSetType == other.resultSetType
+                    && resultSetConcurrency == other.resultSetConcurrency
+                    && resultSetHoldability == other.resultSetHoldability && sql.equals(other.sql);
+        }
+
+        private int statementHash() {
+            return Objects.hash(sql, callable, resultSetType, resultSetConcurrency, resultSetHoldability);
+        }
+    }
+
+    /**
+     * Sums the hits of the same statement reported by several connections.
+     */
+    static final class Collector {
+        private final Map<StatementIdentity, long[]> hits = new HashMap<>();
+
+        void add(String sql, boolean callable, int resultSetType, int resultSetConcurrency, int resultSetHoldability, long count) {
+            Entry entry = new Entry(sql, callable, resultSetType, resultSetConcurrency, resultSetHoldability, 0L);
+            hits.computeIfAbsent(new StatementIdentity(entry), k -> new long[1])[0] += count;
+        }
+
+        void add(Entry entry, long count) {
+            add(entry.sql, entry.callable, entry.resultSetType, entry.resultSetConcurrency, entry.resultSetHoldability, count);
+        }
+
+        StatementCacheProfile top(int topK) {
+            List<Entry> entries = new ArrayList<>(hits.size());
+            for (Map.Entry<StatementIdentity, long[]> e : hits.entrySet()) {
+                Entry entry = e.getKey().entry;
+                entries.add(new Entry(entry.sql, entry.callable, entry.resultSetType, entry.resultSetConcurrency,
+                        entry.resultSetHoldability, e.getValue()[0]));
+            }
+            entries.sort(Entry.BY_HITS);
+            return new StatementCacheProfile(new ArrayList<>(entries.subList(0, Math.min(topK, entries.size()))));
+        }
+    }
+
+    private static final class StatementIdentity {
+        private final Entry entry;
+
+        private StatementIdentity(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StatementIdentity && entry.sameStatement(((StatementIdentity) o).entry);
+        }
+
+        @Override
+        public int hashCode() {
+            return entry.statementHash();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+import java.sql.SQLException;
+
+/**
+ * Thrown by a call on a statement the borrower already closed. It is a misuse of the
+ * statement, not a failure of the connection, so the connection isn't marked as failed.
+ */
+final class StatementClosedException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    StatementClosedException() {
+        super("statement is closed");
+    }
+}
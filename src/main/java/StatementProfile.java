@@ -0,0 +1,64 @@
+import java.sql.ResultSet;
+
+/**
+ * Profiling state of one statement: the recorder of the SQL being executed and
+ * the result set whose rows are still being counted. Statements are used by
+ * one thread at a time, so nothing here is synchronized.
+ */
+final class StatementProfile {
+    private final SqlProfiler profiler;
+    private SqlProfiler.Recorder recorder;
+    private ProfiledResultSet resultSet;
+
+    StatementProfile(SqlProfiler profiler, String sql) {
+        this.profiler = profiler;
+        this.recorder = sql == null ? null : profiler.recorder(sql);
+    }
+
+    long start() {
+        finishResult();
+        return System.nanoTime();
+    }
+
+    long start(String sql) {
+        recorder = profiler.recorder(sql);
+        return start();
+    }
+
+    void executed(long startNanos, long rows) {
+        recorder.executed(startNanos, rows);
+    }
+
+    void executed(long startNanos, int[] updateCounts) {
+        long rows = 0L;
+        for (int count : updateCounts) {
+            if (count > 0) {
+                rows += count;
+            }
+        }
+        recorder.executed(startNanos, rows);
+    }
+
+    void failed(long startNanos) {
+        recorder.failed(startNanos);
+    }
+
+    ResultSet track(ResultSet result) {
+        if (result == null || recorder == null) {
+            return result;
+        }
+        if (resultSet != null && resultSet.getWrappedResultSet() == result) {
+            return resultSet;
+        }
+        finishResult();
+        resultSet = new ProfiledResultSet(result, recorder);
+        return resultSet;
+    }
+
+    void finishResult() {
+        if (resultSet != null) {
+            resultSet.report();
+            resultSet = null;
+        }
+    }
+}
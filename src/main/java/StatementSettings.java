@@ -0,0 +1,72 @@
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Statement settings a borrower of a cached statement may change and {@code clearParameters()}
+ * doesn't reset: max rows (also set by {@code setLargeMaxRows}), fetch size, query timeout,
+ * fetch direction, poolable, escape processing and cursor name. The values the driver returns
+ * are captured before the first change and restored when the statement goes back to the cache,
+ * so the next borrower doesn't get e.g. a result set truncated by the previous one. Statements
+ * which are never tuned cost no driver call.
+ *
+ * <p>Escape processing can't be read, it is restored to the JDBC default, which is on. The cursor
+ * name can't be read nor cleared, so a statement given one is not cached again.
+ */
+final class StatementSettings {
+    private boolean captured;
+    private boolean changed;
+    private boolean escapeProcessingChanged;
+    private boolean cursorNamed;
+    private int maxRows;
+    private int fetchSize;
+    private int queryTimeout;
+    private int fetchDirection;
+    private boolean poolable;
+
+    /**
+     * To be called before a setting of the statement changes, except escape processing and cursor name.
+     */
+    void beforeChange(Statement statement) throws SQLException {
+        if (!captured) {
+            maxRows = statement.getMaxRows();
+            fetchSize = statement.getFetchSize();
+            queryTimeout = statement.getQueryTimeout();
+            fetchDirection = statement.getFetchDirection();
+            poolable = statement.isPoolable();
+            captured = true;
+        }
+        changed = true;
+    }
+
+    void escapeProcessingChanged() {
+        escapeProcessingChanged = true;
+    }
+
+    void cursorNamed() {
+        cursorNamed = true;
+    }
+
+    /**
+     * Restores the captured settings if one was changed since the last restore.
+     *
+     * @throws SQLException if the statement was given a cursor name, it has to be released
+     */
+    void restore(Statement statement) throws SQLException {
+        if (cursorNamed) {
+            throw new SQLException("the cursor name of the statement can't be cleared");
+        }
+        if (escapeProcessingChanged) {
+            statement.setEscapeProcessing(true);
+            escapeProcessingChanged = false;
+        }
+        if (!changed) {
+            return;
+        }
+        statement.setMaxRows(maxRows);
+        statement.setFetchSize(fetchSize);
+        statement.setQueryTimeout(queryTimeout);
+        statement.setFetchDirection(fetchDirection);
+        statement.setPoolable(poolable);
+        changed = false;
+    }
+}
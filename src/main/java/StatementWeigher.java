@@ -0,0 +1,15 @@
+/**
+ * Estimates the memory a cached statement pins, in bytes. Used by
+ * {@link StatementCacheConnectionFactory} to enforce the pool-wide budget of
+ * the statement cache.
+ */
+public interface StatementWeigher {
+    /**
+     * Rough driver-side cost of a prepared statement: a fixed overhead for the
+     * statement, parameter and result metadata plus the SQL text, which is kept
+     * both as a string and as the parsed query.
+     */
+    StatementWeigher DEFAULT = sql -> 1024L + 4L * sql.length();
+
+    long weigh(String sql);
+}
@@ -1,26 +1,31 @@
 import api.ConnectionMethod;
 
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Fails (or logs in log mode) calls from a thread which doesn't own the connection.
+ *
+ * <p>The owner is checked on every call, so the check is a single volatile read
+ * compared with the current thread. Grab and close change the owner between two
+ * increments of {@code generation}, so the generation is odd while they do; only
+ * a call that doesn't come from the owner re-reads the state until it sees the
+ * same even generation before and after, so it never reports a half done grab or close.
+ */
 public class ThreadOwnedPoolConnection extends PoolConnectionDelegate{
     private final Logger log = Logger.getLogger(ThreadOwnedPoolConnection.class.getName());
     private final boolean logMode;
-    private boolean isClosed;
     private static final Set<ConnectionMethod> skipCheckMethods = Stream.of(
             ConnectionMethod.IS_VALID, ConnectionMethod.UNCHECKED_GET_WRAPPED_CONNECTION)
             .collect(Collectors.toSet());
-    private final AtomicReference<Thread> owner = new AtomicReference<>();
-    private final ReentrantReadWriteLock reentrantReadWriteLock = new ReentrantReadWriteLock();
-    private final ReentrantReadWriteLock.ReadLock readLock = reentrantReadWriteLock.readLock();
-    private final ReentrantReadWriteLock.WriteLock writeLock = reentrantReadWriteLock.writeLock();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Thread owner;
+    private volatile boolean isClosed;
 
     public ThreadOwnedPoolConnection(PoolConnection connection, boolean logMode) {
         super(connection);
@@ -29,63 +34,94 @@ public class ThreadOwnedPoolConnection extends PoolConnectionDelegate{
 
     @Override
     protected void doActionBeforeEachMethod(ConnectionMethod method) {
-        readLock.lock();
-        try {
+        if (owner != Thread.currentThread()) {
             checkOwnership(method);
-        }finally {
-            readLock.unlock();
         }
     }
 
     private void checkOwnership(ConnectionMethod method) {
-        if(skipCheckMethods.contains(method) || isCloseInvodkedOnClosedConnection(method)){
+        if(skipCheckMethods.contains(method)){
             return;
         }
-        Thread ownerThread = owner.get();
-        if(!Thread.currentThread().equals(ownerThread)){
-            StringBuilder builder = new StringBuilder();
-            builder.append("[db connection issue] a thread which isn't owner of the target connection")
-                    .append("tries to invoke method on it, where owner is : ").append(ownerThread);
-            if(ownerThread != null){
-                builder.append("\nConnection acquired by owner at: \n");
-                for (StackTraceElement traceElement: ownerThread.getStackTrace()){
-                    builder.append("\tat").append(traceElement).append('\n');
-                }
+        Thread ownerThread;
+        boolean closed;
+        long stableGeneration;
+        while (true) {
+            stableGeneration = generation.get();
+            ownerThread = owner;
+            closed = isClosed;
+            if ((stableGeneration & 1L) == 0L && stableGeneration == generation.get()) {
+                break;
             }
-            IllegalStateException e = new IllegalStateException(builder.toString());
-            if(logMode){
-                log.log(Level.WARNING,e.toString());
-                log.warning(e.getMessage());
-            }else {
-                throw e;
+            Thread.onSpinWait();
+        }
+        if (Thread.currentThread().equals(ownerThread) || isCloseInvokedOnClosedConnection(method, ownerThread, closed)) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append("[db connection issue] a thread which isn't owner of the target connection")
+                .append("tries to invoke method on it, where owner is : ").append(ownerThread);
+        if(ownerThread != null){
+            builder.append("\nConnection acquired by owner at: \n");
+            for (StackTraceElement traceElement: ownerThread.getStackTrace()){
+                builder.append("\tat").append(traceElement).append('\n');
             }
         }
+        IllegalStateException e = new IllegalStateException(builder.toString());
+        if(logMode){
+            log.log(Level.WARNING,e.toString());
+            log.warning(e.getMessage());
+        }else {
+            throw e;
+        }
     }
 
-    private boolean isCloseInvodkedOnClosedConnection(ConnectionMethod method){
-        return ConnectionMethod.CLOSE.equals(method) && owner.get() == null && isClosed;
+    private static boolean isCloseInvokedOnClosedConnection(ConnectionMethod method, Thread ownerThread, boolean closed){
+        return ConnectionMethod.CLOSE.equals(method) && ownerThread == null && closed;
     }
 
     @Override
     public void grab() {
-        writeLock.lock();
+        long previous = beginTransition();
         try {
-            owner.compareAndSet(null,Thread.currentThread());
-            super.grab();
+            if (owner == null) {
+                owner = Thread.currentThread();
+            }
             isClosed = false;
-        }finally {
-            writeLock.unlock();
+        } finally {
+            generation.set(previous + 2L);
         }
+        super.grab();
     }
 
+    /**
+     * Gives up the ownership before the connection is returned to the pool, so
+     * the thread the pool hands it to next becomes the owner.
+     */
     @Override
     public void close() throws SQLException {
+        doActionBeforeEachMethod(ConnectionMethod.CLOSE);
+        long previous = beginTransition();
         try {
-            super.close();
-            owner.set(null);
+            owner = null;
             isClosed = true;
-        }finally {
-            writeLock.unlock();
+        } finally {
+            generation.set(previous + 2L);
+        }
+        poolConnection.close();
+    }
+
+    /**
+     * @return the even generation this thread moved to odd; grab and close of one
+     * connection only overlap when it's misused, so this practically never spins
+     */
+    private long beginTransition() {
+        while (true) {
+            long current = generation.get();
+            if ((current & 1L) == 0L && generation.compareAndSet(current, current + 1L)) {
+                return current;
+            }
+            Thread.onSpinWait();
         }
     }
 }
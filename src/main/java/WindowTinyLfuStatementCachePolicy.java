@@ -0,0 +1,130 @@
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * W-TinyLFU policy, it keeps hot statements cached when the connection also runs
+ * a stream of one-off SQL (reports with inlined literals, ad-hoc queries).
+ *
+ * <p>New statements enter a small LRU window (1% of the cache). A statement
+ * leaving the window becomes a candidate for the main region and is only admitted
+ * if its key was used more often than the key of the main region's victim,
+ * according to a {@link FrequencySketch}. The main region is a segmented LRU:
+ * statements reused from the probation segment are promoted to the protected
+ * segment (80% of the main region), the protected overflow is demoted back to
+ * probation. Victims are taken from probation first.
+ */
+public class WindowTinyLfuStatementCachePolicy implements StatementCachePolicy {
+    private static final double WINDOW_RATIO = 0.01d;
+    private static final double PROTECTED_RATIO = 0.8d;
+
+    private final LinkedHashSet<CachedStatement> window = new LinkedHashSet<>();
+    private final LinkedHashSet<CachedStatement> probation = new LinkedHashSet<>();
+    private final LinkedHashSet<CachedStatement> protectedSegment = new LinkedHashSet<>();
+    /**
+     * segment of the statements currently borrowed by the application
+     */
+    private final Map<CachedStatement, Segment> borrowed = new IdentityHashMap<>();
+    private final FrequencySketch sketch;
+    private final int maxSize;
+    private final int maxWindow;
+    private final int maxProtected;
+
+    private enum Segment {WINDOW, PROBATION, PROTECTED}
+
+    public WindowTinyLfuStatementCachePolicy(int maxSize) {
+        this.maxSize = maxSize;
+        this.maxWindow = Math.max(1, (int) (maxSize * WINDOW_RATIO));
+        this.maxProtected = (int) ((maxSize - maxWindow) * PROTECTED_RATIO);
+        this.sketch = new FrequencySketch(maxSize);
+    }
+
+    @Override
+    public void recordAccess(Object key) {
+        sketch.increment(key);
+    }
+
+    @Override
+    public CachedStatement onIdle(CachedStatement statement) {
+        Segment segment = borrowed.remove(statement);
+        if (segment == null || segment == Segment.WINDOW) {
+            window.add(statement);
+        } else {
+            protectedSegment.add(statement);
+            if (protectedSegment.size() > maxProtected) {
+                probation.add(removeEldest(protectedSegment));
+            }
+        }
+        if (window.size() > maxWindow) {
+            CachedStatement candidate = removeEldest(window);
+            if (size() < maxSize) {
+                probation.add(candidate);
+                return null;
+            }
+            return admit(candidate);
+        }
+        if (size() <= maxSize) {
+            return null;
+        }
+        return removeEldest(!probation.isEmpty() ? probation : !protectedSegment.isEmpty() ? protectedSegment : window);
+    }
+
+    /**
+     * Moves the candidate leaving the window to probation if its key is used more
+     * often than the key of the main region victim, otherwise the candidate is the victim.
+     */
+    private CachedStatement admit(CachedStatement candidate) {
+        LinkedHashSet<CachedStatement> main = !probation.isEmpty() ? probation : protectedSegment;
+        if (main.isEmpty()) {
+            return candidate;
+        }
+        CachedStatement victim = main.iterator().next();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+            main.remove(victim);
+            probation.add(candidate);
+            return victim;
+        }
+        return candidate;
+    }
+
+    @Override
+    public void onTaken(CachedStatement statement) {
+        Segment segment;
+        if (window.remove(statement)) {
+            segment = Segment.WINDOW;
+        } else if (probation.remove(statement)) {
+            segment = Segment.PROBATION;
+        } else if (protectedSegment.remove(statement)) {
+            segment = Segment.PROTECTED;
+        } else {
+            return;
+        }
+        borrowed.put(statement, segment);
+    }
+
+    @Override
+    public void onRemoved(CachedStatement statement) {
+        if (borrowed.remove(statement) == null && !window.remove(statement) && !probation.remove(statement)) {
+            protectedSegment.remove(statement);
+        }
+    }
+
+    @Override
+    public CachedStatement evictionCandidate() {
+        LinkedHashSet<CachedStatement> segment = !probation.isEmpty() ? probation : !protectedSegment.isEmpty() ? protectedSegment : window;
+        return segment.isEmpty() ? null : segment.iterator().next();
+    }
+
+    @Override
+    public int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    private static CachedStatement removeEldest(LinkedHashSet<CachedStatement> segment) {
+        Iterator<CachedStatement> iterator = segment.iterator();
+        CachedStatement eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+}
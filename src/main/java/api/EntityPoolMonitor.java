@@ -1,68 +1,9 @@
 package api;
 
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.logging.Logger;
-
-// Enhanced EntityPool with monitoring capabilities
+/**
+ * Holds the {@link PoolStatistics} of a pool, built from its metrics by {@code JdbcPool#getStatistics()}.
+ */
 public class EntityPoolMonitor<T> {
-    private static final Logger log = Logger.getLogger(EntityPoolMonitor.class.getName());
-
-    private final AtomicLong totalConnectionsCreated = new AtomicLong(0);
-    private final AtomicLong totalConnectionsReused = new AtomicLong(0);
-    private final AtomicLong totalConnectionsReleased = new AtomicLong(0);
-    private final AtomicLong totalWaitTime = new AtomicLong(0);
-    private final AtomicLong totalGetRequests = new AtomicLong(0);
-
-    // Add these methods to your EntityPool class
-
-    public void recordConnectionCreated() {
-        totalConnectionsCreated.incrementAndGet();
-        logPoolStats();
-    }
-
-    public void recordConnectionReused() {
-        totalConnectionsReused.incrementAndGet();
-    }
-
-    public void recordConnectionReleased() {
-        totalConnectionsReleased.incrementAndGet();
-    }
-
-    public void recordGetRequest(long waitTimeMs) {
-        totalGetRequests.incrementAndGet();
-        totalWaitTime.addAndGet(waitTimeMs);
-    }
-
-    public void logPoolStats() {
-        log.info(String.format(
-                "Pool Stats - Created: %d, Reused: %d, Released: %d, Avg Wait: %.2fms, Reuse Rate: %.2f%%",
-                totalConnectionsCreated.get(),
-                totalConnectionsReused.get(),
-                totalConnectionsReleased.get(),
-                getAverageWaitTime(),
-                getReuseRate()
-        ));
-    }
-
-    public double getAverageWaitTime() {
-        long requests = totalGetRequests.get();
-        return requests > 0 ? (double) totalWaitTime.get() / requests : 0.0;
-    }
-
-    public double getReuseRate() {
-        long total = totalConnectionsCreated.get() + totalConnectionsReused.get();
-        return total > 0 ? (double) totalConnectionsReused.get() / total * 100 : 0.0;
-    }
-
-    public PoolStatistics getStatistics() {
-        return new PoolStatistics(
-                totalConnectionsCreated.get(),
-                totalConnectionsReused.get(),
-                totalConnectionsReleased.get(),
-                getAverageWaitTime(),
-                getReuseRate()
-        );
-    }
 
     public static class PoolStatistics {
         public final long connectionsCreated;
@@ -70,22 +11,49 @@ public class EntityPoolMonitor<T> {
         public final long connectionsReleased;
         public final double averageWaitTime;
         public final double reuseRate;
+        public final long connectionCreationFailures;
+        public final double averageCreationTime;
+        public final double maxCreationTime;
+        public final double averageInitializationTime;
+        public final double maxInitializationTime;
 
         public PoolStatistics(long created, long reused, long released,
                               double avgWait, double reuseRate) {
+            this(created, reused, released, avgWait, reuseRate, 0L, 0.0, 0.0);
+        }
+
+        public PoolStatistics(long created, long reused, long released,
+                              double avgWait, double reuseRate,
+                              long creationFailures, double avgCreation, double maxCreation) {
+            this(created, reused, released, avgWait, reuseRate, creationFailures, avgCreation, maxCreation, 0.0, 0.0);
+        }
+
+        public PoolStatistics(long created, long reused, long released,
+                              double avgWait, double reuseRate,
+                              long creationFailures, double avgCreation, double maxCreation,
+                              double avgInitialization, double maxInitialization) {
             this.connectionsCreated = created;
             this.connectionsReused = reused;
             this.connectionsReleased = released;
             this.averageWaitTime = avgWait;
             this.reuseRate = reuseRate;
+            this.connectionCreationFailures = creationFailures;
+            this.averageCreationTime = avgCreation;
+            this.maxCreationTime = maxCreation;
+            this.averageInitializationTime = avgInitialization;
+            this.maxInitializationTime = maxInitialization;
         }
 
         @Override
         public String toString() {
             return String.format(
-                    "PoolStats{created=%d, reused=%d, released=%d, avgWait=%.2fms, reuseRate=%.1f%%}",
+                    "PoolStats{created=%d, reused=%d, released=%d, avgWait=%.2fms, reuseRate=%.1f%%, " +
+                            "creationFailures=%d, avgCreation=%.2fms, maxCreation=%.2fms, " +
+                            "avgInitialization=%.2fms, maxInitialization=%.2fms}",
                     connectionsCreated, connectionsReused, connectionsReleased,
-                    averageWaitTime, reuseRate
+                    averageWaitTime, reuseRate,
+                    connectionCreationFailures, averageCreationTime, maxCreationTime,
+                    averageInitializationTime, maxInitializationTime
             );
         }
     }
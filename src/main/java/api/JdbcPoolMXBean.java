@@ -0,0 +1,74 @@
+package api;
+
+/**
+ * Management interface of a jdbc pool, registered as {@code <jmxDomain>:type=JdbcPool,name=<poolName>}.
+ * The gauges are read from atomics of the pool and the rates and percentiles from the
+ * last aggregation, so reading attributes never takes a pool lock. Times are in ms,
+ * rates per second over the last aggregation period.
+ */
+public interface JdbcPoolMXBean {
+    String getPoolName();
+
+    int getMaxSize();
+
+    int getCurrentSize();
+
+    int getActiveConnections();
+
+    int getIdleConnections();
+
+    int getWaitingThreads();
+
+    int getAvailablePermits();
+
+    long getGeneration();
+
+    long getAggregationPeriod();
+
+    double getCheckoutRate();
+
+    double getTimeoutRate();
+
+    double getCreationRate();
+
+    double getEvictionRate();
+
+    double getValidationFailureRate();
+
+    double getWaitTimeMean();
+
+    double getWaitTime50thPercentile();
+
+    double getWaitTime99thPercentile();
+
+    double getWaitTime999thPercentile();
+
+    double getWaitTimeMax();
+
+    double getHoldTime50thPercentile();
+
+    double getHoldTime99thPercentile();
+
+    double getHoldTimeMax();
+
+    double getCreationTime99thPercentile();
+
+    double getValidationTime99thPercentile();
+
+    double getReleaseTime99thPercentile();
+
+    /**
+     * Replaces all connections without closing the pool.
+     */
+    void softEvictAll();
+
+    /**
+     * Changes the max pool size, at most to the max size the pool was built with.
+     */
+    void resize(int maxSize);
+
+    /**
+     * Validates the idle connections and releases the invalid ones.
+     */
+    void refresh();
+}
@@ -0,0 +1,159 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachedStatementTest {
+    private static final String SQL = "SELECT * FROM account WHERE id = ?";
+    private static final String CALL = "{? = call account_balance(?)}";
+
+    private StatementCacheConnectionFactory factory;
+    private StatementCacheConnection connection;
+
+    @BeforeEach
+    void setUp() {
+        factory = new StatementCacheConnectionFactory(60000, 600000);
+        connection = factory.getConnection(StandInJdbc.connection(0L));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void closedStatementIsReused() throws SQLException {
+        PreparedStatement first = connection.prepareStatement(SQL);
+        first.close();
+
+        assertSame(first, connection.prepareStatement(SQL));
+        assertEquals(0, factory.getCachedStatementsCount());
+    }
+
+    @Test
+    void batchNotExecutedIsNotSentByNextBorrower() throws SQLException {
+        PreparedStatement first = connection.prepareStatement(SQL);
+        first.setInt(1, 1);
+        first.addBatch();
+        first.setInt(1, 2);
+        first.addBatch();
+        first.close();
+
+        PreparedStatement second = connection.prepareStatement(SQL);
+        second.setInt(1, 3);
+        second.addBatch();
+
+        assertEquals(1, second.executeBatch().length);
+    }
+
+    @Test
+    void openResultSetIsClosedOnClose() throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(SQL);
+        ResultSet resultSet = statement.executeQuery();
+        statement.close();
+
+        assertTrue(resultSet.isClosed());
+    }
+
+    @Test
+    void settingsChangedByBorrowerAreRestored() throws SQLException {
+        PreparedStatement first = connection.prepareStatement(SQL);
+        first.setMaxRows(10);
+        first.setFetchSize(500);
+        first.setQueryTimeout(30);
+        first.setFetchDirection(ResultSet.FETCH_REVERSE);
+        first.setPoolable(false);
+        first.setEscapeProcessing(false);
+        first.close();
+
+        PreparedStatement second = connection.prepareStatement(SQL);
+        assertSame(first, second);
+        assertEquals(0, second.getMaxRows());
+        assertEquals(0, second.getFetchSize());
+        assertEquals(0, second.getQueryTimeout());
+        assertEquals(ResultSet.FETCH_FORWARD, second.getFetchDirection());
+        assertTrue(second.isPoolable());
+    }
+
+    @Test
+    void largeMaxRowsIsRestored() throws SQLException {
+        PreparedStatement first = connection.prepareStatement(SQL);
+        first.setLargeMaxRows(10L);
+        first.close();
+
+        assertEquals(0L, connection.prepareStatement(SQL).getLargeMaxRows());
+    }
+
+    @Test
+    void statementWithCursorNameIsNotCachedAgain() throws SQLException {
+        PreparedStatement first = connection.prepareStatement(SQL);
+        first.setCursorName("account_cursor");
+        first.close();
+
+        assertNotSame(first, connection.prepareStatement(SQL));
+    }
+
+    @Test
+    void callsAfterCloseFail() throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(SQL);
+        statement.close();
+
+        SQLException e = assertThrows(SQLException.class, statement::executeQuery);
+        assertEquals("statement is closed", e.getMessage());
+        assertThrows(SQLException.class, () -> statement.setInt(1, 1));
+        assertThrows(SQLException.class, () -> statement.setMaxRows(1));
+        assertTrue(statement.isClosed());
+        statement.close();
+    }
+
+    @Test
+    void callableStatementIsResetLikePrepared() throws SQLException {
+        CallableStatement first = connection.prepareCall(CALL);
+        first.setInt(2, 1);
+        first.addBatch();
+        first.setMaxRows(10);
+        ResultSet resultSet = first.executeQuery();
+        first.close();
+
+        CallableStatement second = connection.prepareCall(CALL);
+        assertSame(first, second);
+        assertTrue(resultSet.isClosed());
+        assertEquals(0, second.getMaxRows());
+        assertEquals(0, second.executeBatch().length);
+        assertFalse(second.isClosed());
+    }
+
+    @Test
+    void staleStatementOfPoolConnectionDoesNotReachNextBorrower() throws Exception {
+        JdbcPoolBuilder builder = new JdbcPoolBuilder(new Properties());
+        builder.setUrl("jdbc:loopback:cached-statement");
+        builder.getEntityPoolBuilder().initialSize(1).maxSize(1);
+        JdbcPool pool = builder.build();
+        try (Connection pooled = pool.getConnection()) {
+            PreparedStatement stale = pooled.prepareStatement(SQL);
+            stale.close();
+            PreparedStatement current = pooled.prepareStatement(SQL);
+            current.setInt(1, 1);
+
+            assertThrows(SQLException.class, () -> stale.setInt(1, 2));
+            assertThrows(SQLException.class, stale::executeQuery);
+            current.executeQuery();
+            assertFalse(((PoolConnectionImpl) pooled).isErrorOccurred());
+        } finally {
+            pool.close();
+        }
+    }
+}
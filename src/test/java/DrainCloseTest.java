@@ -0,0 +1,108 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DrainCloseTest {
+    private static final int SIZE = 3;
+
+    private final List<Connection> physical = new CopyOnWriteArrayList<>();
+    private JdbcPool pool;
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void idleConnectionsAreClosed() throws Exception {
+        pool = pool();
+
+        pool.closeGracefully(5000L, 2).get(5, TimeUnit.SECONDS);
+
+        assertClosed(physical);
+    }
+
+    @Test
+    void checkedOutConnectionIsClosedWhenReturned() throws Exception {
+        pool = pool();
+        Connection held = pool.getConnection();
+
+        CompletableFuture<Void> drained = pool.closeGracefully(5000L, 2);
+        assertFalse(drained.isDone());
+
+        held.close();
+        drained.get(5, TimeUnit.SECONDS);
+        assertClosed(physical);
+    }
+
+    @Test
+    void checkoutFailsOnceDraining() throws Exception {
+        pool = pool();
+        Connection held = pool.getConnection();
+
+        pool.closeGracefully(5000L, 1);
+
+        assertThrows(SQLException.class, pool::getConnection);
+        held.close();
+    }
+
+    @Test
+    void drainTimesOutAndLateReturnIsClosed() throws Exception {
+        pool = pool();
+        Connection held = pool.getConnection();
+
+        CompletableFuture<Void> drained = pool.closeGracefully(50L, 1);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> drained.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+
+        held.close();
+        assertClosed(physical);
+    }
+
+    @Test
+    void secondCloseReturnsTheFirstFuture() throws Exception {
+        pool = pool();
+        Connection held = pool.getConnection();
+
+        CompletableFuture<Void> drained = pool.closeGracefully(5000L, 1);
+
+        assertSame(drained, pool.closeGracefully(5000L, 1));
+        held.close();
+    }
+
+    private JdbcPool pool() throws IllegalAccessException {
+        JdbcPoolBuilder builder = new JdbcPoolBuilder(new Properties());
+        builder.setConnectionFactory(() -> {
+            Connection connection = StandInJdbc.connection(0L);
+            physical.add(connection);
+            return connection;
+        });
+        builder.getEntityPoolBuilder().initialSize(SIZE).maxSize(SIZE);
+        return builder.build();
+    }
+
+    private static void assertClosed(List<Connection> connections) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000L;
+        for (Connection connection : connections) {
+            while (!connection.isClosed() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            assertTrue(connection.isClosed());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrequencySketchTest {
+
+    @Test
+    void unseenKeyHasNoFrequency() {
+        FrequencySketch sketch = new FrequencySketch(64);
+
+        assertEquals(0, sketch.frequency("SELECT 1"));
+    }
+
+    @Test
+    void frequencyCountsIncrementsAndSaturatesAtFifteen() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 1; i <= 20; i++) {
+            sketch.increment("SELECT 1");
+            assertEquals(Math.min(i, 15), sketch.frequency("SELECT 1"));
+        }
+    }
+
+    @Test
+    void countersAreHalvedAfterTenTimesMaxSizeIncrements() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment("hot");
+        }
+        int increments = 15;
+        int i = 0;
+        while (sketch.frequency("hot") == 15) {
+            assertTrue(increments < 10 * 16, "no reset after " + increments + " increments");
+            sketch.increment("one-off " + i++);
+            increments++;
+        }
+
+        assertEquals(7, sketch.frequency("hot"));
+    }
+
+    @Test
+    void keysNotUsedAnyMoreAgeOut() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment("hot");
+        }
+        for (int i = 0; i < 50 * 16; i++) {
+            sketch.increment("one-off " + i);
+        }
+
+        assertTrue(sketch.frequency("hot") <= 2, "frequency " + sketch.frequency("hot"));
+    }
+}
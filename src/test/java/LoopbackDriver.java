@@ -0,0 +1,220 @@
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver of in-process {@link StandInJdbc} connections, to run the pool without a
+ * database, registered with {@link DriverManager} through {@code META-INF/services}. Its
+ * behaviour is set by the url parameters:
+ * <pre>
+ * jdbc:loopback:orders?connectLatency=20ms&amp;statementLatency=2ms&amp;statementDistribution=lognormal&amp;dropRate=0.001
+ * </pre>
+ * <ul>
+ *     <li>{@code connectLatency}, {@code connectFailureRate}: time to connect and probability a connect fails</li>
+ *     <li>{@code statementLatency}, {@code statementDistribution} ({@code fixed}, {@code uniform},
+ *     {@code exponential}, {@code lognormal}), {@code statementSigma} (log-normal only, default 1):
+ *     mean execution time and its distribution</li>
+ *     <li>{@code prepareLatency}, {@code slowPrepareRate}, {@code slowPrepareLatency}: prepare time and
+ *     probability a prepare takes the slow time instead</li>
+ *     <li>{@code validLatency}: cost of {@code isValid}</li>
+ *     <li>{@code dropRate}: probability an execution drops the connection, it then fails every statement
+ *     with sql state 08006 and isn't valid anymore</li>
+ *     <li>{@code seed}: seed of the random sequences, the n-th connection of a url gets the same sequence
+ *     in every run</li>
+ * </ul>
+ * Latencies take a {@code ns}, {@code us}, {@code ms} or {@code s} unit, ms without one. The part
+ * before the parameters names the endpoint, urls differing only by it are distinct endpoints.
+ */
+public final class LoopbackDriver implements Driver {
+    public static final String URL_PREFIX = "jdbc:loopback:";
+    private static final String CONNECTION_FAILURE_STATE = "08001";
+
+    static {
+        try {
+            DriverManager.registerDriver(new LoopbackDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        Endpoint endpoint;
+        try {
+            endpoint = endpoints.computeIfAbsent(url, Endpoint::parse);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException(String.format("invalid loopback url '%s': %s", url, e.getMessage()), e);
+        }
+        SplittableRandom random = new SplittableRandom(endpoint.seed + endpoint.connections.getAndIncrement());
+        StandInJdbc.pause(endpoint.connectNanos);
+        if (endpoint.connectFailureRate > 0d && random.nextDouble() < endpoint.connectFailureRate) {
+            throw new SQLException(String.format("loopback connect to '%s' failed", url), CONNECTION_FAILURE_STATE);
+        }
+        return StandInJdbc.connection(endpoint.profile, random);
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("the loopback driver doesn't log");
+    }
+
+    /**
+     * Settings of a url and the number of connections opened to it.
+     */
+    private static final class Endpoint {
+        final StandInJdbc.Profile profile;
+        final long connectNanos;
+        final double connectFailureRate;
+        final long seed;
+        final AtomicLong connections = new AtomicLong();
+
+        private Endpoint(StandInJdbc.Profile profile, long connectNanos, double connectFailureRate, long seed) {
+            this.profile = profile;
+            this.connectNanos = connectNanos;
+            this.connectFailureRate = connectFailureRate;
+            this.seed = seed;
+        }
+
+        static Endpoint parse(String url) {
+            Properties parameters = new Properties();
+            int query = url.indexOf('?');
+            if (query >= 0) {
+                for (String parameter : url.substring(query + 1).split("&")) {
+                    if (parameter.isEmpty()) {
+                        continue;
+                    }
+                    int separator = parameter.indexOf('=');
+                    if (separator <= 0) {
+                        throw new IllegalArgumentException(String.format("parameter '%s' has no value", parameter));
+                    }
+                    parameters.setProperty(parameter.substring(0, separator), parameter.substring(separator + 1));
+                }
+            }
+            StandInJdbc.Distribution distribution;
+            String distributionName = (String) parameters.remove("statementDistribution");
+            if (distributionName == null) {
+                distributionName = "fixed";
+            }
+            try {
+                distribution = StandInJdbc.Distribution.valueOf(distributionName.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("unknown statement distribution '%s'", distributionName));
+            }
+            StandInJdbc.Profile profile = new StandInJdbc.Profile(
+                    duration(parameters, "prepareLatency"),
+                    rate(parameters, "slowPrepareRate"),
+                    duration(parameters, "slowPrepareLatency"),
+                    distribution,
+                    duration(parameters, "statementLatency"),
+                    number(parameters, "statementSigma", 1d),
+                    duration(parameters, "validLatency"),
+                    rate(parameters, "dropRate"));
+            String seedValue = (String) parameters.remove("seed");
+            long seed;
+            try {
+                seed = seedValue == null ? 0L : Long.parseLong(seedValue);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("invalid seed '%s'", seedValue));
+            }
+            Endpoint endpoint = new Endpoint(profile, duration(parameters, "connectLatency"),
+                    rate(parameters, "connectFailureRate"), seed);
+            if (!parameters.isEmpty()) {
+                throw new IllegalArgumentException(String.format("unknown parameters %s", parameters.keySet()));
+            }
+            return endpoint;
+        }
+
+        /**
+         * Reads and removes a duration parameter, so the parameters left are unknown ones.
+         */
+        private static long duration(Properties parameters, String name) {
+            String value = (String) parameters.remove(name);
+            if (value == null) {
+                return 0L;
+            }
+            long multiplier = 1_000_000L;
+            String number = value;
+            if (value.endsWith("ns")) {
+                multiplier = 1L;
+                number = value.substring(0, value.length() - 2);
+            } else if (value.endsWith("us")) {
+                multiplier = 1_000L;
+                number = value.substring(0, value.length() - 2);
+            } else if (value.endsWith("ms")) {
+                number = value.substring(0, value.length() - 2);
+            } else if (value.endsWith("s")) {
+                multiplier = 1_000_000_000L;
+                number = value.substring(0, value.length() - 1);
+            }
+            try {
+                long duration = Long.parseLong(number.trim());
+                if (duration < 0L) {
+                    throw new IllegalArgumentException(String.format("%s %s must not be negative", name, value));
+                }
+                return Math.multiplyExact(duration, multiplier);
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new IllegalArgumentException(String.format("invalid %s '%s'", name, value));
+            }
+        }
+
+        private static double rate(Properties parameters, String name) {
+            double rate = number(parameters, name, 0d);
+            if (rate < 0d || rate > 1d) {
+                throw new IllegalArgumentException(String.format("%s %s must be between 0 and 1", name, rate));
+            }
+            return rate;
+        }
+
+        private static double number(Properties parameters, String name, double defaultValue) {
+            String value = (String) parameters.remove(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("invalid %s '%s'", name, value));
+            }
+        }
+    }
+}
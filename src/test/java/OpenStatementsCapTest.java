@@ -0,0 +1,76 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OpenStatementsCapTest {
+    private static final String SQL = "SELECT * FROM account WHERE id = ?";
+
+    private JdbcPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JdbcPoolBuilder builder = new JdbcPoolBuilder(new Properties());
+        builder.setUrl("jdbc:loopback:open-statements");
+        builder.setMaxOpenStatements(2);
+        builder.getEntityPoolBuilder().initialSize(1).maxSize(1);
+        pool = builder.build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void statementOverTheCapFails() throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement(SQL);
+            connection.createStatement();
+
+            assertThrows(SQLException.class, () -> connection.prepareStatement(SQL));
+            assertThrows(SQLException.class, connection::createStatement);
+            assertThrows(SQLException.class, () -> connection.prepareCall(SQL));
+        }
+    }
+
+    @Test
+    void connectionSurvivesCapViolation() throws SQLException {
+        Connection first = pool.getConnection();
+        first.prepareStatement(SQL);
+        first.prepareStatement(SQL);
+        assertThrows(SQLException.class, () -> first.prepareStatement(SQL));
+        assertFalse(((PoolConnectionImpl) first).isErrorOccurred());
+        long validations = pool.getMetrics().snapshot().get(PoolMetrics.Timer.VALIDATE).getCount();
+        first.close();
+
+        try (Connection second = pool.getConnection()) {
+            assertSame(first, second);
+            assertEquals(validations, pool.getMetrics().snapshot().get(PoolMetrics.Timer.VALIDATE).getCount());
+        }
+    }
+
+    @Test
+    void closedStatementsAreNotCounted() throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(SQL);
+            connection.prepareStatement(SQL);
+            statement.close();
+
+            connection.prepareStatement(SQL).close();
+        }
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement(SQL);
+            connection.prepareStatement(SQL);
+        }
+    }
+}
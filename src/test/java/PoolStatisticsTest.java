@@ -0,0 +1,67 @@
+import api.EntityPoolMonitor;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PoolStatisticsTest {
+
+    @Test
+    void statisticsCountCheckoutsAndReleases() throws Exception {
+        JdbcPoolBuilder builder = new JdbcPoolBuilder(new Properties());
+        builder.setUrl("jdbc:loopback:statistics");
+        builder.getEntityPoolBuilder().initialSize(2).maxSize(2);
+        JdbcPool pool = builder.build();
+        try {
+            for (int i = 0; i < 5; i++) {
+                try (Connection connection = pool.getConnection()) {
+                    connection.setAutoCommit(true);
+                }
+            }
+
+            EntityPoolMonitor.PoolStatistics statistics = pool.getStatistics();
+            assertEquals(2, statistics.connectionsCreated);
+            assertEquals(5, statistics.connectionsReused);
+            // the initial connections are released to the pool once created
+            assertEquals(7, statistics.connectionsReleased);
+            assertEquals(5.0 / 7 * 100, statistics.reuseRate, 1e-9);
+            assertTrue(statistics.averageCreationTime > 0.0);
+            assertTrue(statistics.maxCreationTime >= statistics.averageCreationTime);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void initSqlIsTimedApartFromTheConnect() throws Exception {
+        JdbcPoolBuilder builder = new JdbcPoolBuilder(new Properties());
+        builder.setUrl("jdbc:loopback:statistics");
+        builder.addConnectionInitSql("SET application_name = 'test'");
+        builder.getEntityPoolBuilder().initialSize(2).maxSize(2);
+        JdbcPool pool = builder.build();
+        try {
+            PoolMetrics.Snapshot snapshot = pool.getMetrics().snapshot();
+            assertEquals(2, snapshot.get(PoolMetrics.Timer.CREATE).getCount());
+            assertEquals(2, snapshot.get(PoolMetrics.Timer.INITIALIZE).getCount());
+            assertTrue(pool.getStatistics().averageInitializationTime > 0.0);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void noInitSqlRecordsNoInitialization() throws Exception {
+        JdbcPoolBuilder builder = new JdbcPoolBuilder(new Properties());
+        builder.setUrl("jdbc:loopback:statistics");
+        builder.getEntityPoolBuilder().initialSize(2).maxSize(2);
+        JdbcPool pool = builder.build();
+        try {
+            assertEquals(0, pool.getMetrics().snapshot().get(PoolMetrics.Timer.INITIALIZE).getCount());
+        } finally {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionStateTest {
+    private final List<Connection> physical = new CopyOnWriteArrayList<>();
+    private JdbcPool pool;
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void transactionIsRolledBackWhenConnectionsDefaultToManualCommit() throws Exception {
+        pool = pool(false);
+
+        Connection first = pool.getConnection();
+        first.prepareStatement("UPDATE account SET balance = 0").executeUpdate();
+        first.close();
+
+        assertEquals(1, StandInJdbc.rollbacks(physical.get(0)));
+        try (Connection second = pool.getConnection()) {
+            assertSame(first, second);
+            assertFalse(second.getAutoCommit());
+        }
+    }
+
+    @Test
+    void autoCommitSwitchedOffIsRolledBackAndRestored() throws Exception {
+        pool = pool(true);
+
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.prepareStatement("UPDATE account SET balance = 0").executeUpdate();
+        }
+
+        assertEquals(1, StandInJdbc.rollbacks(physical.get(0)));
+        assertTrue(physical.get(0).getAutoCommit());
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.getAutoCommit());
+        }
+    }
+
+    @Test
+    void committedCheckoutWithAutoCommitIsNotRolledBack() throws Exception {
+        pool = pool(true);
+
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement("UPDATE account SET balance = 0").executeUpdate();
+        }
+
+        assertEquals(0, StandInJdbc.rollbacks(physical.get(0)));
+    }
+
+    @Test
+    void sessionAttributesAreRestored() throws Exception {
+        pool = pool(true);
+
+        try (Connection connection = pool.getConnection()) {
+            connection.setReadOnly(true);
+            connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            connection.setSchema("audit");
+        }
+
+        Connection restored = physical.get(0);
+        assertFalse(restored.isReadOnly());
+        assertEquals(Connection.TRANSACTION_READ_COMMITTED, restored.getTransactionIsolation());
+        assertEquals("public", restored.getSchema());
+    }
+
+    private JdbcPool pool(boolean autoCommit) throws IllegalAccessException {
+        JdbcPoolBuilder builder = new JdbcPoolBuilder(new Properties());
+        builder.setConnectionFactory(() -> {
+            Connection connection = StandInJdbc.connection(autoCommit);
+            physical.add(connection);
+            return connection;
+        });
+        builder.getEntityPoolBuilder().initialSize(1).maxSize(1);
+        return builder.build();
+    }
+}
@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SoftEvictionTest {
+    private static final int SIZE = 4;
+
+    private JdbcPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void checkoutsDoNotReconnectAllAtOnce() throws Exception {
+        pool = pool(60000L);
+        long creations = count(PoolMetrics.Counter.CREATIONS);
+
+        pool.softEvictAll();
+        for (int i = 0; i < 20; i++) {
+            try (Connection connection = pool.getConnection()) {
+                assertFalse(connection.isClosed());
+            }
+        }
+
+        // the first eviction runs right away, the next one a quarter of the period later
+        assertTrue(count(PoolMetrics.Counter.CREATIONS) - creations <= 1);
+        assertTrue(count(PoolMetrics.Counter.EVICTIONS) <= 1);
+    }
+
+    @Test
+    void staleConnectionsAreReplacedWithinThePeriod() throws Exception {
+        pool = pool(100L);
+        Connection held = pool.getConnection();
+
+        pool.softEvictAll();
+        awaitEvictions(SIZE - 1);
+        assertFalse(held.isClosed());
+        assertEquals(SIZE - 1, count(PoolMetrics.Counter.EVICTIONS));
+
+        held.close();
+        awaitEvictions(SIZE);
+        try (Connection connection = pool.getConnection()) {
+            assertFalse(connection.isClosed());
+        }
+    }
+
+    @Test
+    void laterEvictionTakesOver() throws Exception {
+        pool = pool(100L);
+
+        pool.softEvictAll();
+        pool.softEvictAll();
+
+        awaitEvictions(SIZE);
+        Thread.sleep(200L);
+        assertEquals(SIZE, count(PoolMetrics.Counter.EVICTIONS));
+    }
+
+    private JdbcPool pool(long softEvictionPeriod) throws IllegalAccessException {
+        JdbcPoolBuilder builder = new JdbcPoolBuilder(new Properties());
+        builder.setUrl("jdbc:loopback:soft-eviction");
+        builder.getEntityPoolBuilder().initialSize(SIZE).maxSize(SIZE);
+        builder.setSoftEvictionPeriod(softEvictionPeriod);
+        return builder.build();
+    }
+
+    private long count(PoolMetrics.Counter counter) {
+        return pool.getMetrics().snapshot().get(counter);
+    }
+
+    private void awaitEvictions(long evictions) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (count(PoolMetrics.Counter.EVICTIONS) < evictions && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(evictions, count(PoolMetrics.Counter.EVICTIONS));
+    }
+}
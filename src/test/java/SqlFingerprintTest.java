@@ -0,0 +1,79 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlFingerprintTest {
+
+    @Test
+    void replacesStringLiterals() {
+        assertEquals("SELECT * FROM account WHERE name = ? AND city = ?",
+                SqlFingerprint.of("SELECT * FROM account WHERE name = 'O''Brien' AND city = ''"));
+    }
+
+    @Test
+    void unterminatedStringLiteralEndsTheFingerprint() {
+        assertEquals("SELECT ?", SqlFingerprint.of("SELECT 'abc"));
+    }
+
+    @Test
+    void keepsQuotedIdentifiers() {
+        assertEquals("SELECT \"Account Id\", `order` FROM \"t\"\"x\" WHERE id = ?",
+                SqlFingerprint.of("SELECT \"Account Id\", `order` FROM \"t\"\"x\" WHERE id = 42"));
+    }
+
+    @Test
+    void replacesNumericLiterals() {
+        assertEquals("SELECT * FROM t WHERE a = ? AND b > ? AND c < ? AND d = ?",
+                SqlFingerprint.of("SELECT * FROM t WHERE a = 42 AND b > 3.14 AND c < .5 AND d = 1e10"));
+        assertEquals("SELECT a-? FROM t", SqlFingerprint.of("SELECT a-1 FROM t"));
+    }
+
+    @Test
+    void keepsDigitsOfIdentifiers() {
+        assertEquals("SELECT col1, t2.col_3, $4x FROM table_2 t2 WHERE t2.v9 = ?",
+                SqlFingerprint.of("SELECT col1, t2.col_3, $4x FROM table_2 t2 WHERE t2.v9 = 7"));
+    }
+
+    @Test
+    void dropsComments() {
+        assertEquals("SELECT a FROM t WHERE b = ?",
+                SqlFingerprint.of("/* report 17 */ SELECT a -- the a column\nFROM t /* x */ WHERE b = 1 -- trailing"));
+        assertEquals("SELECT a", SqlFingerprint.of("SELECT a /* unterminated"));
+    }
+
+    @Test
+    void commentMarkersInLiteralsAreLiterals() {
+        assertEquals("SELECT ?, ? FROM t", SqlFingerprint.of("SELECT '-- not a comment', '/* nor this */' FROM t"));
+    }
+
+    @Test
+    void collapsesWhitespace() {
+        assertEquals("SELECT a, b FROM t WHERE f(a) = ?",
+                SqlFingerprint.of("  SELECT\ta ,\n  b\r\nFROM   t WHERE f( a ) = ?  "));
+    }
+
+    @Test
+    void collapsesInLists() {
+        assertEquals("SELECT * FROM t WHERE id IN (?+)", SqlFingerprint.of("SELECT * FROM t WHERE id IN (1, 2, 3)"));
+        assertEquals("SELECT * FROM t WHERE id IN (?+)", SqlFingerprint.of("SELECT * FROM t WHERE id IN (?,?)"));
+        assertEquals("SELECT * FROM t WHERE id IN (?+) AND name IN (?+)",
+                SqlFingerprint.of("SELECT * FROM t WHERE id IN ( 1 ,2 ) AND name IN ('a', 'b', 'c')"));
+    }
+
+    @Test
+    void singleElementListIsNotCollapsed() {
+        assertEquals("SELECT * FROM t WHERE id IN (?)", SqlFingerprint.of("SELECT * FROM t WHERE id IN (1)"));
+    }
+
+    @Test
+    void listsWithExpressionsAreKept() {
+        assertEquals("INSERT INTO t (a, b) VALUES (?, lower(?))",
+                SqlFingerprint.of("INSERT INTO t (a, b) VALUES (1, lower('X'))"));
+    }
+
+    @Test
+    void differentLiteralsShareAFingerprint() {
+        assertEquals(SqlFingerprint.of("UPDATE t SET a = 'x' WHERE id IN (1, 2)"),
+                SqlFingerprint.of("UPDATE  t SET a = 'yy' WHERE id IN (3, 4, 5, 6) -- retry"));
+    }
+}
@@ -0,0 +1,448 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process stand-in for a JDBC connection, used by the tests and benchmarks so they
+ * run without a database. Preparing a statement busy-spins for the configured
+ * time to imitate the parse round-trip, everything else returns immediately
+ * with an empty result; statements keep their settings, batch and result set,
+ * and connections their session attributes, like a driver's. A {@link Profile} adds statement and {@code isValid}
+ * latencies, slow prepares and connection drops, see {@link LoopbackDriver}.
+ */
+public final class StandInJdbc {
+    private static final long PARK_THRESHOLD_NANOS = 200_000L;
+    private static final long PARK_SLACK_NANOS = 80_000L;
+    private static final String CONNECTION_FAILURE_STATE = "08006";
+
+    private StandInJdbc() {
+    }
+
+    public static Connection connection(long prepareNanos) {
+        return connection(new Profile(prepareNanos, 0d, 0L, Distribution.FIXED, 0L, 0d, 0L, 0d), new SplittableRandom(0L));
+    }
+
+    /**
+     * @param autoCommit the auto commit mode of the new connection, like a driver configured with it
+     */
+    static Connection connection(boolean autoCommit) {
+        Connection connection = connection(0L);
+        handler(connection).autoCommit = autoCommit;
+        return connection;
+    }
+
+    /**
+     * @return the rollbacks of a connection of this class
+     */
+    static int rollbacks(Connection connection) {
+        return handler(connection).rollbacks.get();
+    }
+
+    private static ConnectionHandler handler(Connection connection) {
+        return (ConnectionHandler) Proxy.getInvocationHandler(connection);
+    }
+
+    /**
+     * @param random source of the latencies and failures of this connection, a seeded one
+     *               replays the same sequence for the same calls
+     */
+    static Connection connection(Profile profile, SplittableRandom random) {
+        return (Connection) Proxy.newProxyInstance(StandInJdbc.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(profile, random));
+    }
+
+    static void spin(long nanos) {
+        if (nanos <= 0L) {
+            return;
+        }
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Waits like a blocked network call: parks for long waits, which doesn't hold a cpu
+     * and lets more threads wait than there are cores, and spins the park slack and
+     * short waits away.
+     */
+    static void pause(long nanos) {
+        if (nanos >= PARK_THRESHOLD_NANOS) {
+            long end = System.nanoTime() + nanos;
+            LockSupport.parkNanos(nanos - PARK_SLACK_NANOS);
+            spin(end - System.nanoTime());
+        } else {
+            spin(nanos);
+        }
+    }
+
+    static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return Boolean.FALSE;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+
+    private static Object unwrap(Object proxy, Object[] args) throws SQLException {
+        Class<?> iface = (Class<?>) args[0];
+        if (iface.isInstance(proxy)) {
+            return proxy;
+        }
+        throw new SQLException(String.format("stand-in object is not a wrapper for %s", iface));
+    }
+
+    /**
+     * Latencies and failure rates of stand-in connections, rates are probabilities per call.
+     */
+    static final class Profile {
+        final long prepareNanos;
+        final double slowPrepareRate;
+        final long slowPrepareNanos;
+        final Distribution statementDistribution;
+        final long statementNanos;
+        final double statementSigma;
+        final long validNanos;
+        final double dropRate;
+
+        Profile(long prepareNanos, double slowPrepareRate, long slowPrepareNanos, Distribution statementDistribution,
+                long statementNanos, double statementSigma, long validNanos, double dropRate) {
+            this.prepareNanos = prepareNanos;
+            this.slowPrepareRate = slowPrepareRate;
+            this.slowPrepareNanos = slowPrepareNanos;
+            this.statementDistribution = statementDistribution;
+            this.statementNanos = statementNanos;
+            this.statementSigma = statementSigma;
+            this.validNanos = validNanos;
+            this.dropRate = dropRate;
+        }
+    }
+
+    /**
+     * Distributions of the statement execution time around its mean.
+     */
+    enum Distribution {
+        FIXED {
+            @Override
+            long sample(long mean, double sigma, SplittableRandom random) {
+                return mean;
+            }
+        },
+        /**
+         * uniform in [0, 2 * mean]
+         */
+        UNIFORM {
+            @Override
+            long sample(long mean, double sigma, SplittableRandom random) {
+                return mean == 0L ? 0L : random.nextLong(2L * mean + 1L);
+            }
+        },
+        EXPONENTIAL {
+            @Override
+            long sample(long mean, double sigma, SplittableRandom random) {
+                return (long) (-mean * Math.log(1d - random.nextDouble()));
+            }
+        },
+        /**
+         * log-normal with the given mean and {@code sigma} the standard deviation of the log,
+         * the long tail of real query times
+         */
+        LOGNORMAL {
+            @Override
+            long sample(long mean, double sigma, SplittableRandom random) {
+                if (mean == 0L) {
+                    return 0L;
+                }
+                double mu = Math.log(mean) - sigma * sigma / 2d;
+                return (long) Math.exp(mu + sigma * random.nextGaussian());
+            }
+        };
+
+        abstract long sample(long mean, double sigma, SplittableRandom random);
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Profile profile;
+        private final SplittableRandom random;
+        private volatile boolean closed;
+        private volatile boolean dropped;
+        private final AtomicInteger rollbacks = new AtomicInteger();
+        private volatile boolean autoCommit = true;
+        private volatile boolean readOnly;
+        private volatile int transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
+        private volatile String schema = "public";
+
+        private ConnectionHandler(Profile profile, SplittableRandom random) {
+            this.profile = profile;
+            this.random = random;
+        }
+
+        private void prepare() throws SQLException {
+            checkDropped();
+            if (profile.slowPrepareRate > 0d && nextDouble() < profile.slowPrepareRate) {
+                pause(profile.slowPrepareNanos);
+            } else {
+                pause(profile.prepareNanos);
+            }
+        }
+
+        /**
+         * Waits the statement latency, then drops the connection with the drop rate.
+         */
+        private void execute() throws SQLException {
+            checkDropped();
+            long nanos;
+            boolean drop;
+            synchronized (random) {
+                nanos = profile.statementDistribution.sample(profile.statementNanos, profile.statementSigma, random);
+                drop = profile.dropRate > 0d && random.nextDouble() < profile.dropRate;
+            }
+            pause(nanos);
+            if (drop) {
+                dropped = true;
+                throw new SQLException("stand-in connection dropped", CONNECTION_FAILURE_STATE);
+            }
+        }
+
+        private void checkDropped() throws SQLException {
+            if (dropped) {
+                throw new SQLException("stand-in connection was dropped", CONNECTION_FAILURE_STATE);
+            }
+        }
+
+        private double nextDouble() {
+            synchronized (random) {
+                return random.nextDouble();
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "createStatement":
+                    checkDropped();
+                    return statement(Statement.class, (Connection) proxy, this);
+                case "prepareStatement":
+                    prepare();
+                    return statement(PreparedStatement.class, (Connection) proxy, this);
+                case "prepareCall":
+                    prepare();
+                    return statement(CallableStatement.class, (Connection) proxy, this);
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isValid":
+                    pause(profile.validNanos);
+                    return !closed && !dropped;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        rollbacks.incrementAndGet();
+                    }
+                    return null;
+                case "isReadOnly":
+                    return readOnly;
+                case "setReadOnly":
+                    readOnly = (Boolean) args[0];
+                    return null;
+                case "getTransactionIsolation":
+                    return transactionIsolation;
+                case "setTransactionIsolation":
+                    transactionIsolation = (Integer) args[0];
+                    return null;
+                case "getSchema":
+                    return schema;
+                case "setSchema":
+                    schema = (String) args[0];
+                    return null;
+                case "unwrap":
+                    return unwrap(proxy, args);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "StandInConnection@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private static <S extends Statement> S statement(Class<S> type, Connection connection, ConnectionHandler handler) {
+            return type.cast(Proxy.newProxyInstance(StandInJdbc.class.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler(connection, handler, type != Statement.class)));
+        }
+    }
+
+    /**
+     * Keeps the state a borrower can leave on a statement (settings, batch, current result set)
+     * like a driver does, and fails the calls on a closed statement.
+     */
+    private static final class StatementHandler implements InvocationHandler {
+        private final Connection connection;
+        private final ConnectionHandler connectionHandler;
+        private boolean closed;
+        private int maxRows;
+        private int fetchSize;
+        private int queryTimeout;
+        private int fetchDirection = ResultSet.FETCH_FORWARD;
+        private boolean poolable;
+        private int batchSize;
+        private ResultSet resultSet;
+
+        private StatementHandler(Connection connection, ConnectionHandler connectionHandler, boolean poolable) {
+            this.connection = connection;
+            this.connectionHandler = connectionHandler;
+            this.poolable = poolable;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (closed && !"close".equals(name) && !"isClosed".equals(name) && !"hashCode".equals(name)
+                    && !"equals".equals(name) && !"toString".equals(name)) {
+                throw new SQLException("stand-in statement is closed");
+            }
+            switch (name) {
+                case "executeQuery":
+                    connectionHandler.execute();
+                    resultSet = resultSet();
+                    return resultSet;
+                case "execute":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    connectionHandler.execute();
+                    return defaultValue(method.getReturnType());
+                case "executeBatch":
+                    connectionHandler.execute();
+                    int[] counts = new int[batchSize];
+                    batchSize = 0;
+                    return counts;
+                case "executeLargeBatch":
+                    connectionHandler.execute();
+                    long[] largeCounts = new long[batchSize];
+                    batchSize = 0;
+                    return largeCounts;
+                case "addBatch":
+                    batchSize++;
+                    return null;
+                case "clearBatch":
+                    batchSize = 0;
+                    return null;
+                case "getResultSet":
+                    return resultSet;
+                case "getMaxRows":
+                    return maxRows;
+                case "setMaxRows":
+                    maxRows = (Integer) args[0];
+                    return null;
+                case "getLargeMaxRows":
+                    return (long) maxRows;
+                case "setLargeMaxRows":
+                    maxRows = (int) Math.min(Integer.MAX_VALUE, (Long) args[0]);
+                    return null;
+                case "getFetchSize":
+                    return fetchSize;
+                case "setFetchSize":
+                    fetchSize = (Integer) args[0];
+                    return null;
+                case "getQueryTimeout":
+                    return queryTimeout;
+                case "setQueryTimeout":
+                    queryTimeout = (Integer) args[0];
+                    return null;
+                case "getFetchDirection":
+                    return fetchDirection;
+                case "setFetchDirection":
+                    fetchDirection = (Integer) args[0];
+                    return null;
+                case "isPoolable":
+                    return poolable;
+                case "setPoolable":
+                    poolable = (Boolean) args[0];
+                    return null;
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return connection;
+                case "getUpdateCount":
+                    return -1;
+                case "unwrap":
+                    return unwrap(proxy, args);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "StandInStatement@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        /**
+         * @return an empty result set, which knows whether it's closed
+         */
+        private static ResultSet resultSet() {
+            boolean[] closed = new boolean[1];
+            return (ResultSet) Proxy.newProxyInstance(StandInJdbc.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                closed[0] = true;
+                                return null;
+                            case "isClosed":
+                                return closed[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == args[0];
+                            default:
+                                return defaultValue(method.getReturnType());
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementCacheBudgetTest {
+    private static final String LARGE_SQL = "SELECT id, owner, balance, currency, opened, closed FROM account WHERE id = ?";
+    private static final String SQL = "SELECT * FROM account WHERE id = ?";
+    private static final String OTHER_SQL = "SELECT * FROM payment WHERE id = ?";
+
+    private StatementCacheConnectionFactory factory;
+    private StatementCacheConnection victim;
+    private StatementCacheConnection owner;
+
+    @BeforeEach
+    void setUp() {
+        factory = new StatementCacheConnectionFactory(60000, 600000, StatementCacheConnectionFactory.DEFAULT_MAX_CACHED_STATEMENTS,
+                StatementCacheConnectionFactory.DEFAULT_POLICY, 2, 0L, StatementWeigher.DEFAULT);
+        victim = factory.getConnection(StandInJdbc.connection(0L));
+        owner = factory.getConnection(StandInJdbc.connection(0L));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        victim.close();
+        owner.close();
+    }
+
+    @Test
+    void statementOfIdleConnectionIsClosedRightAway() throws SQLException {
+        PreparedStatement physical = cache(victim, LARGE_SQL);
+        victim.returned();
+
+        cache(owner, SQL);
+        cache(owner, OTHER_SQL);
+
+        assertTrue(physical.isClosed());
+        assertEquals(2, factory.getCachedStatementsCount());
+        assertEquals(0, factory.getUnlinkedStatementsCount());
+    }
+
+    @Test
+    void statementOfCheckedOutConnectionIsCountedUntilReturned() throws SQLException {
+        PreparedStatement physical = cache(victim, LARGE_SQL);
+
+        cache(owner, SQL);
+        cache(owner, OTHER_SQL);
+
+        assertFalse(physical.isClosed());
+        assertEquals(3, factory.getCachedStatementsCount());
+        assertEquals(1, factory.getUnlinkedStatementsCount());
+
+        victim.returned();
+
+        assertTrue(physical.isClosed());
+        assertEquals(2, factory.getCachedStatementsCount());
+        assertEquals(0, factory.getUnlinkedStatementsCount());
+    }
+
+    @Test
+    void evictedStatementIsPreparedAgain() throws SQLException {
+        PreparedStatement physical = cache(victim, LARGE_SQL);
+        victim.returned();
+        cache(owner, SQL);
+        cache(owner, OTHER_SQL);
+
+        victim.checkedOut();
+
+        assertNotSame(physical, physical(victim.prepareStatement(LARGE_SQL)));
+    }
+
+    @Test
+    void closingConnectionReleasesItsStatements() throws SQLException {
+        PreparedStatement physical = cache(victim, SQL);
+
+        victim.close();
+
+        assertTrue(physical.isClosed());
+        assertEquals(0, factory.getCachedStatementsCount());
+        assertEquals(0, factory.getUnlinkedStatementsCount());
+    }
+
+    /**
+     * @return the driver statement of the statement put back in the cache
+     */
+    private static PreparedStatement cache(StatementCacheConnection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        statement.close();
+        return physical(statement);
+    }
+
+    private static PreparedStatement physical(PreparedStatement statement) {
+        return ((CachedPrepareStatement) statement).getWrappedStatement();
+    }
+}
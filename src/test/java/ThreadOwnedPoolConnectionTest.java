@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ThreadOwnedPoolConnectionTest {
+    private static final String SQL = "SELECT * FROM account WHERE id = ?";
+
+    private final ExecutorService other = Executors.newSingleThreadExecutor();
+    private JdbcPool pool;
+
+    @AfterEach
+    void tearDown() {
+        other.shutdownNow();
+        pool.close();
+    }
+
+    @Test
+    void ownerUsesConnection() throws Exception {
+        pool = pool(false);
+
+        try (Connection connection = pool.getConnection()) {
+            assertDoesNotThrow(() -> connection.prepareStatement(SQL).close());
+        }
+    }
+
+    @Test
+    void otherThreadFails() throws Exception {
+        pool = pool(false);
+
+        try (Connection connection = pool.getConnection()) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> other.submit(() -> connection.prepareStatement(SQL)).get());
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            assertDoesNotThrow(() -> other.submit(() -> connection.isValid(0)).get());
+        }
+    }
+
+    @Test
+    void otherThreadIsOnlyLoggedInLogMode() throws Exception {
+        pool = pool(true);
+
+        try (Connection connection = pool.getConnection()) {
+            assertDoesNotThrow(() -> other.submit(() -> connection.prepareStatement(SQL)).get());
+        }
+    }
+
+    @Test
+    void nextBorrowerOwnsReturnedConnection() throws Exception {
+        pool = pool(false);
+        Connection first = pool.getConnection();
+        first.close();
+
+        Connection second = other.submit(() -> {
+            Connection connection = pool.getConnection();
+            connection.prepareStatement(SQL).close();
+            return connection;
+        }).get();
+
+        assertSame(first, second);
+        assertThrows(IllegalStateException.class, () -> second.prepareStatement(SQL));
+        other.submit(() -> {
+            second.close();
+            return null;
+        }).get();
+    }
+
+    @Test
+    void closeOfClosedConnectionIsTolerated() throws Exception {
+        pool = pool(false);
+        Connection connection = pool.getConnection();
+        connection.close();
+
+        assertDoesNotThrow(() -> other.submit(() -> {
+            connection.close();
+            return null;
+        }).get());
+    }
+
+    private static JdbcPool pool(boolean logMode) throws IllegalAccessException {
+        JdbcPoolBuilder builder = new JdbcPoolBuilder(new Properties());
+        builder.setUrl("jdbc:loopback:thread-owned");
+        builder.setCheckConnectionThreadOwnerShip(true);
+        builder.setUseLogModeToCheckThreadOwnerShip(logMode);
+        builder.getEntityPoolBuilder().initialSize(1).maxSize(1);
+        return builder.build();
+    }
+}
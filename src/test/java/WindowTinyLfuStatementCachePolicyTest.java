@@ -0,0 +1,202 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WindowTinyLfuStatementCachePolicyTest {
+
+    @Test
+    void keepsEveryStatementWhileBelowMaxSize() {
+        Cache cache = new Cache(new WindowTinyLfuStatementCachePolicy(10));
+        for (int i = 0; i < 10; i++) {
+            assertNull(cache.use("q" + i));
+        }
+
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    void rejectsCandidateUsedLessOftenThanVictim() {
+        Cache cache = new Cache(new WindowTinyLfuStatementCachePolicy(10));
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10; i++) {
+                cache.use("q" + i);
+            }
+        }
+        cache.use("one-off 1");
+
+        // one-off 1 leaves the window and loses against the victim, which was used 3 times
+        assertEquals("one-off 1", cache.use("one-off 2"));
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    void admitsCandidateUsedMoreOftenThanVictim() {
+        Cache cache = new Cache(new WindowTinyLfuStatementCachePolicy(10));
+        for (int i = 0; i < 10; i++) {
+            cache.use("q" + i);
+        }
+        for (int i = 0; i < 5; i++) {
+            cache.use("popular");
+        }
+
+        Object evicted = cache.use("one-off");
+
+        assertTrue(cache.contains("popular"));
+        assertTrue(evicted != null && !"popular".equals(evicted) && !"one-off".equals(evicted), "evicted " + evicted);
+    }
+
+    @Test
+    void scanOfOneOffStatementsKeepsHotStatements() {
+        Cache tinyLfu = new Cache(new WindowTinyLfuStatementCachePolicy(100));
+        Cache lru = new Cache(new LruStatementCachePolicy(100));
+        int oneOff = 0;
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 50; i++) {
+                tinyLfu.use("hot " + i);
+                lru.use("hot " + i);
+            }
+            for (int i = 0; i < 200; i++, oneOff++) {
+                tinyLfu.use("one-off " + oneOff);
+                lru.use("one-off " + oneOff);
+            }
+        }
+
+        int hotInTinyLfu = 0;
+        int hotInLru = 0;
+        for (int i = 0; i < 50; i++) {
+            hotInTinyLfu += tinyLfu.contains("hot " + i) ? 1 : 0;
+            hotInLru += lru.contains("hot " + i) ? 1 : 0;
+        }
+        assertEquals(0, hotInLru);
+        assertTrue(hotInTinyLfu >= 45, hotInTinyLfu + " of 50 hot statements cached");
+    }
+
+    @Test
+    void evictionCandidateIsTakenFromProbationFirst() {
+        WindowTinyLfuStatementCachePolicy policy = new WindowTinyLfuStatementCachePolicy(10);
+        Cache cache = new Cache(policy);
+        for (int i = 0; i < 10; i++) {
+            cache.use("q" + i);
+        }
+        // q0 was reused, so it moved to the protected segment
+        cache.use("q0");
+
+        assertSame(cache.get("q1"), policy.evictionCandidate());
+    }
+
+    @Test
+    void removedStatementsLeaveThePolicy() {
+        WindowTinyLfuStatementCachePolicy policy = new WindowTinyLfuStatementCachePolicy(10);
+        Cache cache = new Cache(policy);
+        for (int i = 0; i < 5; i++) {
+            cache.use("q" + i);
+        }
+        policy.onRemoved(cache.get("q0"));
+        CachedStatement borrowed = cache.get("q1");
+        policy.onTaken(borrowed);
+        policy.onRemoved(borrowed);
+
+        assertEquals(3, policy.size());
+    }
+
+    /**
+     * Drives the policy the way {@link StatementCacheConnection} does for a statement that is
+     * prepared, executed and closed, holding the idle statements by key.
+     */
+    private static final class Cache {
+        private final StatementCachePolicy policy;
+        private final Map<Object, CachedStatement> idle = new HashMap<>();
+
+        private Cache(StatementCachePolicy policy) {
+            this.policy = policy;
+        }
+
+        /**
+         * @return the key of the statement evicted when the used one went back to the cache
+         */
+        Object use(String sql) {
+            policy.recordAccess(sql);
+            CachedStatement statement = idle.remove(sql);
+            if (statement != null) {
+                policy.onTaken(statement);
+            } else {
+                statement = new TestStatement(sql);
+            }
+            idle.put(sql, statement);
+            CachedStatement evicted = policy.onIdle(statement);
+            if (evicted == null) {
+                return null;
+            }
+            idle.remove(evicted.getKey());
+            return evicted.getKey();
+        }
+
+        boolean contains(String sql) {
+            return idle.containsKey(sql);
+        }
+
+        CachedStatement get(String sql) {
+            return idle.get(sql);
+        }
+
+        int size() {
+            assertEquals(idle.size(), policy.size());
+            return idle.size();
+        }
+    }
+
+    private static final class TestStatement implements CachedStatement {
+        private final Object key;
+
+        private TestStatement(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public long getWeight() {
+            return 1L;
+        }
+
+        @Override
+        public void setLastTimeUsed(long lastTimeUsed) {
+        }
+
+        @Override
+        public void setOpened() {
+        }
+
+        @Override
+        public long getUseCount() {
+            return 0L;
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void release() {
+        }
+
+        @Override
+        public long getLastTimeUsed() {
+            return 0L;
+        }
+
+        @Override
+        public String toString() {
+            return key.toString();
+        }
+    }
+}